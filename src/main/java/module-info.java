@@ -1,6 +1,9 @@
 module sword {
     requires jdk.incubator.vector;
+    requires jdk.incubator.foreign;
     requires jmh.core;
     requires jdk.unsupported;
+    requires java.management;
+    exports sword.dev to java.management;
     opens sword.dev.performance to org.openjdk.jmh.core;
 }
\ No newline at end of file
@@ -0,0 +1,262 @@
+package query.engine;
+
+import sword.dev.BufferAllocator;
+import sword.dev.SwordBuf;
+
+/**
+ * The running state of one {@link Aggregate} for every group of a {@link HashAggregate}, held column-wise
+ * in buffers from the operator's allocator: a value per group for SUM, MIN, MAX and AVG, and a count of
+ * non-null values per group for COUNT, MIN, MAX and AVG. Int and long arguments are accumulated as longs,
+ * floating point ones as doubles.
+ */
+final class Accumulator implements AutoCloseable {
+    private static final String OWNER = "HashAggregate";
+
+    private final Aggregate.Function function;
+    private final Operand argument;
+    private final boolean floating;
+    private final BufferAllocator allocator;
+    private final ArrayVector result;
+    private SwordBuf values;
+    private SwordBuf counts;
+    private int capacity;
+    private int groups;
+
+    Accumulator(Aggregate aggregate, Schema schema, BufferAllocator allocator) {
+        this.function = aggregate.getFunction();
+        this.argument = aggregate.getArgument() == null ? null : new Operand(aggregate.getArgument());
+        this.floating = argument != null
+                && ValueKind.numeric(aggregate.getArgument().getType(schema)) == ValueKind.DOUBLE;
+        this.allocator = allocator;
+        this.result = newResult(ValueKind.of(aggregate.getType(schema)));
+    }
+
+    private static ArrayVector newResult(ValueKind kind) {
+        switch (kind) {
+            case INT:
+                return new IntArrayVector();
+            case LONG:
+                return new LongArrayVector();
+            default:
+                return new DoubleArrayVector();
+        }
+    }
+
+    private boolean hasValues() {
+        return function != Aggregate.Function.COUNT;
+    }
+
+    private boolean hasCounts() {
+        return function != Aggregate.Function.SUM;
+    }
+
+    /**
+     * Make room for {@code groupCount} groups, starting each new one from the function's identity.
+     */
+    void ensureGroups(int groupCount) {
+        if (groupCount > capacity) {
+            int grown = Math.max(groupCount, Math.max(1024, capacity * 2));
+            if (hasValues()) {
+                values = values == null
+                        ? allocator.allocate((long) grown << 3, OWNER)
+                        : allocator.reallocate(values, (long) grown << 3);
+            }
+            if (hasCounts()) {
+                counts = counts == null
+                        ? allocator.allocate((long) grown << 3, OWNER)
+                        : allocator.reallocate(counts, (long) grown << 3);
+            }
+            capacity = grown;
+        }
+        for (int group = groups; group < groupCount; group++) {
+            if (hasValues()) {
+                if (floating) {
+                    values.setDouble((long) group << 3, identityDouble());
+                } else {
+                    values.setLong((long) group << 3, identityLong());
+                }
+            }
+            if (hasCounts()) {
+                counts.setLong((long) group << 3, 0);
+            }
+        }
+        groups = Math.max(groups, groupCount);
+    }
+
+    private long identityLong() {
+        switch (function) {
+            case MIN:
+                return Long.MAX_VALUE;
+            case MAX:
+                return Long.MIN_VALUE;
+            default:
+                return 0;
+        }
+    }
+
+    private double identityDouble() {
+        switch (function) {
+            case MIN:
+                return Double.POSITIVE_INFINITY;
+            case MAX:
+                return Double.NEGATIVE_INFINITY;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Fold the first {@code n} rows of {@code batch} into the groups listed for them.
+     */
+    void update(RecordBatch batch, int[] rowGroups, int n) {
+        if (argument == null) {
+            count(null, rowGroups, n);
+            return;
+        }
+        ColumnVector column = argument.evaluate(batch);
+        long[] validity = argument.validity(column, n);
+        if (function == Aggregate.Function.COUNT) {
+            count(validity, rowGroups, n);
+            return;
+        }
+        if (floating) {
+            double[] v = argument.doubles(column, n);
+            if (function == Aggregate.Function.MIN) {
+                minDoubles(v, validity, rowGroups, n);
+            } else if (function == Aggregate.Function.MAX) {
+                maxDoubles(v, validity, rowGroups, n);
+            } else {
+                sumDoubles(v, validity, rowGroups, n);
+            }
+        } else {
+            long[] v = argument.longs(column, n);
+            if (function == Aggregate.Function.MIN) {
+                minLongs(v, validity, rowGroups, n);
+            } else if (function == Aggregate.Function.MAX) {
+                maxLongs(v, validity, rowGroups, n);
+            } else {
+                sumLongs(v, validity, rowGroups, n);
+            }
+        }
+        if (counts != null) {
+            count(validity, rowGroups, n);
+        }
+    }
+
+    private static boolean valid(long[] validity, int i) {
+        return validity == null || (validity[i >>> 6] & (1L << i)) != 0;
+    }
+
+    private void count(long[] validity, int[] rowGroups, int n) {
+        for (int i = 0; i < n; i++) {
+            if (valid(validity, i)) {
+                long index = (long) rowGroups[i] << 3;
+                counts.setLong(index, counts.getLong(index) + 1);
+            }
+        }
+    }
+
+    private void sumLongs(long[] v, long[] validity, int[] rowGroups, int n) {
+        for (int i = 0; i < n; i++) {
+            if (valid(validity, i)) {
+                long index = (long) rowGroups[i] << 3;
+                values.setLong(index, values.getLong(index) + v[i]);
+            }
+        }
+    }
+
+    private void minLongs(long[] v, long[] validity, int[] rowGroups, int n) {
+        for (int i = 0; i < n; i++) {
+            if (valid(validity, i)) {
+                long index = (long) rowGroups[i] << 3;
+                values.setLong(index, Math.min(values.getLong(index), v[i]));
+            }
+        }
+    }
+
+    private void maxLongs(long[] v, long[] validity, int[] rowGroups, int n) {
+        for (int i = 0; i < n; i++) {
+            if (valid(validity, i)) {
+                long index = (long) rowGroups[i] << 3;
+                values.setLong(index, Math.max(values.getLong(index), v[i]));
+            }
+        }
+    }
+
+    private void sumDoubles(double[] v, long[] validity, int[] rowGroups, int n) {
+        for (int i = 0; i < n; i++) {
+            if (valid(validity, i)) {
+                long index = (long) rowGroups[i] << 3;
+                values.setDouble(index, values.getDouble(index) + v[i]);
+            }
+        }
+    }
+
+    private void minDoubles(double[] v, long[] validity, int[] rowGroups, int n) {
+        for (int i = 0; i < n; i++) {
+            if (valid(validity, i)) {
+                long index = (long) rowGroups[i] << 3;
+                values.setDouble(index, Math.min(values.getDouble(index), v[i]));
+            }
+        }
+    }
+
+    private void maxDoubles(double[] v, long[] validity, int[] rowGroups, int n) {
+        for (int i = 0; i < n; i++) {
+            if (valid(validity, i)) {
+                long index = (long) rowGroups[i] << 3;
+                values.setDouble(index, Math.max(values.getDouble(index), v[i]));
+            }
+        }
+    }
+
+    /**
+     * The results of {@code count} groups from {@code start}, in a vector refilled by the next call.
+     */
+    ArrayVector output(int start, int count) {
+        result.reset(count);
+        if (function == Aggregate.Function.COUNT) {
+            counts.getLongs((long) start << 3, ((LongArrayVector) result).getValues(), 0, count);
+            return result;
+        }
+        if (result instanceof IntArrayVector) {
+            int[] out = ((IntArrayVector) result).getValues();
+            for (int i = 0; i < count; i++) {
+                out[i] = (int) values.getLong((long) (start + i) << 3);
+            }
+        } else if (result instanceof LongArrayVector) {
+            values.getLongs((long) start << 3, ((LongArrayVector) result).getValues(), 0, count);
+        } else if (function == Aggregate.Function.AVG) {
+            double[] out = ((DoubleArrayVector) result).getValues();
+            for (int i = 0; i < count; i++) {
+                long index = (long) (start + i) << 3;
+                double sum = floating ? values.getDouble(index) : values.getLong(index);
+                out[i] = sum / counts.getLong(index);
+            }
+        } else if (floating) {
+            values.getDoubles((long) start << 3, ((DoubleArrayVector) result).getValues(), 0, count);
+        }
+        if (counts != null) {
+            for (int i = 0; i < count; i++) {
+                if (counts.getLong((long) (start + i) << 3) == 0) {
+                    result.markNull(i);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        if (values != null) {
+            values.close();
+            values = null;
+        }
+        if (counts != null) {
+            counts.close();
+            counts = null;
+        }
+        capacity = 0;
+        groups = 0;
+    }
+}
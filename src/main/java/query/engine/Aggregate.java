@@ -0,0 +1,96 @@
+package query.engine;
+
+import sword.dev.type.SwordType;
+
+/**
+ * An aggregate function of a numeric expression, computed per group by {@link HashAggregate}. Null values
+ * are left out, as in {@link sword.dev.compute.Aggregates}: MIN, MAX and AVG are null for a group with no
+ * non-null values, while SUM is zero. Integer sums are taken in a long and wrap like long arithmetic.
+ */
+public final class Aggregate {
+
+    public enum Function {
+        SUM, COUNT, MIN, MAX, AVG
+    }
+
+    private final Function function;
+    private final Expression argument;
+
+    /**
+     * @param argument the values to aggregate, or null for a COUNT of every row
+     */
+    public Aggregate(Function function, Expression argument) {
+        if (argument == null && function != Function.COUNT) {
+            throw new IllegalArgumentException(function + " needs an argument");
+        }
+        this.function = function;
+        this.argument = argument;
+    }
+
+    public static Aggregate sum(Expression argument) {
+        return new Aggregate(Function.SUM, argument);
+    }
+
+    /**
+     * The number of non-null values.
+     */
+    public static Aggregate count(Expression argument) {
+        return new Aggregate(Function.COUNT, argument);
+    }
+
+    /**
+     * The number of rows.
+     */
+    public static Aggregate countAll() {
+        return new Aggregate(Function.COUNT, null);
+    }
+
+    public static Aggregate min(Expression argument) {
+        return new Aggregate(Function.MIN, argument);
+    }
+
+    public static Aggregate max(Expression argument) {
+        return new Aggregate(Function.MAX, argument);
+    }
+
+    public static Aggregate avg(Expression argument) {
+        return new Aggregate(Function.AVG, argument);
+    }
+
+    public Function getFunction() {
+        return function;
+    }
+
+    /**
+     * The values aggregated, or null for a COUNT of every row.
+     */
+    public Expression getArgument() {
+        return argument;
+    }
+
+    /**
+     * The result type: int64 for COUNT and integer SUMs, float64 for AVG and floating point SUMs, and the
+     * argument's kind for MIN and MAX.
+     */
+    public SwordType getType(Schema schema) {
+        if (argument == null) {
+            return SwordTypes.Int64Type;
+        }
+        ValueKind kind = ValueKind.numeric(argument.getType(schema));
+        switch (function) {
+            case COUNT:
+                return SwordTypes.Int64Type;
+            case SUM:
+                return kind == ValueKind.DOUBLE ? SwordTypes.Float64Type : SwordTypes.Int64Type;
+            case AVG:
+                return SwordTypes.Float64Type;
+            default:
+                return kind.type();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return function + "(" + (argument == null ? "*" : argument.toString()) + ")";
+    }
+}
@@ -0,0 +1,180 @@
+package query.engine;
+
+import sword.dev.type.SwordType;
+
+/**
+ * Adds, subtracts, multiplies or divides two numeric operands, in the wider of their kinds. Integer
+ * arithmetic wraps around as Java's does, and an integer division by zero gives null.
+ */
+public final class ArithmeticExpression implements Expression {
+
+    public enum Op {
+        ADD("+"), SUBTRACT("-"), MULTIPLY("*"), DIVIDE("/");
+
+        private final String symbol;
+
+        Op(String symbol) {
+            this.symbol = symbol;
+        }
+    }
+
+    private final Op op;
+    private final Operand left;
+    private final Operand right;
+    private IntArrayVector intResult;
+    private LongArrayVector longResult;
+    private DoubleArrayVector doubleResult;
+
+    public ArithmeticExpression(Op op, Expression left, Expression right) {
+        this.op = op;
+        this.left = new Operand(left);
+        this.right = new Operand(right);
+    }
+
+    public Op getOp() {
+        return op;
+    }
+
+    public Expression getLeft() {
+        return left.expression();
+    }
+
+    public Expression getRight() {
+        return right.expression();
+    }
+
+    @Override
+    public SwordType getType(Schema schema) {
+        return ValueKind.wider(ValueKind.numeric(left.expression().getType(schema)),
+                ValueKind.numeric(right.expression().getType(schema))).type();
+    }
+
+    @Override
+    public ColumnVector evaluate(RecordBatch batch) {
+        ColumnVector l = left.evaluate(batch);
+        ColumnVector r = right.evaluate(batch);
+        int n = batch.rowCount();
+        ValueKind kind = ValueKind.wider(ValueKind.numeric(l.getType()), ValueKind.numeric(r.getType()));
+        long[] leftValidity = left.validity(l, n);
+        long[] rightValidity = right.validity(r, n);
+        switch (kind) {
+            case INT: {
+                if (intResult == null) {
+                    intResult = new IntArrayVector();
+                }
+                intResult.reset(n);
+                intResult.setValidity(leftValidity, rightValidity);
+                compute(left.ints(l, n), right.ints(r, n), n, intResult);
+                return intResult;
+            }
+            case LONG: {
+                if (longResult == null) {
+                    longResult = new LongArrayVector();
+                }
+                longResult.reset(n);
+                longResult.setValidity(leftValidity, rightValidity);
+                compute(left.longs(l, n), right.longs(r, n), n, longResult);
+                return longResult;
+            }
+            default: {
+                if (doubleResult == null) {
+                    doubleResult = new DoubleArrayVector();
+                }
+                doubleResult.reset(n);
+                doubleResult.setValidity(leftValidity, rightValidity);
+                compute(left.doubles(l, n), right.doubles(r, n), n, doubleResult);
+                return doubleResult;
+            }
+        }
+    }
+
+    private void compute(int[] a, int[] b, int n, IntArrayVector result) {
+        int[] out = result.getValues();
+        switch (op) {
+            case ADD:
+                for (int i = 0; i < n; i++) {
+                    out[i] = a[i] + b[i];
+                }
+                break;
+            case SUBTRACT:
+                for (int i = 0; i < n; i++) {
+                    out[i] = a[i] - b[i];
+                }
+                break;
+            case MULTIPLY:
+                for (int i = 0; i < n; i++) {
+                    out[i] = a[i] * b[i];
+                }
+                break;
+            default:
+                for (int i = 0; i < n; i++) {
+                    if (b[i] == 0) {
+                        out[i] = 0;
+                        result.markNull(i);
+                    } else {
+                        out[i] = a[i] / b[i];
+                    }
+                }
+        }
+    }
+
+    private void compute(long[] a, long[] b, int n, LongArrayVector result) {
+        long[] out = result.getValues();
+        switch (op) {
+            case ADD:
+                for (int i = 0; i < n; i++) {
+                    out[i] = a[i] + b[i];
+                }
+                break;
+            case SUBTRACT:
+                for (int i = 0; i < n; i++) {
+                    out[i] = a[i] - b[i];
+                }
+                break;
+            case MULTIPLY:
+                for (int i = 0; i < n; i++) {
+                    out[i] = a[i] * b[i];
+                }
+                break;
+            default:
+                for (int i = 0; i < n; i++) {
+                    if (b[i] == 0) {
+                        out[i] = 0;
+                        result.markNull(i);
+                    } else {
+                        out[i] = a[i] / b[i];
+                    }
+                }
+        }
+    }
+
+    private void compute(double[] a, double[] b, int n, DoubleArrayVector result) {
+        double[] out = result.getValues();
+        switch (op) {
+            case ADD:
+                for (int i = 0; i < n; i++) {
+                    out[i] = a[i] + b[i];
+                }
+                break;
+            case SUBTRACT:
+                for (int i = 0; i < n; i++) {
+                    out[i] = a[i] - b[i];
+                }
+                break;
+            case MULTIPLY:
+                for (int i = 0; i < n; i++) {
+                    out[i] = a[i] * b[i];
+                }
+                break;
+            default:
+                for (int i = 0; i < n; i++) {
+                    out[i] = a[i] / b[i];
+                }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "(" + left.expression() + " " + op.symbol + " " + right.expression() + ")";
+    }
+}
@@ -0,0 +1,133 @@
+package query.engine;
+
+import sword.dev.type.SwordType;
+
+import java.util.Arrays;
+
+/**
+ * A column held in Java arrays, as produced by evaluating an {@link Expression}. Validity is a bitmap of
+ * 64-bit words, bit {@code i % 64} of word {@code i / 64} set when row {@code i} holds a value, and is
+ * left out altogether when every row does. Bits past {@link #size()} are unspecified.
+ *
+ * <p>The arrays may be longer than the column: an expression refills the same vector for every batch,
+ * growing its arrays only when a batch is larger than any before.
+ */
+public abstract class ArrayVector implements ColumnVector {
+    private final SwordType type;
+    private long[] validityWords = new long[0];
+    long[] validity;
+    int size;
+
+    ArrayVector(SwordType type) {
+        this.type = type;
+    }
+
+    static int words(int size) {
+        return (size + 63) >>> 6;
+    }
+
+    @Override
+    public SwordType getType() {
+        return type;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isNull(int i) {
+        return validity != null && (validity[i >>> 6] & (1L << i)) == 0;
+    }
+
+    /**
+     * The validity bitmap, or null when no row is null.
+     */
+    public long[] getValidity() {
+        return validity;
+    }
+
+    /**
+     * Make room for {@code size} rows and mark them all valid. Values are kept only when the arrays
+     * were already large enough.
+     */
+    void reset(int size) {
+        ensureCapacity(size);
+        this.size = size;
+        this.validity = null;
+    }
+
+    abstract void ensureCapacity(int capacity);
+
+    /**
+     * Make row {@code i} null, writing out the validity bitmap first if there is none yet.
+     */
+    void markNull(int i) {
+        if (validity == null) {
+            long[] words = validityWords(size);
+            Arrays.fill(words, 0, words(size), -1L);
+        }
+        validity[i >>> 6] &= ~(1L << i);
+    }
+
+    /**
+     * Make this vector's validity the intersection of two bitmaps, either of which may be null for all
+     * valid.
+     */
+    void setValidity(long[] left, long[] right) {
+        if (left == null && right == null) {
+            validity = null;
+            return;
+        }
+        long[] words = validityWords(size);
+        int count = words(size);
+        if (left == null || right == null) {
+            System.arraycopy(left == null ? right : left, 0, words, 0, count);
+        } else {
+            for (int i = 0; i < count; i++) {
+                words[i] = left[i] & right[i];
+            }
+        }
+    }
+
+    /**
+     * This vector's own validity storage, large enough for {@code size} rows, made its validity. The
+     * caller fills in the words.
+     */
+    long[] validityWords(int size) {
+        int count = words(size);
+        if (validityWords.length < count) {
+            validityWords = new long[count];
+        }
+        validity = validityWords;
+        return validityWords;
+    }
+
+    /**
+     * Copy the rows listed in {@code selection} into {@code target}, or into a new vector when the target
+     * is null or of another class, and return the vector written.
+     */
+    abstract ArrayVector gather(int[] selection, int count, ArrayVector target);
+
+    void checkSelection(int[] selection, int count) {
+        for (int i = 0; i < count; i++) {
+            if (selection[i] < 0 || selection[i] >= size) {
+                throw new IndexOutOfBoundsException("Index " + selection[i] + " out of bounds for length " + size);
+            }
+        }
+    }
+
+    void gatherValidity(int[] selection, int count, ArrayVector target) {
+        if (validity == null) {
+            target.validity = null;
+            return;
+        }
+        long[] words = target.validityWords(count);
+        Arrays.fill(words, 0, words(count), 0L);
+        for (int i = 0; i < count; i++) {
+            int row = selection[i];
+            words[i >>> 6] |= ((validity[row >>> 6] >>> row) & 1L) << i;
+        }
+    }
+}
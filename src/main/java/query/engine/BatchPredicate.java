@@ -0,0 +1,16 @@
+package query.engine;
+
+/**
+ * A condition on the rows of a batch, answered for the whole batch at once.
+ */
+@FunctionalInterface
+public interface BatchPredicate {
+
+    /**
+     * Write the indices of the rows that pass, in ascending order, into {@code selection}, which has room
+     * for every row of the batch.
+     *
+     * @return the number of rows that pass
+     */
+    int select(RecordBatch batch, int[] selection);
+}
@@ -0,0 +1,53 @@
+package query.engine;
+
+import java.util.Arrays;
+
+/**
+ * A bool column as a bitmap of 64-bit words, laid out like the validity bitmap. Bits past
+ * {@link #size()} are unspecified.
+ */
+public final class BoolArrayVector extends ArrayVector {
+    private long[] bits = new long[0];
+
+    public BoolArrayVector() {
+        super(SwordTypes.BoolType);
+    }
+
+    /**
+     * The value bits, of which the first {@link #size()} belong to the column.
+     */
+    public long[] getBits() {
+        return bits;
+    }
+
+    public boolean getBoolean(int i) {
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    @Override
+    void ensureCapacity(int capacity) {
+        if (bits.length < words(capacity)) {
+            bits = new long[words(capacity)];
+        }
+    }
+
+    @Override
+    public Object getValue(int i) {
+        return isNull(i) ? null : getBoolean(i);
+    }
+
+    @Override
+    ArrayVector gather(int[] selection, int count, ArrayVector target) {
+        checkSelection(selection, count);
+        BoolArrayVector result = target instanceof BoolArrayVector ? (BoolArrayVector) target : new BoolArrayVector();
+        result.reset(count);
+        long[] out = result.bits;
+        Arrays.fill(out, 0, words(count), 0L);
+        for (int i = 0; i < count; i++) {
+            int row = selection[i];
+            out[i >>> 6] |= ((bits[row >>> 6] >>> row) & 1L) << i;
+        }
+        gatherValidity(selection, count, result);
+        return result;
+    }
+}
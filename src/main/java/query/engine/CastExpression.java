@@ -0,0 +1,80 @@
+package query.engine;
+
+import sword.dev.type.SwordType;
+
+/**
+ * Converts a numeric operand to int32, int64 or float64 with Java's conversions: narrowing an integer
+ * keeps its low bits, and a double becomes the nearest integer towards zero, saturating at the ends of
+ * the range. Nulls stay null.
+ */
+public final class CastExpression implements Expression {
+    private final Operand operand;
+    private final ValueKind kind;
+    private ArrayVector result;
+
+    public CastExpression(Expression operand, SwordType type) {
+        this.operand = new Operand(operand);
+        this.kind = ValueKind.numeric(type);
+    }
+
+    @Override
+    public SwordType getType(Schema schema) {
+        ValueKind.numeric(operand.expression().getType(schema));
+        return kind.type();
+    }
+
+    @Override
+    public ColumnVector evaluate(RecordBatch batch) {
+        ColumnVector column = operand.evaluate(batch);
+        ValueKind from = ValueKind.numeric(column.getType());
+        if (from == kind && column.getType().equals(kind.type())) {
+            return column;
+        }
+        int n = batch.rowCount();
+        if (result == null) {
+            result = kind == ValueKind.INT ? new IntArrayVector()
+                    : kind == ValueKind.LONG ? new LongArrayVector() : new DoubleArrayVector();
+        }
+        result.reset(n);
+        result.setValidity(operand.validity(column, n), null);
+        switch (kind) {
+            case INT: {
+                int[] out = ((IntArrayVector) result).getValues();
+                if (from == ValueKind.INT) {
+                    System.arraycopy(operand.ints(column, n), 0, out, 0, n);
+                } else if (from == ValueKind.LONG) {
+                    long[] values = operand.longs(column, n);
+                    for (int i = 0; i < n; i++) {
+                        out[i] = (int) values[i];
+                    }
+                } else {
+                    double[] values = operand.doubles(column, n);
+                    for (int i = 0; i < n; i++) {
+                        out[i] = (int) values[i];
+                    }
+                }
+                break;
+            }
+            case LONG: {
+                long[] out = ((LongArrayVector) result).getValues();
+                if (from == ValueKind.DOUBLE) {
+                    double[] values = operand.doubles(column, n);
+                    for (int i = 0; i < n; i++) {
+                        out[i] = (long) values[i];
+                    }
+                } else {
+                    System.arraycopy(operand.longs(column, n), 0, out, 0, n);
+                }
+                break;
+            }
+            default:
+                System.arraycopy(operand.doubles(column, n), 0, ((DoubleArrayVector) result).getValues(), 0, n);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "CAST(" + operand.expression() + " AS " + kind.type() + ")";
+    }
+}
@@ -0,0 +1,280 @@
+package query.engine;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough of a class file writer for the kernels {@link ExpressionCompiler} generates: a constant
+ * pool, and methods whose code is emitted an instruction at a time with branches resolved when the method
+ * is finished. Classes are written as version 49, which the verifier checks by type inference, so no stack
+ * map frames are needed. Names and descriptors must be ASCII.
+ */
+final class ClassFileWriter {
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+
+    static final int ICONST_0 = 0x03;
+    static final int BIPUSH = 0x10;
+    static final int SIPUSH = 0x11;
+    static final int LDC_W = 0x13;
+    static final int ILOAD = 0x15;
+    static final int ALOAD = 0x19;
+    static final int IALOAD = 0x2e;
+    static final int AALOAD = 0x32;
+    static final int ISTORE = 0x36;
+    static final int ASTORE = 0x3a;
+    static final int IASTORE = 0x4f;
+    static final int DUP = 0x59;
+    static final int IADD = 0x60;
+    static final int ISUB = 0x64;
+    static final int LSUB = 0x65;
+    static final int IMUL = 0x68;
+    static final int INEG = 0x74;
+    static final int LNEG = 0x75;
+    static final int LSHL = 0x79;
+    static final int IUSHR = 0x7c;
+    static final int LUSHR = 0x7d;
+    static final int IAND = 0x7e;
+    static final int IOR = 0x80;
+    static final int IXOR = 0x82;
+    static final int IINC = 0x84;
+    static final int I2L = 0x85;
+    static final int L2I = 0x88;
+    static final int IF_ICMPGE = 0xa2;
+    static final int GOTO = 0xa7;
+    static final int IRETURN = 0xac;
+    static final int RETURN = 0xb1;
+    static final int GETFIELD = 0xb4;
+    static final int INVOKEVIRTUAL = 0xb6;
+    static final int INVOKESPECIAL = 0xb7;
+
+    private static final int CLASS_FILE_VERSION = 49;
+
+    private final ByteVector pool = new ByteVector();
+    private final Map<String, Integer> poolEntries = new HashMap<>();
+    private int poolCount = 1;
+    private final List<ByteVector> methods = new ArrayList<>();
+    private final int thisClass;
+    private final int superClass;
+    private final int codeAttribute;
+
+    ClassFileWriter(String name, String superName) {
+        this.thisClass = classRef(name);
+        this.superClass = classRef(superName);
+        this.codeAttribute = utf8("Code");
+    }
+
+    int utf8(String value) {
+        return entry("U" + value, () -> {
+            byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+            pool.u1(1).u2(bytes.length).bytes(bytes);
+        });
+    }
+
+    int classRef(String internalName) {
+        int name = utf8(internalName);
+        return entry("C" + internalName, () -> pool.u1(7).u2(name));
+    }
+
+    int integer(int value) {
+        return entry("I" + value, () -> pool.u1(3).u4(value));
+    }
+
+    int fieldRef(String owner, String name, String descriptor) {
+        return memberRef(9, owner, name, descriptor);
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+        return memberRef(10, owner, name, descriptor);
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        int ownerIndex = classRef(owner);
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        int nameAndType = entry("N" + name + ":" + descriptor, () -> pool.u1(12).u2(nameIndex).u2(descriptorIndex));
+        return entry(tag + owner + "." + name + ":" + descriptor, () -> pool.u1(tag).u2(ownerIndex).u2(nameAndType));
+    }
+
+    private int entry(String key, Runnable writer) {
+        Integer index = poolEntries.get(key);
+        if (index == null) {
+            writer.run();
+            index = poolCount++;
+            poolEntries.put(key, index);
+        }
+        return index;
+    }
+
+    Code method(int access, String name, String descriptor, int maxLocals) {
+        return new Code(access, utf8(name), utf8(descriptor), maxLocals);
+    }
+
+    byte[] toByteArray() {
+        ByteVector out = new ByteVector();
+        out.u4(0xCAFEBABE).u2(0).u2(CLASS_FILE_VERSION);
+        out.u2(poolCount).bytes(pool.toByteArray());
+        out.u2(ACC_FINAL | ACC_SUPER).u2(thisClass).u2(superClass);
+        out.u2(0); // interfaces
+        out.u2(0); // fields
+        out.u2(methods.size());
+        for (ByteVector method : methods) {
+            out.bytes(method.toByteArray());
+        }
+        out.u2(0); // attributes
+        return out.toByteArray();
+    }
+
+    /**
+     * A branch target. Its stack depth is taken from the first branch to it, or from the code falling
+     * through to it, so code following a {@code goto} resumes at the right depth.
+     */
+    static final class Label {
+        private int position = -1;
+        private int stack = -1;
+    }
+
+    /**
+     * The code of one method. Each instruction states how it changes the operand stack so the maximum
+     * depth can be recorded.
+     */
+    final class Code {
+        private final int access;
+        private final int name;
+        private final int descriptor;
+        private final int maxLocals;
+        private final ByteVector code = new ByteVector();
+        private final List<Label> branchTargets = new ArrayList<>();
+        private final List<Integer> branchPositions = new ArrayList<>();
+        private int stack;
+        private int maxStack;
+
+        private Code(int access, int name, int descriptor, int maxLocals) {
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.maxLocals = maxLocals;
+        }
+
+        private void adjust(int stackChange) {
+            stack += stackChange;
+            maxStack = Math.max(maxStack, stack);
+        }
+
+        void op(int opcode, int stackChange) {
+            code.u1(opcode);
+            adjust(stackChange);
+        }
+
+        void load(int opcode, int local) {
+            code.u1(opcode).u1(local);
+            adjust(1);
+        }
+
+        void store(int opcode, int local) {
+            code.u1(opcode).u1(local);
+            adjust(-1);
+        }
+
+        void push(int value) {
+            if (value >= -1 && value <= 5) {
+                code.u1(ICONST_0 + value);
+            } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                code.u1(BIPUSH).u1(value);
+            } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                code.u1(SIPUSH).u2(value);
+            } else {
+                code.u1(LDC_W).u2(integer(value));
+            }
+            adjust(1);
+        }
+
+        void iinc(int local, int delta) {
+            code.u1(IINC).u1(local).u1(delta);
+        }
+
+        void member(int opcode, int index, int stackChange) {
+            code.u1(opcode).u2(index);
+            adjust(stackChange);
+        }
+
+        void jump(int opcode, Label target, int stackChange) {
+            branchTargets.add(target);
+            branchPositions.add(code.length);
+            code.u1(opcode).u2(0);
+            adjust(stackChange);
+            if (target.stack < 0) {
+                target.stack = stack;
+            }
+        }
+
+        void mark(Label label) {
+            label.position = code.length;
+            if (label.stack >= 0) {
+                stack = label.stack;
+            } else {
+                label.stack = stack;
+            }
+        }
+
+        void finish() {
+            byte[] bytes = code.toByteArray();
+            for (int i = 0; i < branchTargets.size(); i++) {
+                int position = branchPositions.get(i);
+                int offset = branchTargets.get(i).position - position;
+                bytes[position + 1] = (byte) (offset >>> 8);
+                bytes[position + 2] = (byte) offset;
+            }
+            ByteVector method = new ByteVector();
+            method.u2(access).u2(name).u2(descriptor).u2(1);
+            method.u2(codeAttribute).u4(12 + bytes.length);
+            method.u2(maxStack).u2(maxLocals).u4(bytes.length).bytes(bytes);
+            method.u2(0); // exception table
+            method.u2(0); // attributes
+            methods.add(method);
+        }
+    }
+
+    private static final class ByteVector {
+        private byte[] data = new byte[256];
+        private int length;
+
+        private void ensure(int extra) {
+            if (length + extra > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + extra));
+            }
+        }
+
+        ByteVector u1(int value) {
+            ensure(1);
+            data[length++] = (byte) value;
+            return this;
+        }
+
+        ByteVector u2(int value) {
+            ensure(2);
+            data[length++] = (byte) (value >>> 8);
+            data[length++] = (byte) value;
+            return this;
+        }
+
+        ByteVector u4(int value) {
+            return u2(value >>> 16).u2(value);
+        }
+
+        ByteVector bytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, data, length, bytes.length);
+            length += bytes.length;
+            return this;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(data, length);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package query.engine;
+
+import sword.dev.type.SwordType;
+
+/**
+ * A column of the input batch, passed on as it is.
+ */
+public final class ColumnExpression implements Expression {
+    private final int index;
+
+    public ColumnExpression(int index) {
+        this.index = index;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public SwordType getType(Schema schema) {
+        int columnCount = schema.getFields().size();
+        if (index < 0 || index >= columnCount) {
+            throw new IllegalArgumentException("No column " + index + " among " + columnCount);
+        }
+        return schema.getFields().get(index).getDataType();
+    }
+
+    @Override
+    public ColumnVector evaluate(RecordBatch batch) {
+        return batch.field(index);
+    }
+
+    @Override
+    public String toString() {
+        return "#" + index;
+    }
+}
@@ -2,8 +2,72 @@ package query.engine;
 
 import sword.dev.type.SwordType;
 
+import java.util.Objects;
+
+/**
+ * A column of a {@link RecordBatch}. {@link #getValue(int)} boxes every value; operators that know the
+ * column's type read it through the primitive accessors instead. Integer columns can also be read as long
+ * or double, and long columns as double. The value of a null row is unspecified for the primitive
+ * accessors, so check {@link #isNull(int)} first.
+ */
 public interface ColumnVector {
     SwordType getType();
     Object getValue(int i);
     int size();
+
+    default boolean isNull(int i) {
+        return getValue(i) == null;
+    }
+
+    default int getInt(int i) {
+        throw new UnsupportedOperationException("Cannot read a " + getType() + " column as int");
+    }
+
+    default long getLong(int i) {
+        throw new UnsupportedOperationException("Cannot read a " + getType() + " column as long");
+    }
+
+    default double getDouble(int i) {
+        throw new UnsupportedOperationException("Cannot read a " + getType() + " column as double");
+    }
+
+    /**
+     * Copy {@code length} int values, starting at row {@code start}, into {@code dst} from {@code dstIndex}.
+     */
+    default void getInts(int start, int[] dst, int dstIndex, int length) {
+        Objects.checkFromIndexSize(start, length, size());
+        Objects.checkFromIndexSize(dstIndex, length, dst.length);
+        for (int i = 0; i < length; i++) {
+            dst[dstIndex + i] = getInt(start + i);
+        }
+    }
+
+    /**
+     * Fill {@code dst} with the int values of the rows starting at {@code start}.
+     */
+    default void getInts(int start, int[] dst) {
+        getInts(start, dst, 0, dst.length);
+    }
+
+    /**
+     * Copy {@code length} long values, starting at row {@code start}, into {@code dst} from {@code dstIndex}.
+     */
+    default void getLongs(int start, long[] dst, int dstIndex, int length) {
+        Objects.checkFromIndexSize(start, length, size());
+        Objects.checkFromIndexSize(dstIndex, length, dst.length);
+        for (int i = 0; i < length; i++) {
+            dst[dstIndex + i] = getLong(start + i);
+        }
+    }
+
+    /**
+     * Copy {@code length} double values, starting at row {@code start}, into {@code dst} from {@code dstIndex}.
+     */
+    default void getDoubles(int start, double[] dst, int dstIndex, int length) {
+        Objects.checkFromIndexSize(start, length, size());
+        Objects.checkFromIndexSize(dstIndex, length, dst.length);
+        for (int i = 0; i < length; i++) {
+            dst[dstIndex + i] = getDouble(start + i);
+        }
+    }
 }
@@ -0,0 +1,213 @@
+package query.engine;
+
+import sword.dev.compute.CompareOp;
+import sword.dev.type.SwordType;
+
+/**
+ * Compares two numeric operands, in the wider of their kinds, into a bool column. Doubles compare as
+ * Java's operators do, so NaN is unequal to everything, itself included.
+ *
+ * <p>Only equal, less than and less or equal have loops of their own: greater than and greater or equal
+ * swap the operands, and not equal inverts equal.
+ */
+public final class ComparisonExpression implements Expression {
+    private final CompareOp op;
+    private final Operand left;
+    private final Operand right;
+    private final BoolArrayVector result = new BoolArrayVector();
+
+    public ComparisonExpression(CompareOp op, Expression left, Expression right) {
+        this.op = op;
+        this.left = new Operand(left);
+        this.right = new Operand(right);
+    }
+
+    public CompareOp getOp() {
+        return op;
+    }
+
+    public Expression getLeft() {
+        return left.expression();
+    }
+
+    public Expression getRight() {
+        return right.expression();
+    }
+
+    @Override
+    public SwordType getType(Schema schema) {
+        ValueKind.numeric(left.expression().getType(schema));
+        ValueKind.numeric(right.expression().getType(schema));
+        return SwordTypes.BoolType;
+    }
+
+    @Override
+    public ColumnVector evaluate(RecordBatch batch) {
+        ColumnVector l = left.evaluate(batch);
+        ColumnVector r = right.evaluate(batch);
+        int n = batch.rowCount();
+        ValueKind kind = ValueKind.wider(ValueKind.numeric(l.getType()), ValueKind.numeric(r.getType()));
+        result.reset(n);
+        result.setValidity(left.validity(l, n), right.validity(r, n));
+        long[] bits = result.getBits();
+        switch (kind) {
+            case INT:
+                compare(left.ints(l, n), right.ints(r, n), n, bits);
+                break;
+            case LONG:
+                compare(left.longs(l, n), right.longs(r, n), n, bits);
+                break;
+            default:
+                compare(left.doubles(l, n), right.doubles(r, n), n, bits);
+        }
+        if (op == CompareOp.NE) {
+            for (int i = 0; i < ArrayVector.words(n); i++) {
+                bits[i] = ~bits[i];
+            }
+        }
+        return result;
+    }
+
+    private void compare(int[] a, int[] b, int n, long[] bits) {
+        switch (op) {
+            case EQ:
+            case NE:
+                for (int base = 0; base < n; base += 64) {
+                    long word = 0;
+                    for (int i = base, end = Math.min(n, base + 64); i < end; i++) {
+                        word |= (a[i] == b[i] ? 1L : 0L) << i;
+                    }
+                    bits[base >>> 6] = word;
+                }
+                break;
+            case LT:
+                lessThan(a, b, n, bits);
+                break;
+            case GT:
+                lessThan(b, a, n, bits);
+                break;
+            case LE:
+                lessOrEqual(a, b, n, bits);
+                break;
+            default:
+                lessOrEqual(b, a, n, bits);
+        }
+    }
+
+    private static void lessThan(int[] a, int[] b, int n, long[] bits) {
+        for (int base = 0; base < n; base += 64) {
+            long word = 0;
+            for (int i = base, end = Math.min(n, base + 64); i < end; i++) {
+                word |= (a[i] < b[i] ? 1L : 0L) << i;
+            }
+            bits[base >>> 6] = word;
+        }
+    }
+
+    private static void lessOrEqual(int[] a, int[] b, int n, long[] bits) {
+        for (int base = 0; base < n; base += 64) {
+            long word = 0;
+            for (int i = base, end = Math.min(n, base + 64); i < end; i++) {
+                word |= (a[i] <= b[i] ? 1L : 0L) << i;
+            }
+            bits[base >>> 6] = word;
+        }
+    }
+
+    private void compare(long[] a, long[] b, int n, long[] bits) {
+        switch (op) {
+            case EQ:
+            case NE:
+                for (int base = 0; base < n; base += 64) {
+                    long word = 0;
+                    for (int i = base, end = Math.min(n, base + 64); i < end; i++) {
+                        word |= (a[i] == b[i] ? 1L : 0L) << i;
+                    }
+                    bits[base >>> 6] = word;
+                }
+                break;
+            case LT:
+                lessThan(a, b, n, bits);
+                break;
+            case GT:
+                lessThan(b, a, n, bits);
+                break;
+            case LE:
+                lessOrEqual(a, b, n, bits);
+                break;
+            default:
+                lessOrEqual(b, a, n, bits);
+        }
+    }
+
+    private static void lessThan(long[] a, long[] b, int n, long[] bits) {
+        for (int base = 0; base < n; base += 64) {
+            long word = 0;
+            for (int i = base, end = Math.min(n, base + 64); i < end; i++) {
+                word |= (a[i] < b[i] ? 1L : 0L) << i;
+            }
+            bits[base >>> 6] = word;
+        }
+    }
+
+    private static void lessOrEqual(long[] a, long[] b, int n, long[] bits) {
+        for (int base = 0; base < n; base += 64) {
+            long word = 0;
+            for (int i = base, end = Math.min(n, base + 64); i < end; i++) {
+                word |= (a[i] <= b[i] ? 1L : 0L) << i;
+            }
+            bits[base >>> 6] = word;
+        }
+    }
+
+    private void compare(double[] a, double[] b, int n, long[] bits) {
+        switch (op) {
+            case EQ:
+            case NE:
+                for (int base = 0; base < n; base += 64) {
+                    long word = 0;
+                    for (int i = base, end = Math.min(n, base + 64); i < end; i++) {
+                        word |= (a[i] == b[i] ? 1L : 0L) << i;
+                    }
+                    bits[base >>> 6] = word;
+                }
+                break;
+            case LT:
+                lessThan(a, b, n, bits);
+                break;
+            case GT:
+                lessThan(b, a, n, bits);
+                break;
+            case LE:
+                lessOrEqual(a, b, n, bits);
+                break;
+            default:
+                lessOrEqual(b, a, n, bits);
+        }
+    }
+
+    private static void lessThan(double[] a, double[] b, int n, long[] bits) {
+        for (int base = 0; base < n; base += 64) {
+            long word = 0;
+            for (int i = base, end = Math.min(n, base + 64); i < end; i++) {
+                word |= (a[i] < b[i] ? 1L : 0L) << i;
+            }
+            bits[base >>> 6] = word;
+        }
+    }
+
+    private static void lessOrEqual(double[] a, double[] b, int n, long[] bits) {
+        for (int base = 0; base < n; base += 64) {
+            long word = 0;
+            for (int i = base, end = Math.min(n, base + 64); i < end; i++) {
+                word |= (a[i] <= b[i] ? 1L : 0L) << i;
+            }
+            bits[base >>> 6] = word;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "(" + left.expression() + " " + op + " " + right.expression() + ")";
+    }
+}
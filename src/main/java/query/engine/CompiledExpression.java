@@ -0,0 +1,40 @@
+package query.engine;
+
+import sword.dev.type.SwordType;
+
+/**
+ * An int expression run by a generated kernel. Batches the kernel cannot read, such as ones with nulls,
+ * are evaluated by the original expression instead.
+ */
+final class CompiledExpression implements Expression {
+    private final Expression expression;
+    private final FusedKernel kernel;
+    private final IntArrayVector result = new IntArrayVector();
+    private final int[][] outputs = new int[1][];
+
+    CompiledExpression(Expression expression, FusedKernel kernel) {
+        this.expression = expression;
+        this.kernel = kernel;
+    }
+
+    @Override
+    public SwordType getType(Schema schema) {
+        return expression.getType(schema);
+    }
+
+    @Override
+    public ColumnVector evaluate(RecordBatch batch) {
+        if (!kernel.accepts(batch)) {
+            return expression.evaluate(batch);
+        }
+        result.reset(batch.rowCount());
+        outputs[0] = result.getValues();
+        kernel.run(batch, outputs);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return expression.toString();
+    }
+}
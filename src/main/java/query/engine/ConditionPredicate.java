@@ -0,0 +1,36 @@
+package query.engine;
+
+/**
+ * Selects the rows for which a bool expression is true; rows where it is false or null are dropped.
+ */
+final class ConditionPredicate implements BatchPredicate {
+    private final Operand condition;
+
+    ConditionPredicate(Expression condition, Schema schema) {
+        ValueKind.bool(condition.getType(schema));
+        this.condition = new Operand(condition);
+    }
+
+    @Override
+    public int select(RecordBatch batch, int[] selection) {
+        ColumnVector column = condition.evaluate(batch);
+        int n = batch.rowCount();
+        long[] bits = condition.bits(column, n);
+        long[] validity = condition.validity(column, n);
+        int selected = 0;
+        for (int base = 0; base < n; base += 64) {
+            long word = bits[base >>> 6];
+            if (validity != null) {
+                word &= validity[base >>> 6];
+            }
+            if (n - base < 64) {
+                word &= (1L << (n - base)) - 1;
+            }
+            while (word != 0) {
+                selection[selected++] = base + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return selected;
+    }
+}
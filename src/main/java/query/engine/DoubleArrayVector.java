@@ -0,0 +1,57 @@
+package query.engine;
+
+import java.util.Objects;
+
+/**
+ * A float64 column in a {@code double[]}.
+ */
+public final class DoubleArrayVector extends ArrayVector {
+    private double[] values = new double[0];
+
+    public DoubleArrayVector() {
+        super(SwordTypes.Float64Type);
+    }
+
+    /**
+     * The values, of which the first {@link #size()} belong to the column.
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    @Override
+    void ensureCapacity(int capacity) {
+        if (values.length < capacity) {
+            values = new double[capacity];
+        }
+    }
+
+    @Override
+    public Object getValue(int i) {
+        return isNull(i) ? null : values[i];
+    }
+
+    @Override
+    public double getDouble(int i) {
+        return values[i];
+    }
+
+    @Override
+    public void getDoubles(int start, double[] dst, int dstIndex, int length) {
+        Objects.checkFromIndexSize(start, length, size);
+        System.arraycopy(values, start, dst, dstIndex, length);
+    }
+
+    @Override
+    ArrayVector gather(int[] selection, int count, ArrayVector target) {
+        checkSelection(selection, count);
+        DoubleArrayVector result = target instanceof DoubleArrayVector ? (DoubleArrayVector) target : new DoubleArrayVector();
+        result.reset(count);
+        double[] out = result.values;
+        for (int i = 0; i < count; i++) {
+            out[i] = values[selection[i]];
+        }
+        gatherValidity(selection, count, result);
+        return result;
+    }
+}
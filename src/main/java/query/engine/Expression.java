@@ -0,0 +1,24 @@
+package query.engine;
+
+import sword.dev.type.SwordType;
+
+/**
+ * A computation over the columns of a batch, evaluated a whole column at a time. Each node runs one
+ * primitive loop per operation over its operands' values, and combines their validity bitmaps a word at a
+ * time: a row with a null operand is null, except where the logical operators say otherwise.
+ * {@link Expressions} builds the nodes.
+ *
+ * <p>A node refills the same result vector on every call, so what {@link #evaluate} returns is valid until
+ * the node is evaluated again, and a node is evaluated by one thread at a time.
+ */
+public interface Expression {
+
+    /**
+     * The type of the values this expression computes over batches of {@code schema}.
+     *
+     * @throws IllegalArgumentException if the operands have types this expression does not accept
+     */
+    SwordType getType(Schema schema);
+
+    ColumnVector evaluate(RecordBatch batch);
+}
@@ -0,0 +1,411 @@
+package query.engine;
+
+import query.engine.ClassFileWriter.Code;
+import query.engine.ClassFileWriter.Label;
+import sword.dev.compute.CompareOp;
+import sword.dev.type.SwordType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static query.engine.ClassFileWriter.AALOAD;
+import static query.engine.ClassFileWriter.ALOAD;
+import static query.engine.ClassFileWriter.ASTORE;
+import static query.engine.ClassFileWriter.DUP;
+import static query.engine.ClassFileWriter.GETFIELD;
+import static query.engine.ClassFileWriter.GOTO;
+import static query.engine.ClassFileWriter.I2L;
+import static query.engine.ClassFileWriter.IADD;
+import static query.engine.ClassFileWriter.IALOAD;
+import static query.engine.ClassFileWriter.IAND;
+import static query.engine.ClassFileWriter.IASTORE;
+import static query.engine.ClassFileWriter.IF_ICMPGE;
+import static query.engine.ClassFileWriter.ILOAD;
+import static query.engine.ClassFileWriter.IMUL;
+import static query.engine.ClassFileWriter.INEG;
+import static query.engine.ClassFileWriter.INVOKESPECIAL;
+import static query.engine.ClassFileWriter.INVOKEVIRTUAL;
+import static query.engine.ClassFileWriter.IOR;
+import static query.engine.ClassFileWriter.IRETURN;
+import static query.engine.ClassFileWriter.ISTORE;
+import static query.engine.ClassFileWriter.ISUB;
+import static query.engine.ClassFileWriter.IUSHR;
+import static query.engine.ClassFileWriter.IXOR;
+import static query.engine.ClassFileWriter.L2I;
+import static query.engine.ClassFileWriter.LNEG;
+import static query.engine.ClassFileWriter.LSHL;
+import static query.engine.ClassFileWriter.LSUB;
+import static query.engine.ClassFileWriter.LUSHR;
+import static query.engine.ClassFileWriter.RETURN;
+
+/**
+ * Compiles int expressions, and a filter with its projections, into generated classes that make one pass
+ * over the rows and read the {@link sword.dev.IntVectorV2} data buffers directly, with no vector per
+ * expression node. Classes are defined as hidden classes and cached by expression shape, the expression
+ * with its literals left out, so the same query with other literals reuses the class.
+ *
+ * <p>Int32 columns, int and bool literals, {@code +}, {@code -} and {@code *} on ints, comparisons of ints
+ * and AND, OR and NOT compile; anything else, division included, is left to the interpreter. Compiled
+ * code runs only over batches whose columns have no nulls, and falls back to the interpreter otherwise.
+ *
+ * <p>The generated loop has no branches but its own: comparisons are computed from the sign of a
+ * difference, and every row's projections are written at the next output position, which only advances
+ * when the condition holds. Conditions near 50% selective would otherwise mispredict half the time.
+ */
+public final class ExpressionCompiler {
+    private static final int MAX_CACHED_KERNELS = 256;
+    // Locals are addressed with one byte
+    private static final int MAX_LOCALS = 256;
+
+    private static final String KERNEL = "query/engine/FusedKernel";
+    private static final String GENERATED = "query/engine/GeneratedKernel";
+    private static final String SWORD_BUF = "sword/dev/SwordBuf";
+    private static final String RUN = "([L" + SWORD_BUF + ";I[[I)I";
+
+    // The locals of the generated run method, after which come the column buffers, output arrays and row values
+    private static final int DATA = 1;
+    private static final int ROWS = 2;
+    private static final int OUTPUTS = 3;
+    private static final int CONSTANTS = 4;
+    private static final int ROW = 5;
+    private static final int SELECTED = 6;
+    private static final int KEEP = 7;
+    private static final int FIRST_FREE = 8;
+
+    private static final MethodType CONSTRUCTOR = MethodType.methodType(void.class, int[].class, int[].class);
+    // Least recently used kernels are dropped once the cache is full, so new shapes keep being cached
+    private static final Map<String, MethodHandle> KERNELS = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, MethodHandle> eldest) {
+                    return size() > MAX_CACHED_KERNELS;
+                }
+            });
+
+    private ExpressionCompiler() {
+    }
+
+    /**
+     * Compile an int expression. Returns {@code expression} itself if any part of it does not compile.
+     */
+    public static Expression compile(Expression expression, Schema schema) {
+        FusedKernel kernel = kernel(schema, null, Collections.singletonList(expression));
+        return kernel == null ? expression : new CompiledExpression(expression, kernel);
+    }
+
+    /**
+     * Compile a condition, which may be null, and int projections into one kernel, or return null if any
+     * of them does not compile.
+     */
+    static FusedKernel kernel(Schema schema, Expression condition, List<Expression> projections) {
+        Shape shape = new Shape(schema);
+        if (condition != null && !shape.add(condition, true)) {
+            return null;
+        }
+        shape.key.append(" -> ");
+        for (Expression projection : projections) {
+            if (!shape.add(projection, false)) {
+                return null;
+            }
+            shape.key.append(", ");
+        }
+        int[] columns = shape.columns.stream().mapToInt(Integer::intValue).toArray();
+        if (FIRST_FREE + 2 * columns.length + projections.size() > MAX_LOCALS) {
+            return null;
+        }
+        String key = shape.key.toString();
+        MethodHandle constructor = KERNELS.get(key);
+        if (constructor == null) {
+            constructor = define(generate(columns, condition, projections));
+            KERNELS.putIfAbsent(key, constructor);
+        }
+        int[] constants = shape.constants.stream().mapToInt(Integer::intValue).toArray();
+        try {
+            return (FusedKernel) constructor.invokeExact(constants, columns);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not create the kernel for " + key, e);
+        }
+    }
+
+    static int cachedKernelCount() {
+        return KERNELS.size();
+    }
+
+    private static MethodHandle define(byte[] bytes) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return lookup.findConstructor(lookup.lookupClass(), CONSTRUCTOR)
+                    .asType(MethodType.methodType(FusedKernel.class, int[].class, int[].class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not define a generated kernel", e);
+        }
+    }
+
+    /**
+     * Walks an expression to build its shape key, checking that every node compiles and collecting the
+     * literals and columns in the order the generated code reads them.
+     */
+    private static final class Shape {
+        private final Schema schema;
+        private final StringBuilder key = new StringBuilder();
+        private final List<Integer> constants = new ArrayList<>();
+        private final TreeSet<Integer> columns = new TreeSet<>();
+
+        Shape(Schema schema) {
+            this.schema = schema;
+        }
+
+        boolean add(Expression expression, boolean bool) {
+            if (expression instanceof ColumnExpression) {
+                int index = ((ColumnExpression) expression).getIndex();
+                SwordType type = expression.getType(schema);
+                if (bool || !(type instanceof SwordType.Int) || ((SwordType.Int) type).getBitWidth() != 32) {
+                    return false;
+                }
+                columns.add(index);
+                key.append('#').append(index);
+                return true;
+            } else if (expression instanceof LiteralExpression) {
+                LiteralExpression literal = (LiteralExpression) expression;
+                if (literal.kind() != (bool ? ValueKind.BOOL : ValueKind.INT)) {
+                    return false;
+                }
+                constants.add((int) literal.longValue());
+                key.append('?');
+                return true;
+            } else if (expression instanceof ArithmeticExpression) {
+                ArithmeticExpression arithmetic = (ArithmeticExpression) expression;
+                if (bool || arithmetic.getOp() == ArithmeticExpression.Op.DIVIDE) {
+                    return false;
+                }
+                return binary(arithmetic.getOp().name(), arithmetic.getLeft(), arithmetic.getRight(), false);
+            } else if (expression instanceof ComparisonExpression) {
+                ComparisonExpression comparison = (ComparisonExpression) expression;
+                return bool && binary(comparison.getOp().name(), comparison.getLeft(), comparison.getRight(), false);
+            } else if (expression instanceof LogicalExpression) {
+                LogicalExpression logical = (LogicalExpression) expression;
+                return bool && binary(logical.getOp().name(), logical.getLeft(), logical.getRight(), true);
+            } else if (expression instanceof NotExpression) {
+                key.append("NOT ");
+                return bool && add(((NotExpression) expression).getOperand(), true);
+            }
+            return false;
+        }
+
+        private boolean binary(String op, Expression left, Expression right, boolean bool) {
+            key.append('(');
+            if (!add(left, bool)) {
+                return false;
+            }
+            key.append(' ').append(op).append(' ');
+            if (!add(right, bool)) {
+                return false;
+            }
+            key.append(')');
+            return true;
+        }
+    }
+
+    /*
+     * The generated run method is, for columns c0, c1, ... and projections p0, p1, ...:
+     *
+     *   int[] constants = this.constants;
+     *   SwordBuf b0 = data[c0], ...;
+     *   int[] o0 = outputs[0], ...;
+     *   int selected = 0;
+     *   for (int i = 0; i < n; i++) {
+     *       int v0 = b0.getInt((long) i << 2), ...;
+     *       int keep = condition; // 1 or 0
+     *       o0[selected] = p0; ...
+     *       selected += keep;
+     *   }
+     *   return selected;
+     */
+    private static byte[] generate(int[] columns, Expression condition, List<Expression> projections) {
+        ClassFileWriter writer = new ClassFileWriter(GENERATED, KERNEL);
+
+        Code init = writer.method(0, "<init>", "([I[I)V", 3);
+        init.load(ALOAD, 0);
+        init.load(ALOAD, 1);
+        init.load(ALOAD, 2);
+        init.member(INVOKESPECIAL, writer.methodRef(KERNEL, "<init>", "([I[I)V"), -3);
+        init.op(RETURN, 0);
+        init.finish();
+
+        int buffers = FIRST_FREE;
+        int outputs = buffers + columns.length;
+        int values = outputs + projections.size();
+        Code run = writer.method(0, "run", RUN, values + columns.length);
+        run.load(ALOAD, 0);
+        run.member(GETFIELD, writer.fieldRef(KERNEL, "constants", "[I"), 0);
+        run.store(ASTORE, CONSTANTS);
+        for (int j = 0; j < columns.length; j++) {
+            run.load(ALOAD, DATA);
+            run.push(columns[j]);
+            run.op(AALOAD, -1);
+            run.store(ASTORE, buffers + j);
+        }
+        for (int j = 0; j < projections.size(); j++) {
+            run.load(ALOAD, OUTPUTS);
+            run.push(j);
+            run.op(AALOAD, -1);
+            run.store(ASTORE, outputs + j);
+        }
+        run.push(0);
+        run.store(ISTORE, SELECTED);
+        run.push(0);
+        run.store(ISTORE, ROW);
+
+        Label loop = new Label();
+        Label end = new Label();
+        run.mark(loop);
+        run.load(ILOAD, ROW);
+        run.load(ILOAD, ROWS);
+        run.jump(IF_ICMPGE, end, -2);
+        int getInt = writer.methodRef(SWORD_BUF, "getInt", "(J)I");
+        for (int j = 0; j < columns.length; j++) {
+            run.load(ALOAD, buffers + j);
+            run.load(ILOAD, ROW);
+            run.op(I2L, 1);
+            run.push(2);
+            run.op(LSHL, -1);
+            run.member(INVOKEVIRTUAL, getInt, -2);
+            run.store(ISTORE, values + j);
+        }
+        Emitter emitter = new Emitter(run, columns, values);
+        if (condition != null) {
+            emitter.bool(condition);
+            run.store(ISTORE, KEEP);
+        }
+        for (int j = 0; j < projections.size(); j++) {
+            run.load(ALOAD, outputs + j);
+            run.load(ILOAD, SELECTED);
+            emitter.integer(projections.get(j));
+            run.op(IASTORE, -3);
+        }
+        if (condition != null) {
+            run.load(ILOAD, SELECTED);
+            run.load(ILOAD, KEEP);
+            run.op(IADD, -1);
+            run.store(ISTORE, SELECTED);
+        } else {
+            run.iinc(SELECTED, 1);
+        }
+        run.iinc(ROW, 1);
+        run.jump(GOTO, loop, 0);
+        run.mark(end);
+        run.load(ILOAD, SELECTED);
+        run.op(IRETURN, -1);
+        run.finish();
+        return writer.toByteArray();
+    }
+
+    /**
+     * Emits the code for an expression that {@link Shape} accepted, leaving its value on the stack: an int,
+     * or 1 or 0 for a bool. Literals are read from the constants in the order the shape collected them, so
+     * operands are always emitted left first.
+     */
+    private static final class Emitter {
+        private final Code code;
+        private final int[] columns;
+        private final int values;
+        private int constant;
+
+        Emitter(Code code, int[] columns, int values) {
+            this.code = code;
+            this.columns = columns;
+            this.values = values;
+        }
+
+        void integer(Expression expression) {
+            if (expression instanceof ColumnExpression) {
+                int index = ((ColumnExpression) expression).getIndex();
+                code.load(ILOAD, values + Arrays.binarySearch(columns, index));
+            } else if (expression instanceof LiteralExpression) {
+                code.load(ALOAD, CONSTANTS);
+                code.push(constant++);
+                code.op(IALOAD, -1);
+            } else {
+                ArithmeticExpression arithmetic = (ArithmeticExpression) expression;
+                integer(arithmetic.getLeft());
+                integer(arithmetic.getRight());
+                switch (arithmetic.getOp()) {
+                    case ADD:
+                        code.op(IADD, -1);
+                        break;
+                    case SUBTRACT:
+                        code.op(ISUB, -1);
+                        break;
+                    default:
+                        code.op(IMUL, -1);
+                }
+            }
+        }
+
+        void bool(Expression expression) {
+            if (expression instanceof LiteralExpression) {
+                integer(expression);
+            } else if (expression instanceof ComparisonExpression) {
+                ComparisonExpression comparison = (ComparisonExpression) expression;
+                compare(comparison.getOp(), comparison.getLeft(), comparison.getRight());
+            } else if (expression instanceof LogicalExpression) {
+                LogicalExpression logical = (LogicalExpression) expression;
+                bool(logical.getLeft());
+                bool(logical.getRight());
+                code.op(logical.getOp() == LogicalExpression.Op.AND ? IAND : IOR, -1);
+            } else {
+                bool(((NotExpression) expression).getOperand());
+                flip();
+            }
+        }
+
+        /*
+         * Less than is the sign bit of left - right, taken in longs so it cannot overflow, and greater than
+         * the sign bit of its negation. Not equal is the sign bit of x | -x for x = left ^ right. Equal, less
+         * or equal and greater or equal flip one of these.
+         */
+        private void compare(CompareOp op, Expression left, Expression right) {
+            if (op == CompareOp.EQ || op == CompareOp.NE) {
+                integer(left);
+                integer(right);
+                code.op(IXOR, -1);
+                code.op(DUP, 1);
+                code.op(INEG, 0);
+                code.op(IOR, -1);
+                code.push(31);
+                code.op(IUSHR, -1);
+                if (op == CompareOp.EQ) {
+                    flip();
+                }
+                return;
+            }
+            integer(left);
+            code.op(I2L, 1);
+            integer(right);
+            code.op(I2L, 1);
+            code.op(LSUB, -2);
+            if (op == CompareOp.GT || op == CompareOp.LE) {
+                code.op(LNEG, 0);
+            }
+            code.push(63);
+            code.op(LUSHR, -1);
+            code.op(L2I, -1);
+            if (op == CompareOp.LE || op == CompareOp.GE) {
+                flip();
+            }
+        }
+
+        private void flip() {
+            code.push(1);
+            code.op(IXOR, -1);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package query.engine;
+
+import sword.dev.compute.CompareOp;
+import sword.dev.type.SwordType;
+
+/**
+ * Short names for building expression trees, such as {@code add(col(0), mul(col(1), lit(2)))}.
+ */
+public final class Expressions {
+
+    private Expressions() {
+        // Utility class, no instances
+    }
+
+    public static Expression col(int index) {
+        return new ColumnExpression(index);
+    }
+
+    public static Expression lit(int value) {
+        return new LiteralExpression(value);
+    }
+
+    public static Expression lit(long value) {
+        return new LiteralExpression(value);
+    }
+
+    public static Expression lit(double value) {
+        return new LiteralExpression(value);
+    }
+
+    public static Expression lit(boolean value) {
+        return new LiteralExpression(value);
+    }
+
+    public static Expression add(Expression left, Expression right) {
+        return new ArithmeticExpression(ArithmeticExpression.Op.ADD, left, right);
+    }
+
+    public static Expression sub(Expression left, Expression right) {
+        return new ArithmeticExpression(ArithmeticExpression.Op.SUBTRACT, left, right);
+    }
+
+    public static Expression mul(Expression left, Expression right) {
+        return new ArithmeticExpression(ArithmeticExpression.Op.MULTIPLY, left, right);
+    }
+
+    public static Expression div(Expression left, Expression right) {
+        return new ArithmeticExpression(ArithmeticExpression.Op.DIVIDE, left, right);
+    }
+
+    public static Expression eq(Expression left, Expression right) {
+        return new ComparisonExpression(CompareOp.EQ, left, right);
+    }
+
+    public static Expression ne(Expression left, Expression right) {
+        return new ComparisonExpression(CompareOp.NE, left, right);
+    }
+
+    public static Expression lt(Expression left, Expression right) {
+        return new ComparisonExpression(CompareOp.LT, left, right);
+    }
+
+    public static Expression le(Expression left, Expression right) {
+        return new ComparisonExpression(CompareOp.LE, left, right);
+    }
+
+    public static Expression gt(Expression left, Expression right) {
+        return new ComparisonExpression(CompareOp.GT, left, right);
+    }
+
+    public static Expression ge(Expression left, Expression right) {
+        return new ComparisonExpression(CompareOp.GE, left, right);
+    }
+
+    public static Expression and(Expression left, Expression right) {
+        return new LogicalExpression(LogicalExpression.Op.AND, left, right);
+    }
+
+    public static Expression or(Expression left, Expression right) {
+        return new LogicalExpression(LogicalExpression.Op.OR, left, right);
+    }
+
+    public static Expression not(Expression operand) {
+        return new NotExpression(operand);
+    }
+
+    public static Expression isNull(Expression operand) {
+        return new IsNullExpression(operand, false);
+    }
+
+    public static Expression isNotNull(Expression operand) {
+        return new IsNullExpression(operand, true);
+    }
+
+    public static Expression cast(Expression operand, SwordType type) {
+        return new CastExpression(operand, type);
+    }
+}
@@ -0,0 +1,89 @@
+package query.engine;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Keeps the rows of each batch that pass a {@link BatchPredicate}. A batch whose rows all pass is handed
+ * on as it is, and one with no passing rows is skipped; otherwise the passing rows are gathered, a column
+ * at a time, into vectors the filter reuses for every batch.
+ */
+public class Filter implements PhysicalOperator {
+    private final PhysicalOperator input;
+    private final BatchPredicate predicate;
+    private final OutputVectors output;
+    private int[] selection = new int[0];
+
+    public Filter(PhysicalOperator input, BatchPredicate predicate) {
+        this.input = input;
+        this.predicate = predicate;
+        this.output = new OutputVectors(input.schema());
+    }
+
+    /**
+     * Keep the rows for which {@code condition}, a bool expression, is true.
+     */
+    public Filter(PhysicalOperator input, Expression condition) {
+        this(input, new ConditionPredicate(condition, input.schema()));
+    }
+
+    @Override
+    public Schema schema() {
+        return input.schema();
+    }
+
+    @Override
+    public Iterator<RecordBatch> execute() {
+        Iterator<RecordBatch> batches = input.execute();
+        return new Iterator<RecordBatch>() {
+            private RecordBatch next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && batches.hasNext()) {
+                    next = filter(batches.next());
+                }
+                return next != null;
+            }
+
+            @Override
+            public RecordBatch next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                RecordBatch batch = next;
+                next = null;
+                return batch;
+            }
+        };
+    }
+
+    // The filtered batch, or null when no row passes
+    private RecordBatch filter(RecordBatch batch) {
+        int rowCount = batch.rowCount();
+        if (selection.length < rowCount) {
+            selection = new int[rowCount];
+        }
+        int selected = predicate.select(batch, selection);
+        if (selected == 0) {
+            return null;
+        }
+        if (selected == rowCount) {
+            return batch;
+        }
+        return output.gather(batch, selection, selected);
+    }
+
+    @Override
+    public List<PhysicalOperator> children() {
+        return Collections.singletonList(input);
+    }
+
+    @Override
+    public void close() {
+        output.close();
+        input.close();
+    }
+}
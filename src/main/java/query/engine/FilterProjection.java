@@ -0,0 +1,140 @@
+package query.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link Filter} and a {@link Projection} in one operator. When the condition and every projection
+ * compile, {@link ExpressionCompiler} fuses them into one loop that reads each row once and writes the
+ * projections of the passing rows straight into the output; otherwise, and for batches the compiled loop
+ * cannot read, the rows are selected and projected by the interpreter.
+ */
+public class FilterProjection implements PhysicalOperator {
+    private final PhysicalOperator input;
+    private final Expression condition;
+    private final List<Expression> expressions;
+    private final Schema schema;
+    private final FusedKernel kernel;
+    private final IntArrayVector[] results;
+    private final int[][] outputs;
+    private final ConditionPredicate predicate;
+    private final OutputVectors output;
+    private int[] selection = new int[0];
+
+    /**
+     * @param condition the bool expression rows must satisfy, or null to keep every row
+     */
+    public FilterProjection(PhysicalOperator input, Expression condition, List<Expression> expressions, List<String> names) {
+        if (expressions.size() != names.size()) {
+            throw new IllegalArgumentException(expressions.size() + " expressions but " + names.size() + " names");
+        }
+        Schema inputSchema = input.schema();
+        List<Field> fields = new ArrayList<>(expressions.size());
+        for (int i = 0; i < expressions.size(); i++) {
+            fields.add(new Field(names.get(i), expressions.get(i).getType(inputSchema)));
+        }
+        this.input = input;
+        this.condition = condition;
+        this.expressions = new ArrayList<>(expressions);
+        this.schema = new Schema(fields);
+        this.kernel = ExpressionCompiler.kernel(inputSchema, condition, this.expressions);
+        this.results = new IntArrayVector[expressions.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = new IntArrayVector();
+        }
+        this.outputs = new int[results.length][];
+        this.predicate = condition == null ? null : new ConditionPredicate(condition, inputSchema);
+        this.output = new OutputVectors(schema);
+    }
+
+    /**
+     * Whether the condition and projections were compiled.
+     */
+    public boolean isCompiled() {
+        return kernel != null;
+    }
+
+    @Override
+    public Schema schema() {
+        return schema;
+    }
+
+    @Override
+    public Iterator<RecordBatch> execute() {
+        Iterator<RecordBatch> batches = input.execute();
+        return new Iterator<RecordBatch>() {
+            private RecordBatch next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && batches.hasNext()) {
+                    RecordBatch batch = batches.next();
+                    next = kernel != null && kernel.accepts(batch) ? runCompiled(batch) : interpret(batch);
+                }
+                return next != null;
+            }
+
+            @Override
+            public RecordBatch next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                RecordBatch batch = next;
+                next = null;
+                return batch;
+            }
+        };
+    }
+
+    // The output batch, or null when no row passes
+    private RecordBatch runCompiled(RecordBatch batch) {
+        int rowCount = batch.rowCount();
+        for (int i = 0; i < results.length; i++) {
+            results[i].reset(rowCount);
+            outputs[i] = results[i].getValues();
+        }
+        int selected = kernel.run(batch, outputs);
+        if (selected == 0 && condition != null) {
+            return null;
+        }
+        for (IntArrayVector result : results) {
+            result.reset(selected);
+        }
+        return new RecordBatch(schema, Arrays.asList(results.clone()));
+    }
+
+    private RecordBatch interpret(RecordBatch batch) {
+        int rowCount = batch.rowCount();
+        int selected = rowCount;
+        if (predicate != null) {
+            if (selection.length < rowCount) {
+                selection = new int[rowCount];
+            }
+            selected = predicate.select(batch, selection);
+            if (selected == 0) {
+                return null;
+            }
+        }
+        List<ColumnVector> projected = new ArrayList<>(expressions.size());
+        for (Expression expression : expressions) {
+            projected.add(expression.evaluate(batch));
+        }
+        RecordBatch result = new RecordBatch(schema, projected);
+        return selected == rowCount ? result : output.gather(result, selection, selected);
+    }
+
+    @Override
+    public List<PhysicalOperator> children() {
+        return Collections.singletonList(input);
+    }
+
+    @Override
+    public void close() {
+        output.close();
+        input.close();
+    }
+}
@@ -0,0 +1,60 @@
+package query.engine;
+
+import sword.dev.FieldVectorV2;
+import sword.dev.IntVectorV2;
+import sword.dev.SwordBuf;
+
+/**
+ * An optional filter and a list of int projections compiled into a single loop over the rows of a batch.
+ * {@link ExpressionCompiler} generates one subclass per expression shape; each instance carries the
+ * literals and the columns of one expression.
+ */
+abstract class FusedKernel {
+    final int[] constants;
+    private final int[] columns;
+    private SwordBuf[] data = new SwordBuf[0];
+
+    FusedKernel(int[] constants, int[] columns) {
+        this.constants = constants;
+        this.columns = columns;
+    }
+
+    /**
+     * Whether the kernel can run over {@code batch}: each column it reads must be an {@link IntVectorV2}
+     * with no nulls.
+     */
+    boolean accepts(RecordBatch batch) {
+        int rowCount = batch.rowCount();
+        for (int column : columns) {
+            ColumnVector vector = batch.field(column);
+            if (!(vector instanceof SwordFieldVector)) {
+                return false;
+            }
+            FieldVectorV2 field = ((SwordFieldVector) vector).getField();
+            if (!(field instanceof IntVectorV2) || field.getNullCount() != 0 || field.getValueCount() < rowCount) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Write each projection of the rows that pass the condition to its array of {@code outputs}, which
+     * must have room for every row of the batch, and return how many rows passed.
+     */
+    int run(RecordBatch batch, int[][] outputs) {
+        if (data.length < batch.columnCount()) {
+            data = new SwordBuf[batch.columnCount()];
+        }
+        for (int column : columns) {
+            data[column] = ((SwordFieldVector) batch.field(column)).getField().getDataBuffer();
+        }
+        return run(data, batch.rowCount(), outputs);
+    }
+
+    /**
+     * The generated loop, which reads column {@code c} of row {@code i} as
+     * {@code data[c].getInt((long) i << 2)}.
+     */
+    abstract int run(SwordBuf[] data, int n, int[][] outputs);
+}
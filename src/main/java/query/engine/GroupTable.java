@@ -0,0 +1,218 @@
+package query.engine;
+
+import sword.dev.BufferAllocator;
+import sword.dev.SwordBuf;
+
+/**
+ * The groups of a {@link HashAggregate}: an open-addressing hash table with linear probing over the keys
+ * seen so far, numbering each distinct key from 0 in the order it was first seen. All of it lives in
+ * buffers from the operator's allocator.
+ *
+ * <p>Keys are stored column-wise, one long per group for each key column, next to a mask of each group's
+ * null keys, so a null key never equals a non-null one. Each slot is a long holding a group's hash in its
+ * high half and the group number plus one in its low half, 0 marking an empty slot, so most probes that
+ * miss are told apart by the hash without touching the keys. The slots are doubled once half are full.
+ */
+final class GroupTable implements AutoCloseable {
+    private static final String OWNER = "HashAggregate";
+    private static final int INITIAL_GROUPS = 1024;
+    private static final int MAX_SLOTS = 1 << 30;
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final BufferAllocator allocator;
+    private final SwordBuf[] keys;
+    private SwordBuf nullMasks;
+    private boolean hasNullKeys;
+    private SwordBuf slots;
+    private int mask;
+    private int groupCapacity;
+    private int groupCount;
+    private int[] rowHashes = new int[0];
+
+    GroupTable(BufferAllocator allocator, int keyCount) {
+        this.allocator = allocator;
+        this.keys = new SwordBuf[keyCount];
+        try {
+            for (int k = 0; k < keyCount; k++) {
+                keys[k] = allocator.allocate((long) INITIAL_GROUPS << 3, OWNER);
+            }
+            nullMasks = allocator.allocate((long) INITIAL_GROUPS << 3, OWNER);
+            slots = newSlots(2 * INITIAL_GROUPS);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+        this.groupCapacity = INITIAL_GROUPS;
+        this.mask = 2 * INITIAL_GROUPS - 1;
+    }
+
+    int groupCount() {
+        return groupCount;
+    }
+
+    long key(int k, int group) {
+        return keys[k].getLong((long) group << 3);
+    }
+
+    /**
+     * Copy the keys of {@code count} groups from {@code start} into {@code dst}.
+     */
+    void keys(int k, int start, long[] dst, int count) {
+        keys[k].getLongs((long) start << 3, dst, 0, count);
+    }
+
+    /**
+     * The null keys of a group, bit {@code k} standing for key column {@code k}.
+     */
+    long nullMask(int group) {
+        return nullMasks.getLong((long) group << 3);
+    }
+
+    /**
+     * Find the group of each of the first {@code n} rows, adding a group for each key not seen before.
+     *
+     * @param values one array of values per key column, with null keys as 0
+     * @param nulls the null keys of each row as a mask, or null when there are none
+     * @param groups receives the group of each row
+     */
+    void findGroups(long[][] values, long[] nulls, int n, int[] groups) {
+        if (rowHashes.length < n) {
+            rowHashes = new int[n];
+        }
+        hash(values, nulls, n, rowHashes);
+        for (int i = 0; i < n; i++) {
+            groups[i] = find(rowHashes[i], values, nulls == null ? 0 : nulls[i], i);
+        }
+    }
+
+    private static void hash(long[][] values, long[] nulls, int n, int[] hashes) {
+        long[] first = values[0];
+        for (int i = 0; i < n; i++) {
+            hashes[i] = mix(first[i]);
+        }
+        for (int k = 1; k < values.length; k++) {
+            long[] column = values[k];
+            for (int i = 0; i < n; i++) {
+                hashes[i] = mix(hashes[i] ^ column[i]);
+            }
+        }
+        if (nulls != null) {
+            // mix(0) is 0, so rows without null keys hash as they would in a batch with no nulls at all
+            for (int i = 0; i < n; i++) {
+                hashes[i] ^= mix(nulls[i]);
+            }
+        }
+    }
+
+    // Folds the high half of the product back in, since slots are picked by the low bits
+    private static int mix(long value) {
+        long h = value * HASH_MULTIPLIER;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int find(int hash, long[][] values, long nullMask, int row) {
+        int slot = hash & mask;
+        while (true) {
+            long entry = slots.getLong((long) slot << 3);
+            if (entry == 0) {
+                return add(slot, hash, values, nullMask, row);
+            }
+            int group = (int) entry - 1;
+            if ((int) (entry >>> 32) == hash && matches(group, values, nullMask, row)) {
+                return group;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private boolean matches(int group, long[][] values, long nullMask, int row) {
+        // Until a null key has been added every group's mask is 0
+        if ((hasNullKeys || nullMask != 0) && nullMasks.getLong((long) group << 3) != nullMask) {
+            return false;
+        }
+        for (int k = 0; k < keys.length; k++) {
+            if (keys[k].getLong((long) group << 3) != values[k][row]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int add(int slot, int hash, long[][] values, long nullMask, int row) {
+        if (groupCount == groupCapacity) {
+            growGroups();
+        }
+        int group = groupCount++;
+        for (int k = 0; k < keys.length; k++) {
+            keys[k].setLong((long) group << 3, values[k][row]);
+        }
+        nullMasks.setLong((long) group << 3, nullMask);
+        hasNullKeys |= nullMask != 0;
+        slots.setLong((long) slot << 3, entry(hash, group));
+        if (groupCount > (mask + 1) / 2) {
+            growSlots();
+        }
+        return group;
+    }
+
+    private void growGroups() {
+        int capacity = groupCapacity * 2;
+        for (int k = 0; k < keys.length; k++) {
+            keys[k] = allocator.reallocate(keys[k], (long) capacity << 3);
+        }
+        nullMasks = allocator.reallocate(nullMasks, (long) capacity << 3);
+        groupCapacity = capacity;
+    }
+
+    private static long entry(int hash, int group) {
+        return ((long) hash << 32) | (group + 1);
+    }
+
+    // Moves every entry by the hash it holds; groups are distinct, so no keys need comparing
+    private void growSlots() {
+        int slotCount = (mask + 1) * 2;
+        if (slotCount > MAX_SLOTS) {
+            throw new IllegalStateException("Cannot hold more than " + MAX_SLOTS / 2 + " groups");
+        }
+        SwordBuf grown = newSlots(slotCount);
+        int newMask = slotCount - 1;
+        for (int old = 0; old <= mask; old++) {
+            long entry = slots.getLong((long) old << 3);
+            if (entry == 0) {
+                continue;
+            }
+            int slot = (int) (entry >>> 32) & newMask;
+            while (grown.getLong((long) slot << 3) != 0) {
+                slot = (slot + 1) & newMask;
+            }
+            grown.setLong((long) slot << 3, entry);
+        }
+        slots.close();
+        slots = grown;
+        mask = newMask;
+    }
+
+    private SwordBuf newSlots(int slotCount) {
+        SwordBuf buffer = allocator.allocate((long) slotCount << 3, OWNER);
+        buffer.setZero(0, (long) slotCount << 3);
+        return buffer;
+    }
+
+    @Override
+    public void close() {
+        for (int k = 0; k < keys.length; k++) {
+            if (keys[k] != null) {
+                keys[k].close();
+                keys[k] = null;
+            }
+        }
+        if (nullMasks != null) {
+            nullMasks.close();
+            nullMasks = null;
+        }
+        if (slots != null) {
+            slots.close();
+            slots = null;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package query.engine;
+
+import sword.dev.BufferAllocator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Groups its input by one or more int or long key columns and computes {@link Aggregate}s per group. The
+ * whole input is consumed before the first batch is returned; the groups then come out in the order their
+ * keys were first seen, up to 4096 per batch. Null keys form groups of their own.
+ *
+ * <p>Each input batch is handled a step at a time: the key columns are read, every row is hashed, every row
+ * is looked up in the {@link GroupTable}, and then each aggregate folds the batch's values into the groups
+ * found. The table and the accumulators are held off-heap in buffers from the operator's allocator, which
+ * are released once the last group has been returned or the operator is closed.
+ */
+public class HashAggregate implements PhysicalOperator {
+    static final int OUTPUT_BATCH_SIZE = 4096;
+
+    private final PhysicalOperator input;
+    private final BufferAllocator allocator;
+    private final int[] keys;
+    private final List<Aggregate> aggregates;
+    private final Schema schema;
+    private final Operand[] keyOperands;
+    private final ArrayVector[] keyResults;
+    private GroupTable table;
+    private Accumulator[] accumulators;
+    private final long[][] keyValues;
+    private final long[][] keyCopies;
+    private long[] nullMasks = new long[0];
+    private int[] groups = new int[0];
+    private long[] keyOutput = new long[0];
+
+    /**
+     * @param keys the columns to group by, whose values must be ints or longs
+     * @param names the names of the aggregate columns, which follow the key columns in the output
+     */
+    public HashAggregate(PhysicalOperator input, BufferAllocator allocator, int[] keys, List<Aggregate> aggregates,
+                         List<String> names) {
+        if (keys.length == 0 || keys.length > Long.SIZE) {
+            throw new IllegalArgumentException("Cannot group by " + keys.length + " columns");
+        }
+        if (aggregates.size() != names.size()) {
+            throw new IllegalArgumentException(aggregates.size() + " aggregates but " + names.size() + " names");
+        }
+        Schema inputSchema = input.schema();
+        List<Field> inputFields = inputSchema.getFields();
+        List<Field> fields = new ArrayList<>(keys.length + aggregates.size());
+        this.keyOperands = new Operand[keys.length];
+        this.keyResults = new ArrayVector[keys.length];
+        for (int k = 0; k < keys.length; k++) {
+            if (keys[k] < 0 || keys[k] >= inputFields.size()) {
+                throw new IllegalArgumentException("No column " + keys[k] + " among " + inputFields.size());
+            }
+            Field field = inputFields.get(keys[k]);
+            ValueKind kind = ValueKind.of(field.getDataType());
+            if (kind != ValueKind.INT && kind != ValueKind.LONG) {
+                throw new IllegalArgumentException("Cannot group by a " + field.getDataType() + " column");
+            }
+            fields.add(new Field(field.getName(), kind.type()));
+            keyOperands[k] = new Operand(new ColumnExpression(keys[k]));
+            keyResults[k] = kind == ValueKind.INT ? new IntArrayVector() : new LongArrayVector();
+        }
+        for (int i = 0; i < aggregates.size(); i++) {
+            fields.add(new Field(names.get(i), aggregates.get(i).getType(inputSchema)));
+        }
+        this.input = input;
+        this.allocator = allocator;
+        this.keys = keys.clone();
+        this.aggregates = new ArrayList<>(aggregates);
+        this.schema = new Schema(fields);
+        this.keyValues = new long[keys.length][];
+        this.keyCopies = new long[keys.length][0];
+    }
+
+    @Override
+    public Schema schema() {
+        return schema;
+    }
+
+    @Override
+    public Iterator<RecordBatch> execute() {
+        Iterator<RecordBatch> batches = input.execute();
+        return new Iterator<RecordBatch>() {
+            // The next group to return, or -1 until the input has been consumed
+            private int next = -1;
+
+            @Override
+            public boolean hasNext() {
+                if (next < 0) {
+                    build(batches);
+                    next = 0;
+                }
+                if (table != null && next < table.groupCount()) {
+                    return true;
+                }
+                release();
+                return false;
+            }
+
+            @Override
+            public RecordBatch next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int count = Math.min(OUTPUT_BATCH_SIZE, table.groupCount() - next);
+                RecordBatch batch = output(next, count);
+                next += count;
+                return batch;
+            }
+        };
+    }
+
+    private void build(Iterator<RecordBatch> batches) {
+        release();
+        Schema inputSchema = input.schema();
+        table = new GroupTable(allocator, keys.length);
+        accumulators = new Accumulator[aggregates.size()];
+        for (int i = 0; i < accumulators.length; i++) {
+            accumulators[i] = new Accumulator(aggregates.get(i), inputSchema, allocator);
+        }
+        while (batches.hasNext()) {
+            RecordBatch batch = batches.next();
+            if (batch.rowCount() > 0) {
+                consume(batch);
+            }
+        }
+    }
+
+    private void consume(RecordBatch batch) {
+        int n = batch.rowCount();
+        if (groups.length < n) {
+            groups = new int[n];
+        }
+        boolean anyNull = false;
+        for (int k = 0; k < keys.length; k++) {
+            Operand operand = keyOperands[k];
+            ColumnVector column = operand.evaluate(batch);
+            long[] values = operand.longs(column, n);
+            long[] validity = operand.validity(column, n);
+            if (validity == null) {
+                keyValues[k] = values;
+                continue;
+            }
+            if (!anyNull) {
+                if (nullMasks.length < n) {
+                    nullMasks = new long[n];
+                }
+                Arrays.fill(nullMasks, 0, n, 0L);
+                anyNull = true;
+            }
+            // Null rows hold whatever their data buffer does, so they are copied out as 0
+            if (keyCopies[k].length < n) {
+                keyCopies[k] = new long[n];
+            }
+            long[] copy = keyCopies[k];
+            for (int i = 0; i < n; i++) {
+                boolean valid = (validity[i >>> 6] & (1L << i)) != 0;
+                copy[i] = valid ? values[i] : 0;
+                if (!valid) {
+                    nullMasks[i] |= 1L << k;
+                }
+            }
+            keyValues[k] = copy;
+        }
+        table.findGroups(keyValues, anyNull ? nullMasks : null, n, groups);
+        for (Accumulator accumulator : accumulators) {
+            accumulator.ensureGroups(table.groupCount());
+            accumulator.update(batch, groups, n);
+        }
+    }
+
+    private RecordBatch output(int start, int count) {
+        List<ColumnVector> columns = new ArrayList<>(keys.length + accumulators.length);
+        if (keyOutput.length < count) {
+            keyOutput = new long[count];
+        }
+        for (int k = 0; k < keys.length; k++) {
+            ArrayVector result = keyResults[k];
+            result.reset(count);
+            if (result instanceof LongArrayVector) {
+                table.keys(k, start, ((LongArrayVector) result).getValues(), count);
+            } else {
+                table.keys(k, start, keyOutput, count);
+                int[] out = ((IntArrayVector) result).getValues();
+                for (int i = 0; i < count; i++) {
+                    out[i] = (int) keyOutput[i];
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                if ((table.nullMask(start + i) & (1L << k)) != 0) {
+                    result.markNull(i);
+                }
+            }
+            columns.add(result);
+        }
+        for (Accumulator accumulator : accumulators) {
+            columns.add(accumulator.output(start, count));
+        }
+        return new RecordBatch(schema, columns);
+    }
+
+    // Frees the table and accumulators; batches already returned are on-heap copies and stay valid
+    private void release() {
+        if (table != null) {
+            table.close();
+            table = null;
+        }
+        if (accumulators != null) {
+            for (Accumulator accumulator : accumulators) {
+                accumulator.close();
+            }
+            accumulators = null;
+        }
+    }
+
+    @Override
+    public List<PhysicalOperator> children() {
+        return Collections.singletonList(input);
+    }
+
+    @Override
+    public void close() {
+        release();
+        input.close();
+    }
+}
@@ -0,0 +1,67 @@
+package query.engine;
+
+import java.util.Objects;
+
+/**
+ * An int32 column in an {@code int[]}.
+ */
+public final class IntArrayVector extends ArrayVector {
+    private int[] values = new int[0];
+
+    public IntArrayVector() {
+        super(SwordTypes.Int32Type);
+    }
+
+    /**
+     * The values, of which the first {@link #size()} belong to the column.
+     */
+    public int[] getValues() {
+        return values;
+    }
+
+    @Override
+    void ensureCapacity(int capacity) {
+        if (values.length < capacity) {
+            values = new int[capacity];
+        }
+    }
+
+    @Override
+    public Object getValue(int i) {
+        return isNull(i) ? null : values[i];
+    }
+
+    @Override
+    public int getInt(int i) {
+        return values[i];
+    }
+
+    @Override
+    public long getLong(int i) {
+        return values[i];
+    }
+
+    @Override
+    public double getDouble(int i) {
+        return values[i];
+    }
+
+    @Override
+    public void getInts(int start, int[] dst, int dstIndex, int length) {
+        Objects.checkFromIndexSize(start, length, size);
+        System.arraycopy(values, start, dst, dstIndex, length);
+    }
+
+    @Override
+    ArrayVector gather(int[] selection, int count, ArrayVector target) {
+        checkSelection(selection, count);
+        IntArrayVector result = target instanceof IntArrayVector ? (IntArrayVector) target : new IntArrayVector();
+        result.reset(count);
+        int[] out = result.values;
+        for (int i = 0; i < count; i++) {
+            out[i] = values[selection[i]];
+        }
+        gatherValidity(selection, count, result);
+        return result;
+    }
+}
@@ -0,0 +1,49 @@
+package query.engine;
+
+import sword.dev.type.SwordType;
+
+import java.util.Arrays;
+
+/**
+ * Whether an operand of any type is null, or with {@code negated} whether it isn't. The result is never
+ * null: it is the operand's validity bitmap, inverted unless negated.
+ */
+public final class IsNullExpression implements Expression {
+    private final Operand operand;
+    private final boolean negated;
+    private final BoolArrayVector result = new BoolArrayVector();
+
+    public IsNullExpression(Expression operand, boolean negated) {
+        this.operand = new Operand(operand);
+        this.negated = negated;
+    }
+
+    @Override
+    public SwordType getType(Schema schema) {
+        operand.expression().getType(schema);
+        return SwordTypes.BoolType;
+    }
+
+    @Override
+    public ColumnVector evaluate(RecordBatch batch) {
+        ColumnVector column = operand.evaluate(batch);
+        int n = batch.rowCount();
+        long[] validity = operand.validity(column, n);
+        result.reset(n);
+        long[] out = result.getBits();
+        int words = ArrayVector.words(n);
+        if (validity == null) {
+            Arrays.fill(out, 0, words, negated ? -1L : 0L);
+        } else {
+            for (int i = 0; i < words; i++) {
+                out[i] = negated ? validity[i] : ~validity[i];
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return operand.expression() + (negated ? " IS NOT NULL" : " IS NULL");
+    }
+}
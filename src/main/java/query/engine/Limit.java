@@ -0,0 +1,74 @@
+package query.engine;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Passes on the first {@code limit} rows and stops pulling from its input once it has them. Whole batches
+ * are handed on as they are; only the batch that crosses the limit is cut, by copying its leading rows.
+ */
+public class Limit implements PhysicalOperator {
+    private final PhysicalOperator input;
+    private final int limit;
+    private final OutputVectors output;
+
+    public Limit(PhysicalOperator input, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative: " + limit);
+        }
+        this.input = input;
+        this.limit = limit;
+        this.output = new OutputVectors(input.schema());
+    }
+
+    @Override
+    public Schema schema() {
+        return input.schema();
+    }
+
+    @Override
+    public Iterator<RecordBatch> execute() {
+        Iterator<RecordBatch> batches = input.execute();
+        return new Iterator<RecordBatch>() {
+            private int remaining = limit;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0 && batches.hasNext();
+            }
+
+            @Override
+            public RecordBatch next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                RecordBatch batch = batches.next();
+                int rowCount = batch.rowCount();
+                if (rowCount <= remaining) {
+                    remaining -= rowCount;
+                    return batch;
+                }
+                int[] leading = new int[remaining];
+                for (int i = 0; i < remaining; i++) {
+                    leading[i] = i;
+                }
+                RecordBatch cut = output.gather(batch, leading, remaining);
+                remaining = 0;
+                return cut;
+            }
+        };
+    }
+
+    @Override
+    public List<PhysicalOperator> children() {
+        return Collections.singletonList(input);
+    }
+
+    @Override
+    public void close() {
+        output.close();
+        input.close();
+    }
+}
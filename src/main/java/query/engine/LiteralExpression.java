@@ -0,0 +1,110 @@
+package query.engine;
+
+import sword.dev.type.SwordType;
+
+import java.util.Arrays;
+
+/**
+ * A constant. Its column is filled once and handed out again for every batch no larger than the largest
+ * seen so far.
+ */
+public final class LiteralExpression implements Expression {
+    private final ValueKind kind;
+    private final long longValue;
+    private final double doubleValue;
+    private ArrayVector vector;
+    private int filled;
+
+    public LiteralExpression(int value) {
+        this(ValueKind.INT, value, value);
+    }
+
+    public LiteralExpression(long value) {
+        this(ValueKind.LONG, value, value);
+    }
+
+    public LiteralExpression(double value) {
+        this(ValueKind.DOUBLE, 0, value);
+    }
+
+    public LiteralExpression(boolean value) {
+        this(ValueKind.BOOL, value ? 1 : 0, 0);
+    }
+
+    private LiteralExpression(ValueKind kind, long longValue, double doubleValue) {
+        this.kind = kind;
+        this.longValue = longValue;
+        this.doubleValue = doubleValue;
+    }
+
+    ValueKind kind() {
+        return kind;
+    }
+
+    /**
+     * The value of an int, long or bool literal, a bool as 1 or 0.
+     */
+    long longValue() {
+        return longValue;
+    }
+
+    @Override
+    public SwordType getType(Schema schema) {
+        return kind.type();
+    }
+
+    @Override
+    public ColumnVector evaluate(RecordBatch batch) {
+        int n = batch.rowCount();
+        if (vector == null) {
+            vector = newVector();
+        }
+        vector.reset(n);
+        if (n > filled) {
+            fill(n);
+            filled = n;
+        }
+        return vector;
+    }
+
+    private ArrayVector newVector() {
+        switch (kind) {
+            case INT:
+                return new IntArrayVector();
+            case LONG:
+                return new LongArrayVector();
+            case DOUBLE:
+                return new DoubleArrayVector();
+            default:
+                return new BoolArrayVector();
+        }
+    }
+
+    private void fill(int n) {
+        switch (kind) {
+            case INT:
+                Arrays.fill(((IntArrayVector) vector).getValues(), 0, n, (int) longValue);
+                break;
+            case LONG:
+                Arrays.fill(((LongArrayVector) vector).getValues(), 0, n, longValue);
+                break;
+            case DOUBLE:
+                Arrays.fill(((DoubleArrayVector) vector).getValues(), 0, n, doubleValue);
+                break;
+            default:
+                Arrays.fill(((BoolArrayVector) vector).getBits(), 0, ArrayVector.words(n), longValue != 0 ? -1L : 0L);
+        }
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case DOUBLE:
+                return Double.toString(doubleValue);
+            case BOOL:
+                return Boolean.toString(longValue != 0);
+            default:
+                return Long.toString(longValue);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package query.engine;
+
+import sword.dev.type.SwordType;
+
+/**
+ * The AND or OR of two bool operands, with SQL's three-valued logic: false AND null is false and true OR
+ * null is true, while any other combination with a null is null. Both run a word at a time.
+ */
+public final class LogicalExpression implements Expression {
+
+    public enum Op {
+        AND, OR
+    }
+
+    private final Op op;
+    private final Operand left;
+    private final Operand right;
+    private final BoolArrayVector result = new BoolArrayVector();
+
+    public LogicalExpression(Op op, Expression left, Expression right) {
+        this.op = op;
+        this.left = new Operand(left);
+        this.right = new Operand(right);
+    }
+
+    public Op getOp() {
+        return op;
+    }
+
+    public Expression getLeft() {
+        return left.expression();
+    }
+
+    public Expression getRight() {
+        return right.expression();
+    }
+
+    @Override
+    public SwordType getType(Schema schema) {
+        ValueKind.bool(left.expression().getType(schema));
+        ValueKind.bool(right.expression().getType(schema));
+        return SwordTypes.BoolType;
+    }
+
+    @Override
+    public ColumnVector evaluate(RecordBatch batch) {
+        ColumnVector l = left.evaluate(batch);
+        ColumnVector r = right.evaluate(batch);
+        ValueKind.bool(l.getType());
+        ValueKind.bool(r.getType());
+        int n = batch.rowCount();
+        long[] a = left.bits(l, n);
+        long[] b = right.bits(r, n);
+        long[] leftValidity = left.validity(l, n);
+        long[] rightValidity = right.validity(r, n);
+        result.reset(n);
+        long[] out = result.getBits();
+        int words = ArrayVector.words(n);
+        if (leftValidity == null && rightValidity == null) {
+            for (int i = 0; i < words; i++) {
+                out[i] = op == Op.AND ? a[i] & b[i] : a[i] | b[i];
+            }
+            return result;
+        }
+        long[] validity = result.validityWords(n);
+        for (int i = 0; i < words; i++) {
+            long leftValid = leftValidity == null ? -1L : leftValidity[i];
+            long rightValid = rightValidity == null ? -1L : rightValidity[i];
+            // Known values only: a null operand's value bit says nothing
+            long leftTrue = a[i] & leftValid;
+            long rightTrue = b[i] & rightValid;
+            if (op == Op.AND) {
+                long leftFalse = ~a[i] & leftValid;
+                long rightFalse = ~b[i] & rightValid;
+                out[i] = leftTrue & rightTrue;
+                validity[i] = (leftValid & rightValid) | leftFalse | rightFalse;
+            } else {
+                out[i] = leftTrue | rightTrue;
+                validity[i] = (leftValid & rightValid) | leftTrue | rightTrue;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "(" + left.expression() + " " + op + " " + right.expression() + ")";
+    }
+}
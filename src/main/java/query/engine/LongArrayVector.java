@@ -0,0 +1,62 @@
+package query.engine;
+
+import java.util.Objects;
+
+/**
+ * An int64 column in a {@code long[]}.
+ */
+public final class LongArrayVector extends ArrayVector {
+    private long[] values = new long[0];
+
+    public LongArrayVector() {
+        super(SwordTypes.Int64Type);
+    }
+
+    /**
+     * The values, of which the first {@link #size()} belong to the column.
+     */
+    public long[] getValues() {
+        return values;
+    }
+
+    @Override
+    void ensureCapacity(int capacity) {
+        if (values.length < capacity) {
+            values = new long[capacity];
+        }
+    }
+
+    @Override
+    public Object getValue(int i) {
+        return isNull(i) ? null : values[i];
+    }
+
+    @Override
+    public long getLong(int i) {
+        return values[i];
+    }
+
+    @Override
+    public double getDouble(int i) {
+        return values[i];
+    }
+
+    @Override
+    public void getLongs(int start, long[] dst, int dstIndex, int length) {
+        Objects.checkFromIndexSize(start, length, size);
+        System.arraycopy(values, start, dst, dstIndex, length);
+    }
+
+    @Override
+    ArrayVector gather(int[] selection, int count, ArrayVector target) {
+        checkSelection(selection, count);
+        LongArrayVector result = target instanceof LongArrayVector ? (LongArrayVector) target : new LongArrayVector();
+        result.reset(count);
+        long[] out = result.values;
+        for (int i = 0; i < count; i++) {
+            out[i] = values[selection[i]];
+        }
+        gatherValidity(selection, count, result);
+        return result;
+    }
+}
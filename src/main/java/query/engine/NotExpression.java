@@ -0,0 +1,45 @@
+package query.engine;
+
+import sword.dev.type.SwordType;
+
+/**
+ * The negation of a bool operand. NOT null is null.
+ */
+public final class NotExpression implements Expression {
+    private final Operand operand;
+    private final BoolArrayVector result = new BoolArrayVector();
+
+    public NotExpression(Expression operand) {
+        this.operand = new Operand(operand);
+    }
+
+    public Expression getOperand() {
+        return operand.expression();
+    }
+
+    @Override
+    public SwordType getType(Schema schema) {
+        ValueKind.bool(operand.expression().getType(schema));
+        return SwordTypes.BoolType;
+    }
+
+    @Override
+    public ColumnVector evaluate(RecordBatch batch) {
+        ColumnVector column = operand.evaluate(batch);
+        ValueKind.bool(column.getType());
+        int n = batch.rowCount();
+        long[] bits = operand.bits(column, n);
+        result.reset(n);
+        result.setValidity(operand.validity(column, n), null);
+        long[] out = result.getBits();
+        for (int i = 0; i < ArrayVector.words(n); i++) {
+            out[i] = ~bits[i];
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "NOT " + operand.expression();
+    }
+}
@@ -0,0 +1,149 @@
+package query.engine;
+
+import sword.dev.BitVectorHelper;
+import sword.dev.BitVectorV2;
+import sword.dev.FieldVectorV2;
+import sword.dev.RunEndEncodedVector;
+import sword.dev.SwordBuf;
+
+import java.util.Arrays;
+
+/**
+ * A child of an expression node, with the arrays its values are copied into when they don't already come
+ * as arrays of the kind the node computes in. The arrays are kept from batch to batch.
+ */
+final class Operand {
+    private final Expression expression;
+    private int[] ints = new int[0];
+    private long[] longs = new long[0];
+    private double[] doubles = new double[0];
+    private long[] bits = new long[0];
+    private long[] validity = new long[0];
+
+    Operand(Expression expression) {
+        this.expression = expression;
+    }
+
+    Expression expression() {
+        return expression;
+    }
+
+    ColumnVector evaluate(RecordBatch batch) {
+        return expression.evaluate(batch);
+    }
+
+    int[] ints(ColumnVector column, int n) {
+        if (column instanceof IntArrayVector) {
+            return ((IntArrayVector) column).getValues();
+        }
+        if (ints.length < n) {
+            ints = new int[n];
+        }
+        column.getInts(0, ints, 0, n);
+        return ints;
+    }
+
+    long[] longs(ColumnVector column, int n) {
+        if (column instanceof LongArrayVector) {
+            return ((LongArrayVector) column).getValues();
+        }
+        if (longs.length < n) {
+            longs = new long[n];
+        }
+        if (ValueKind.of(column.getType()) == ValueKind.INT) {
+            int[] values = ints(column, n);
+            for (int i = 0; i < n; i++) {
+                longs[i] = values[i];
+            }
+        } else {
+            column.getLongs(0, longs, 0, n);
+        }
+        return longs;
+    }
+
+    double[] doubles(ColumnVector column, int n) {
+        if (column instanceof DoubleArrayVector) {
+            return ((DoubleArrayVector) column).getValues();
+        }
+        if (doubles.length < n) {
+            doubles = new double[n];
+        }
+        ValueKind kind = ValueKind.of(column.getType());
+        if (kind == ValueKind.INT) {
+            int[] values = ints(column, n);
+            for (int i = 0; i < n; i++) {
+                doubles[i] = values[i];
+            }
+        } else if (kind == ValueKind.LONG) {
+            long[] values = longs(column, n);
+            for (int i = 0; i < n; i++) {
+                doubles[i] = values[i];
+            }
+        } else {
+            column.getDoubles(0, doubles, 0, n);
+        }
+        return doubles;
+    }
+
+    /**
+     * The value bits of a bool column, one word per 64 rows.
+     */
+    long[] bits(ColumnVector column, int n) {
+        if (column instanceof BoolArrayVector) {
+            return ((BoolArrayVector) column).getBits();
+        }
+        bits = ensureWords(bits, n);
+        FieldVectorV2 field = column instanceof SwordFieldVector ? ((SwordFieldVector) column).getField() : null;
+        if (field instanceof BitVectorV2) {
+            readWords(field.getDataBuffer(), n, bits);
+        } else {
+            Arrays.fill(bits, 0, ArrayVector.words(n), 0L);
+            for (int i = 0; i < n; i++) {
+                if (Boolean.TRUE.equals(column.getValue(i))) {
+                    bits[i >>> 6] |= 1L << i;
+                }
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * The validity bitmap of a column, one word per 64 rows, or null when no row is null.
+     */
+    long[] validity(ColumnVector column, int n) {
+        if (column instanceof ArrayVector) {
+            return ((ArrayVector) column).getValidity();
+        }
+        if (column instanceof SwordFieldVector) {
+            FieldVectorV2 field = ((SwordFieldVector) column).getField();
+            if (field.getNullCount() == 0) {
+                return null;
+            }
+            SwordBuf buffer = field.getValidityBuffer();
+            // A run-end encoded vector's bitmap has a bit per run, not per row
+            if (buffer != null && !(field instanceof RunEndEncodedVector)) {
+                validity = ensureWords(validity, n);
+                readWords(buffer, n, validity);
+                return validity;
+            }
+        }
+        validity = ensureWords(validity, n);
+        Arrays.fill(validity, 0, ArrayVector.words(n), 0L);
+        for (int i = 0; i < n; i++) {
+            if (!column.isNull(i)) {
+                validity[i >>> 6] |= 1L << i;
+            }
+        }
+        return validity;
+    }
+
+    private static long[] ensureWords(long[] words, int n) {
+        return words.length < ArrayVector.words(n) ? new long[ArrayVector.words(n)] : words;
+    }
+
+    private static void readWords(SwordBuf buffer, int n, long[] words) {
+        for (int row = 0; row < n; row += 64) {
+            words[row >>> 6] = BitVectorHelper.getBits(buffer, row, Math.min(64, n - row));
+        }
+    }
+}
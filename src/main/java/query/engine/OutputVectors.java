@@ -0,0 +1,71 @@
+package query.engine;
+
+import sword.dev.FieldVectorV2;
+import sword.dev.compute.Filters;
+
+import java.util.Arrays;
+
+/**
+ * The vectors an operator gathers its output rows into, one per column, kept from batch to batch. A
+ * column's vector is replaced only when an input batch brings a different vector class or nullability.
+ * Columns computed by expressions are gathered into array vectors the same way.
+ */
+final class OutputVectors implements AutoCloseable {
+    private final Schema schema;
+    private final FieldVectorV2[] vectors;
+    private final ColumnVector[] columns;
+
+    OutputVectors(Schema schema) {
+        this.schema = schema;
+        this.vectors = new FieldVectorV2[schema.getFields().size()];
+        this.columns = new ColumnVector[vectors.length];
+    }
+
+    /**
+     * Gather the first {@code count} rows of {@code selection} from every column of {@code batch}. The
+     * returned batch is refilled by the next call.
+     */
+    RecordBatch gather(RecordBatch batch, int[] selection, int count) {
+        for (int i = 0; i < vectors.length; i++) {
+            ColumnVector column = batch.field(i);
+            if (column instanceof ArrayVector) {
+                closeVector(i);
+                ArrayVector previous = columns[i] instanceof ArrayVector ? (ArrayVector) columns[i] : null;
+                columns[i] = ((ArrayVector) column).gather(selection, count, previous);
+                continue;
+            }
+            if (!(column instanceof SwordFieldVector)) {
+                throw new UnsupportedOperationException("Cannot gather a " + column.getClass().getSimpleName());
+            }
+            FieldVectorV2 source = ((SwordFieldVector) column).getField();
+            FieldVectorV2 target = vectors[i];
+            if (target == null || target.getClass() != source.getClass() || target.isNullable() != source.isNullable()) {
+                closeVector(i);
+                target = source.getNewVector();
+                target.setNullable(source.isNullable());
+                target.setInitialCapacity(Math.max(count, 1));
+                target.allocateNew();
+                vectors[i] = target;
+                columns[i] = SwordFieldVector.of(target);
+            }
+            Filters.gather(source, selection, count, target);
+        }
+        return new RecordBatch(schema, Arrays.asList(columns.clone()));
+    }
+
+    private void closeVector(int i) {
+        if (vectors[i] != null) {
+            vectors[i].close();
+            vectors[i] = null;
+            columns[i] = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0; i < vectors.length; i++) {
+            closeVector(i);
+            columns[i] = null;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package query.engine;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A step of an executable query plan. Operators pull batches from their children and hand whole batches
+ * on, so per-row work stays inside the vector kernels.
+ *
+ * <p>An operator may refill the same vectors for every batch it produces: a batch is only valid until the
+ * next call to the iterator, and an operator runs one execution at a time. Closing an operator releases
+ * its vectors and closes its children.
+ */
+public interface PhysicalOperator extends AutoCloseable {
+
+    Schema schema();
+
+    Iterator<RecordBatch> execute();
+
+    List<PhysicalOperator> children();
+
+    @Override
+    void close();
+}
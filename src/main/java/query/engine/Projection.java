@@ -0,0 +1,93 @@
+package query.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Computes one output column per expression. A column expression passes the input column on as it is,
+ * without copying; other expressions are evaluated over the whole batch.
+ */
+public class Projection implements PhysicalOperator {
+    private final PhysicalOperator input;
+    private final List<Expression> expressions;
+    private final Schema schema;
+
+    /**
+     * Keep the listed columns of each batch, in the order listed.
+     */
+    public Projection(PhysicalOperator input, int... columns) {
+        this(input, columnExpressions(columns), columnNames(input.schema(), columns));
+    }
+
+    public Projection(PhysicalOperator input, List<Expression> expressions, List<String> names) {
+        if (expressions.size() != names.size()) {
+            throw new IllegalArgumentException(expressions.size() + " expressions but " + names.size() + " names");
+        }
+        Schema inputSchema = input.schema();
+        List<Field> fields = new ArrayList<>(expressions.size());
+        for (int i = 0; i < expressions.size(); i++) {
+            fields.add(new Field(names.get(i), expressions.get(i).getType(inputSchema)));
+        }
+        this.input = input;
+        this.expressions = new ArrayList<>(expressions);
+        this.schema = new Schema(fields);
+    }
+
+    private static List<Expression> columnExpressions(int[] columns) {
+        List<Expression> expressions = new ArrayList<>(columns.length);
+        for (int column : columns) {
+            expressions.add(new ColumnExpression(column));
+        }
+        return expressions;
+    }
+
+    private static List<String> columnNames(Schema schema, int[] columns) {
+        List<Field> fields = schema.getFields();
+        List<String> names = new ArrayList<>(columns.length);
+        for (int column : columns) {
+            if (column < 0 || column >= fields.size()) {
+                throw new IllegalArgumentException("No column " + column + " among " + fields.size());
+            }
+            names.add(fields.get(column).getName());
+        }
+        return names;
+    }
+
+    @Override
+    public Schema schema() {
+        return schema;
+    }
+
+    @Override
+    public Iterator<RecordBatch> execute() {
+        Iterator<RecordBatch> batches = input.execute();
+        return new Iterator<RecordBatch>() {
+            @Override
+            public boolean hasNext() {
+                return batches.hasNext();
+            }
+
+            @Override
+            public RecordBatch next() {
+                RecordBatch batch = batches.next();
+                List<ColumnVector> projected = new ArrayList<>(expressions.size());
+                for (Expression expression : expressions) {
+                    projected.add(expression.evaluate(batch));
+                }
+                return new RecordBatch(schema, projected);
+            }
+        };
+    }
+
+    @Override
+    public List<PhysicalOperator> children() {
+        return Collections.singletonList(input);
+    }
+
+    @Override
+    public void close() {
+        input.close();
+    }
+}
@@ -1,5 +1,9 @@
 package query.engine;
 
+import sword.dev.FieldVectorV2;
+import sword.dev.compute.Filters;
+
+import java.util.ArrayList;
 import java.util.List;
 
 public class RecordBatch {
@@ -35,4 +39,34 @@ public class RecordBatch {
     public ColumnVector field(int i) {
         return fields.get(i);
     }
+
+    /**
+     * Gather the rows listed in {@code selection}, in ascending order, into a new batch with the same
+     * schema. Each column is copied in bulk into vectors from its own allocator, which the caller closes.
+     *
+     * @param count the number of entries of {@code selection} to use
+     */
+    public RecordBatch filter(int[] selection, int count) {
+        for (ColumnVector column : fields) {
+            if (!(column instanceof SwordFieldVector)) {
+                throw new UnsupportedOperationException("Cannot filter a " + column.getClass().getSimpleName());
+            }
+        }
+        List<FieldVectorV2> gathered = new ArrayList<>(fields.size());
+        try {
+            for (ColumnVector column : fields) {
+                gathered.add(Filters.gather(((SwordFieldVector) column).getField(), selection, count));
+            }
+            List<ColumnVector> filtered = new ArrayList<>(gathered.size());
+            for (FieldVectorV2 vector : gathered) {
+                filtered.add(SwordFieldVector.of(vector));
+            }
+            return new RecordBatch(schema, filtered);
+        } catch (RuntimeException | Error e) {
+            for (FieldVectorV2 vector : gathered) {
+                vector.close();
+            }
+            throw e;
+        }
+    }
 }
\ No newline at end of file
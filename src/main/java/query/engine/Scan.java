@@ -0,0 +1,39 @@
+package query.engine;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Produces a list of in-memory batches. The batches stay the caller's, and closing the scan leaves them
+ * open.
+ */
+public class Scan implements PhysicalOperator {
+    private final Schema schema;
+    private final List<RecordBatch> batches;
+
+    public Scan(Schema schema, List<RecordBatch> batches) {
+        this.schema = schema;
+        this.batches = batches;
+    }
+
+    @Override
+    public Schema schema() {
+        return schema;
+    }
+
+    @Override
+    public Iterator<RecordBatch> execute() {
+        return Collections.unmodifiableList(batches).iterator();
+    }
+
+    @Override
+    public List<PhysicalOperator> children() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void close() {
+        // The batches belong to the caller
+    }
+}
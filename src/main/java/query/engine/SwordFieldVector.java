@@ -1,16 +1,69 @@
 package query.engine;
 
 
+import sword.dev.BigIntVectorV2;
+import sword.dev.BitPackedIntVector;
 import sword.dev.FieldVectorV2;
+import sword.dev.Float4VectorV2;
+import sword.dev.Float8VectorV2;
 import sword.dev.IntVectorV2;
+import sword.dev.RunEndEncodedVector;
+import sword.dev.SmallIntVectorV2;
+import sword.dev.TinyIntVectorV2;
+import sword.dev.dictionary.DictionaryEncodedVector;
 import sword.dev.type.SwordType;
 
+import java.util.Objects;
+
+/**
+ * A {@link ColumnVector} over a {@link FieldVectorV2}. {@link #of(FieldVectorV2)} looks at the vector's
+ * class once and returns an implementation that holds it under its own type, so the primitive accessors
+ * are direct calls with no per-row type checks.
+ */
 public class SwordFieldVector implements ColumnVector {
 
     private final FieldVectorV2 field;
+    // The implementation from of() that a directly constructed instance reads through, null in those implementations
+    private final SwordFieldVector column;
 
+    /**
+     * Wrap {@code field}, reading its primitive values through the implementation {@link #of(FieldVectorV2)}
+     * picks. Prefer {@code of}, which returns that implementation and saves a call per read.
+     */
     public SwordFieldVector(FieldVectorV2 field) {
+        this(field, of(field));
+    }
+
+    private SwordFieldVector(FieldVectorV2 field, SwordFieldVector column) {
         this.field = field;
+        this.column = column;
+    }
+
+    /**
+     * Wrap {@code field} in the implementation for its vector class. Vectors with no primitive accessors,
+     * such as strings and booleans, are read through {@link #getValue(int)} only.
+     */
+    public static SwordFieldVector of(FieldVectorV2 field) {
+        if (field instanceof IntVectorV2) {
+            return new IntColumn((IntVectorV2) field);
+        } else if (field instanceof BigIntVectorV2) {
+            return new BigIntColumn((BigIntVectorV2) field);
+        } else if (field instanceof Float8VectorV2) {
+            return new Float8Column((Float8VectorV2) field);
+        } else if (field instanceof Float4VectorV2) {
+            return new Float4Column((Float4VectorV2) field);
+        } else if (field instanceof SmallIntVectorV2) {
+            return new SmallIntColumn((SmallIntVectorV2) field);
+        } else if (field instanceof TinyIntVectorV2) {
+            return new TinyIntColumn((TinyIntVectorV2) field);
+        } else if (field instanceof BitPackedIntVector) {
+            return new BitPackedIntColumn((BitPackedIntVector) field);
+        } else if (field instanceof RunEndEncodedVector) {
+            return new RunEndEncodedColumn((RunEndEncodedVector) field);
+        } else if (field instanceof DictionaryEncodedVector) {
+            return new DictionaryColumn((DictionaryEncodedVector) field);
+        }
+        return new ObjectColumn(field);
     }
 
     public FieldVectorV2 getField() {
@@ -19,29 +72,261 @@ public class SwordFieldVector implements ColumnVector {
 
     @Override
     public SwordType getType() {
-        if (field instanceof IntVectorV2) {
-            return SwordTypes.Int32Type;
-        } else {
-            throw new IllegalStateException();
-        }
+        return field.getType();
     }
 
     @Override
     public Object getValue(int i) {
-        if (field.isNull(i)) {
-            return null;
+        return field.getObject(i);
+    }
+
+    @Override
+    public boolean isNull(int i) {
+        return field.isNull(i);
+    }
+
+    @Override
+    public int size() {
+        return field.getValueCount();
+    }
+
+    @Override
+    public int getInt(int i) {
+        return column != null ? column.getInt(i) : ColumnVector.super.getInt(i);
+    }
+
+    @Override
+    public long getLong(int i) {
+        return column != null ? column.getLong(i) : ColumnVector.super.getLong(i);
+    }
+
+    @Override
+    public double getDouble(int i) {
+        return column != null ? column.getDouble(i) : ColumnVector.super.getDouble(i);
+    }
+
+    @Override
+    public void getInts(int start, int[] dst, int dstIndex, int length) {
+        if (column != null) {
+            column.getInts(start, dst, dstIndex, length);
+        } else {
+            ColumnVector.super.getInts(start, dst, dstIndex, length);
         }
-        if (field instanceof IntVectorV2) {
-            IntVectorV2 intVector = (IntVectorV2) field;
-            return intVector.get(i);
+    }
+
+    @Override
+    public void getLongs(int start, long[] dst, int dstIndex, int length) {
+        if (column != null) {
+            column.getLongs(start, dst, dstIndex, length);
         } else {
-            throw new IllegalStateException();
+            ColumnVector.super.getLongs(start, dst, dstIndex, length);
         }
     }
 
     @Override
-    public int size() {
-        return field.getValueCount();
+    public void getDoubles(int start, double[] dst, int dstIndex, int length) {
+        if (column != null) {
+            column.getDoubles(start, dst, dstIndex, length);
+        } else {
+            ColumnVector.super.getDoubles(start, dst, dstIndex, length);
+        }
     }
-}
 
+    /**
+     * Base for columns of int values, which can also be read as long or double.
+     */
+    abstract static class IntValuedColumn extends SwordFieldVector {
+
+        IntValuedColumn(FieldVectorV2 field) {
+            super(field, null);
+        }
+
+        @Override
+        public long getLong(int i) {
+            return getInt(i);
+        }
+
+        @Override
+        public double getDouble(int i) {
+            return getInt(i);
+        }
+    }
+
+    static final class IntColumn extends IntValuedColumn {
+        private final IntVectorV2 vector;
+
+        IntColumn(IntVectorV2 vector) {
+            super(vector);
+            this.vector = vector;
+        }
+
+        @Override
+        public int getInt(int i) {
+            return vector.get(i);
+        }
+
+        @Override
+        public void getInts(int start, int[] dst, int dstIndex, int length) {
+            Objects.checkFromIndexSize(start, length, vector.getValueCount());
+            vector.getDataBuffer().getInts((long) start << 2, dst, dstIndex, length);
+        }
+    }
+
+    static final class SmallIntColumn extends IntValuedColumn {
+        private final SmallIntVectorV2 vector;
+
+        SmallIntColumn(SmallIntVectorV2 vector) {
+            super(vector);
+            this.vector = vector;
+        }
+
+        @Override
+        public int getInt(int i) {
+            return vector.get(i);
+        }
+    }
+
+    static final class TinyIntColumn extends IntValuedColumn {
+        private final TinyIntVectorV2 vector;
+
+        TinyIntColumn(TinyIntVectorV2 vector) {
+            super(vector);
+            this.vector = vector;
+        }
+
+        @Override
+        public int getInt(int i) {
+            return vector.get(i);
+        }
+    }
+
+    static final class BitPackedIntColumn extends IntValuedColumn {
+        private final BitPackedIntVector vector;
+
+        BitPackedIntColumn(BitPackedIntVector vector) {
+            super(vector);
+            this.vector = vector;
+        }
+
+        @Override
+        public int getInt(int i) {
+            return vector.get(i);
+        }
+
+        @Override
+        public void getInts(int start, int[] dst, int dstIndex, int length) {
+            vector.decode(start, length, dst, dstIndex);
+        }
+    }
+
+    static final class RunEndEncodedColumn extends IntValuedColumn {
+        private final RunEndEncodedVector vector;
+
+        RunEndEncodedColumn(RunEndEncodedVector vector) {
+            super(vector);
+            this.vector = vector;
+        }
+
+        @Override
+        public int getInt(int i) {
+            return vector.get(i);
+        }
+    }
+
+    static final class BigIntColumn extends SwordFieldVector {
+        private final BigIntVectorV2 vector;
+
+        BigIntColumn(BigIntVectorV2 vector) {
+            super(vector, null);
+            this.vector = vector;
+        }
+
+        @Override
+        public long getLong(int i) {
+            return vector.get(i);
+        }
+
+        @Override
+        public double getDouble(int i) {
+            return vector.get(i);
+        }
+
+        @Override
+        public void getLongs(int start, long[] dst, int dstIndex, int length) {
+            Objects.checkFromIndexSize(start, length, vector.getValueCount());
+            vector.getDataBuffer().getLongs((long) start << 3, dst, dstIndex, length);
+        }
+    }
+
+    static final class Float4Column extends SwordFieldVector {
+        private final Float4VectorV2 vector;
+
+        Float4Column(Float4VectorV2 vector) {
+            super(vector, null);
+            this.vector = vector;
+        }
+
+        @Override
+        public double getDouble(int i) {
+            return vector.get(i);
+        }
+    }
+
+    static final class Float8Column extends SwordFieldVector {
+        private final Float8VectorV2 vector;
+
+        Float8Column(Float8VectorV2 vector) {
+            super(vector, null);
+            this.vector = vector;
+        }
+
+        @Override
+        public double getDouble(int i) {
+            return vector.get(i);
+        }
+
+        @Override
+        public void getDoubles(int start, double[] dst, int dstIndex, int length) {
+            Objects.checkFromIndexSize(start, length, vector.getValueCount());
+            vector.getDataBuffer().getDoubles((long) start << 3, dst, dstIndex, length);
+        }
+    }
+
+    /**
+     * Decodes each code through a column over the dictionary's values, so a dictionary of numbers reads
+     * like a column of them.
+     */
+    static final class DictionaryColumn extends SwordFieldVector {
+        private final DictionaryEncodedVector vector;
+        private final SwordFieldVector values;
+
+        DictionaryColumn(DictionaryEncodedVector vector) {
+            super(vector, null);
+            this.vector = vector;
+            this.values = of(vector.getDictionary().getVector());
+        }
+
+        // Null rows may hold any code, including one past the dictionary, so they read as 0
+        @Override
+        public int getInt(int i) {
+            return vector.isNull(i) ? 0 : values.getInt(vector.getIndex(i));
+        }
+
+        @Override
+        public long getLong(int i) {
+            return vector.isNull(i) ? 0 : values.getLong(vector.getIndex(i));
+        }
+
+        @Override
+        public double getDouble(int i) {
+            return vector.isNull(i) ? 0 : values.getDouble(vector.getIndex(i));
+        }
+    }
+
+    static final class ObjectColumn extends SwordFieldVector {
+
+        ObjectColumn(FieldVectorV2 field) {
+            super(field, null);
+        }
+    }
+}
@@ -4,5 +4,12 @@ import sword.dev.type.SwordType;
 
 public class SwordTypes {
 
+    public static final SwordType Int8Type = new SwordType.Int(8);
+    public static final SwordType Int16Type = new SwordType.Int(16);
     public static final SwordType Int32Type = new SwordType.Int(32);
+    public static final SwordType Int64Type = new SwordType.Int(64);
+    public static final SwordType Float32Type = new SwordType.FloatingPoint(32);
+    public static final SwordType Float64Type = new SwordType.FloatingPoint(64);
+    public static final SwordType Utf8Type = new SwordType.Utf8();
+    public static final SwordType BoolType = new SwordType.Bool();
 }
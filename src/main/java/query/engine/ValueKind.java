@@ -0,0 +1,64 @@
+package query.engine;
+
+import sword.dev.type.SwordType;
+
+/**
+ * The primitive an expression computes a type in. Narrow integers are widened to int and float32 to
+ * double, so a node needs one loop per kind rather than one per column type. Numeric kinds are declared
+ * narrowest first.
+ */
+enum ValueKind {
+    INT(SwordTypes.Int32Type),
+    LONG(SwordTypes.Int64Type),
+    DOUBLE(SwordTypes.Float64Type),
+    BOOL(SwordTypes.BoolType);
+
+    private final SwordType type;
+
+    ValueKind(SwordType type) {
+        this.type = type;
+    }
+
+    /**
+     * The type of the values an expression of this kind produces.
+     */
+    SwordType type() {
+        return type;
+    }
+
+    static ValueKind of(SwordType type) {
+        if (type instanceof SwordType.Int) {
+            return ((SwordType.Int) type).getBitWidth() <= 32 ? INT : LONG;
+        } else if (type instanceof SwordType.TinyInt) {
+            return INT;
+        } else if (type instanceof SwordType.FloatingPoint) {
+            return DOUBLE;
+        } else if (type instanceof SwordType.Bool) {
+            return BOOL;
+        }
+        throw new IllegalArgumentException("Expressions cannot compute on " + type + " values");
+    }
+
+    static ValueKind numeric(SwordType type) {
+        ValueKind kind = of(type);
+        if (kind == BOOL) {
+            throw new IllegalArgumentException("Expected a numeric value, not " + type);
+        }
+        return kind;
+    }
+
+    static ValueKind bool(SwordType type) {
+        ValueKind kind = of(type);
+        if (kind != BOOL) {
+            throw new IllegalArgumentException("Expected a bool value, not " + type);
+        }
+        return kind;
+    }
+
+    /**
+     * The kind two numeric operands are computed in.
+     */
+    static ValueKind wider(ValueKind left, ValueKind right) {
+        return left.compareTo(right) >= 0 ? left : right;
+    }
+}
@@ -0,0 +1,64 @@
+package sword.dev;
+
+import java.util.Map;
+
+/**
+ * Memory usage of one allocator as published over JMX. Register an allocator with
+ * {@link BaseAllocator#registerMBean()}.
+ */
+public interface AllocatorMXBean {
+
+    String getName();
+
+    /**
+     * Get the number of bytes currently allocated, including the initial reservation of open children.
+     */
+    long getAllocatedMemory();
+
+    /**
+     * Get the highest number of bytes allocated at once since creation or the last
+     * {@link #resetPeakMemory()}.
+     */
+    long getPeakMemory();
+
+    long getLimit();
+
+    long getHeadroom();
+
+    /**
+     * Get the number of buffers allocated directly by this allocator.
+     */
+    long getAllocationCount();
+
+    /**
+     * Get the number of buffers freed back to this allocator.
+     */
+    long getFreeCount();
+
+    /**
+     * Get the total number of bytes ever allocated by this allocator. Sampling it twice gives the
+     * allocation rate.
+     */
+    long getBytesAllocated();
+
+    /**
+     * Get the number of allocations by requested size. Entry {@code i} counts requests of less than
+     * {@code 2^i} bytes and at least {@code 2^(i-1)}; entry 0 counts empty requests.
+     */
+    long[] getSizeHistogram();
+
+    /**
+     * Get the bytes allocated by each open child allocator, by name.
+     */
+    Map<String, Long> getChildUsage();
+
+    /**
+     * Get the bytes held by each buffer owner, by name. Vectors allocate under their own name, so this
+     * is the memory held per column.
+     */
+    Map<String, Long> getOwnerUsage();
+
+    boolean isClosed();
+
+    void resetPeakMemory();
+}
@@ -0,0 +1,112 @@
+package sword.dev;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The counters of an allocator and all of its children, read at one point in time. Each counter is
+ * read on its own, so under concurrent allocation the figures need not add up exactly.
+ */
+public final class AllocatorSnapshot {
+    private final String name;
+    private final long allocatedMemory;
+    private final long peakMemory;
+    private final long limit;
+    private final long allocationCount;
+    private final long freeCount;
+    private final long bytesAllocated;
+    private final long[] sizeHistogram;
+    private final Map<String, Long> ownerUsage;
+    private final List<AllocatorSnapshot> children;
+
+    AllocatorSnapshot(String name, long allocatedMemory, long peakMemory, long limit, long allocationCount,
+                      long freeCount, long bytesAllocated, long[] sizeHistogram, Map<String, Long> ownerUsage,
+                      List<AllocatorSnapshot> children) {
+        this.name = name;
+        this.allocatedMemory = allocatedMemory;
+        this.peakMemory = peakMemory;
+        this.limit = limit;
+        this.allocationCount = allocationCount;
+        this.freeCount = freeCount;
+        this.bytesAllocated = bytesAllocated;
+        this.sizeHistogram = sizeHistogram;
+        this.ownerUsage = Collections.unmodifiableMap(ownerUsage);
+        this.children = Collections.unmodifiableList(children);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getAllocatedMemory() {
+        return allocatedMemory;
+    }
+
+    public long getPeakMemory() {
+        return peakMemory;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    public long getAllocationCount() {
+        return allocationCount;
+    }
+
+    public long getFreeCount() {
+        return freeCount;
+    }
+
+    public long getBytesAllocated() {
+        return bytesAllocated;
+    }
+
+    /**
+     * @see AllocatorMXBean#getSizeHistogram()
+     */
+    public long[] getSizeHistogram() {
+        return sizeHistogram.clone();
+    }
+
+    public Map<String, Long> getOwnerUsage() {
+        return ownerUsage;
+    }
+
+    public List<AllocatorSnapshot> getChildren() {
+        return children;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        appendTo(result, "");
+        return result.toString();
+    }
+
+    private void appendTo(StringBuilder result, String indent) {
+        result.append(indent).append(name)
+                .append(": allocated=").append(allocatedMemory)
+                .append(", peak=").append(peakMemory)
+                .append(", limit=").append(limit)
+                .append(", allocations=").append(allocationCount)
+                .append(", frees=").append(freeCount)
+                .append(", bytesAllocated=").append(bytesAllocated);
+        if (!ownerUsage.isEmpty()) {
+            result.append(", owners=").append(ownerUsage);
+        }
+        int last = sizeHistogram.length;
+        while (last > 0 && sizeHistogram[last - 1] == 0) {
+            last--;
+        }
+        if (last > 0) {
+            result.append(", sizes=").append(Arrays.toString(Arrays.copyOf(sizeHistogram, last)));
+        }
+        for (AllocatorSnapshot child : children) {
+            result.append(System.lineSeparator());
+            child.appendTo(result, indent + "  ");
+        }
+    }
+}
@@ -0,0 +1,569 @@
+package sword.dev;
+
+import sword.dev.exceptions.OutOfMemoryException;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accounting shared by every allocator in a tree. Each allocator keeps its own atomic counter and
+ * enforces its own limit. Bytes beyond an allocator's initial reservation are charged to its parent,
+ * so limits are enforced all the way up to the root without a shared lock. The root decides how memory
+ * is actually obtained and released; child allocators always go through it.
+ *
+ * <p>In debug mode, enabled per root allocator or for all of them with {@code -Dsword.memory.debug=true},
+ * every outstanding buffer is recorded with the stack that allocated it, so that leaks can be traced
+ * when the allocator is closed and double frees or use after release can name where the buffer was
+ * released. Child allocators inherit the mode of their parent.
+ *
+ * <p>Every allocator also counts its allocations, frees, bytes allocated, peak usage and request sizes,
+ * and the bytes held per buffer owner. The counters are striped so they can stay on under load; read
+ * them through {@link #snapshot()} or publish them over JMX with {@link #registerMBean()}.
+ */
+public abstract class BaseAllocator implements BufferAllocator, AllocatorMXBean {
+
+    public static final String MBEAN_DOMAIN = "sword.dev";
+
+    public static final boolean DEBUG = Boolean.getBoolean("sword.memory.debug");
+
+    private final String name;
+    private final BaseAllocator parent;
+    private final BaseAllocator root;
+    private final long reservation;
+    private final long limit;
+    private final AtomicLong allocated = new AtomicLong();
+    private final AtomicLong peakAllocated = new AtomicLong();
+    private final LongAdder allocationCount = new LongAdder();
+    private final LongAdder freeCount = new LongAdder();
+    private final LongAdder bytesAllocated = new LongAdder();
+    private final LongAdder[] sizeHistogram = new LongAdder[Long.SIZE];
+    private final Map<String, LongAdder> ownerUsage = new ConcurrentHashMap<>();
+    private final Set<BaseAllocator> children = ConcurrentHashMap.newKeySet();
+    private final boolean debug;
+    private final Map<SwordBuf, AllocationRecord> outstanding;
+    private final Map<SwordBuf, AllocationRecord> released;
+    private volatile ObjectName mbeanName;
+    private volatile boolean closed;
+
+    protected BaseAllocator(String name, BaseAllocator parent, long initReservation, long limit) {
+        this(name, parent, initReservation, limit, parent == null ? DEBUG : parent.debug);
+    }
+
+    protected BaseAllocator(String name, BaseAllocator parent, long initReservation, long limit, boolean debug) {
+        if (initReservation < 0 || limit < 0) {
+            throw new IllegalArgumentException("Reservation and limit cannot be negative");
+        }
+        if (initReservation > limit) {
+            throw new IllegalArgumentException("Initial reservation " + initReservation + " exceeds limit " + limit);
+        }
+        this.name = Objects.requireNonNull(name, "name cannot be null");
+        this.parent = parent;
+        this.root = parent == null ? this : parent.root;
+        this.reservation = initReservation;
+        this.limit = limit;
+        this.debug = debug;
+        this.outstanding = debug ? new ConcurrentHashMap<>() : null;
+        this.released = debug ? Collections.synchronizedMap(new WeakHashMap<>()) : null;
+        for (int i = 0; i < sizeHistogram.length; i++) {
+            sizeHistogram[i] = new LongAdder();
+        }
+        if (parent != null) {
+            parent.reserve(initReservation);
+        }
+    }
+
+    @Override
+    public SwordBuf allocate(long size) throws OutOfMemoryException {
+        return allocate(size, null);
+    }
+
+    @Override
+    public SwordBuf allocate(long size, String owner) throws OutOfMemoryException {
+        if (size < 0) {
+            throw new IllegalArgumentException("Cannot allocate negative size");
+        }
+        ensureOpen();
+        long allocationSize = root.allocationSize(size);
+        reserve(allocationSize);
+        SwordBuf buffer;
+        try {
+            buffer = new SwordBuf(this, root.allocateMemory(size, allocationSize), size, owner);
+        } catch (Exception | OutOfMemoryError e) {
+            release(allocationSize);
+            throw new OutOfMemoryException("Failed to allocate buffer in allocator '" + name + "': " + e.getMessage());
+        }
+        allocationCount.increment();
+        bytesAllocated.add(allocationSize);
+        sizeHistogram[Long.SIZE - Long.numberOfLeadingZeros(size)].increment();
+        addOwnerUsage(owner, allocationSize);
+        if (debug) {
+            outstanding.put(buffer, new AllocationRecord(size, owner));
+        }
+        return buffer;
+    }
+
+    @Override
+    public void free(SwordBuf buffer) {
+        if (buffer == null) {
+            return;
+        }
+        if (buffer.getAllocator() != this) {
+            throw new IllegalStateException("Buffer belongs to allocator '" + buffer.getAllocator().getName()
+                    + "', not '" + name + "'");
+        }
+        if (debug) {
+            AllocationRecord record = outstanding.remove(buffer);
+            if (record == null) {
+                throw releasedBufferException(buffer, "Buffer is not outstanding in allocator '" + name + "'");
+            }
+            record.releasedAt = new Throwable("Released on thread " + Thread.currentThread().getName());
+            released.put(buffer, record);
+        }
+        MemoryChunk memory = buffer.memory();
+        freeCount.increment();
+        addOwnerUsage(buffer.getOwner(), -memory.size());
+        release(memory.size());
+        root.releaseMemory(memory);
+    }
+
+    /**
+     * Resize a buffer without copying where the memory allows it: when the new size still fits the
+     * memory already set aside for the buffer, as with a pooled size class, or when the memory is a
+     * native block, which realloc grows in place when it can. Shared buffers and wrapped memory, such as
+     * mapped files, fall back to copying.
+     */
+    @Override
+    public SwordBuf reallocate(SwordBuf buffer, long newSize) {
+        if (newSize < 0) {
+            throw new IllegalArgumentException("Cannot allocate negative size");
+        }
+        ensureOpen();
+        if (buffer.getAllocator() != this) {
+            // Moving the buffer over from another allocator takes a copy
+            return BufferAllocator.super.reallocate(buffer, newSize);
+        }
+        MemoryChunk memory = buffer.memory();
+        long oldSize = buffer.capacity();
+        long newAllocationSize = root.allocationSize(newSize);
+        boolean sameChunk = newAllocationSize == memory.size();
+        boolean nativeChunk = memory.canReallocate();
+        if (!(sameChunk || nativeChunk) || !buffer.detach()) {
+            return BufferAllocator.super.reallocate(buffer, newSize);
+        }
+
+        long delta = newAllocationSize - memory.size();
+        if (delta > 0) {
+            try {
+                reserve(delta);
+            } catch (OutOfMemoryException e) {
+                buffer.reattach();
+                throw e;
+            }
+        }
+        MemoryChunk resized = memory;
+        if (sameChunk) {
+            if (newSize > oldSize) {
+                MemoryUtil.setMemory(memory.address() + oldSize, newSize - oldSize, (byte) 0);
+            }
+        } else {
+            try {
+                resized = memory.reallocate(newAllocationSize);
+            } catch (OutOfMemoryError e) {
+                if (delta > 0) {
+                    release(delta);
+                }
+                buffer.reattach();
+                throw new OutOfMemoryException("Failed to reallocate buffer in allocator '" + name + "': " + e.getMessage());
+            }
+        }
+        if (delta < 0) {
+            release(-delta);
+        }
+        if (delta > 0) {
+            bytesAllocated.add(delta);
+        }
+        addOwnerUsage(buffer.getOwner(), delta);
+        return rewrap(buffer, resized, newSize);
+    }
+
+    @Override
+    public BufferAllocator newChildAllocator(String name, long initReservation, long limit) {
+        ensureOpen();
+        ChildAllocator child = new ChildAllocator(name, this, initReservation, limit);
+        children.add(child);
+        return child;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public BufferAllocator getParentAllocator() {
+        return parent;
+    }
+
+    /**
+     * Get the allocators created by {@link #newChildAllocator(String, long, long)} that are still open.
+     */
+    public Collection<BufferAllocator> getChildAllocators() {
+        return new ArrayList<>(children);
+    }
+
+    @Override
+    public long getAllocatedMemory() {
+        return allocated.get();
+    }
+
+    @Override
+    public long getLimit() {
+        return limit;
+    }
+
+    /**
+     * Get the number of bytes this allocator may still hand out before hitting its own limit. The
+     * parents may run out earlier.
+     */
+    @Override
+    public long getHeadroom() {
+        return Math.max(0, limit - allocated.get());
+    }
+
+    @Override
+    public long getPeakMemory() {
+        return peakAllocated.get();
+    }
+
+    @Override
+    public void resetPeakMemory() {
+        peakAllocated.set(allocated.get());
+    }
+
+    @Override
+    public long getAllocationCount() {
+        return allocationCount.sum();
+    }
+
+    @Override
+    public long getFreeCount() {
+        return freeCount.sum();
+    }
+
+    @Override
+    public long getBytesAllocated() {
+        return bytesAllocated.sum();
+    }
+
+    @Override
+    public long[] getSizeHistogram() {
+        long[] counts = new long[sizeHistogram.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = sizeHistogram[i].sum();
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getChildUsage() {
+        Map<String, Long> usage = new TreeMap<>();
+        for (BaseAllocator child : children) {
+            usage.merge(child.name, child.getAllocatedMemory(), Long::sum);
+        }
+        return usage;
+    }
+
+    @Override
+    public Map<String, Long> getOwnerUsage() {
+        Map<String, Long> usage = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : ownerUsage.entrySet()) {
+            long bytes = entry.getValue().sum();
+            if (bytes != 0) {
+                usage.put(entry.getKey(), bytes);
+            }
+        }
+        return usage;
+    }
+
+    /**
+     * Read the counters of this allocator and, recursively, of its open children.
+     */
+    public AllocatorSnapshot snapshot() {
+        List<AllocatorSnapshot> childSnapshots = new ArrayList<>();
+        for (BaseAllocator child : children) {
+            childSnapshots.add(child.snapshot());
+        }
+        return new AllocatorSnapshot(name, getAllocatedMemory(), getPeakMemory(), limit, getAllocationCount(),
+                getFreeCount(), getBytesAllocated(), getSizeHistogram(), getOwnerUsage(), childSnapshots);
+    }
+
+    /**
+     * Publish this allocator's counters on the platform MBean server, under the domain
+     * {@value #MBEAN_DOMAIN} and a name made of the allocator path from the root. The MBean is
+     * unregistered when the allocator is closed.
+     *
+     * @return the name the MBean was registered under
+     * @throws IllegalStateException if the MBean cannot be registered, e.g. because the name is taken
+     */
+    public synchronized ObjectName registerMBean() {
+        ensureOpen();
+        if (mbeanName != null) {
+            return mbeanName;
+        }
+        try {
+            ObjectName objectName = new ObjectName(MBEAN_DOMAIN + ":type=Allocator,name=" + ObjectName.quote(path()));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            mbeanName = objectName;
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register MBean for allocator '" + name + "'", e);
+        }
+    }
+
+    /**
+     * Remove this allocator's MBean, if registered.
+     */
+    public synchronized void unregisterMBean() {
+        if (mbeanName == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(mbeanName)) {
+                server.unregisterMBean(mbeanName);
+            }
+        } catch (JMException e) {
+            // Already gone; nothing left to clean up
+        }
+        mbeanName = null;
+    }
+
+    /**
+     * Close this allocator and its children. Buffers still outstanding at this point are leaks and are
+     * reported by throwing, after the allocator has been closed.
+     *
+     * @throws IllegalStateException if this allocator or one of its children still has memory allocated
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        IllegalStateException childLeak = null;
+        for (BaseAllocator child : children) {
+            try {
+                child.close();
+            } catch (IllegalStateException e) {
+                if (childLeak == null) {
+                    childLeak = e;
+                } else {
+                    childLeak.addSuppressed(e);
+                }
+            }
+        }
+        if (parent != null) {
+            parent.children.remove(this);
+            parent.release(reservation);
+        }
+        unregisterMBean();
+
+        long leaked = allocated.get();
+        if (leaked > 0 || childLeak != null) {
+            IllegalStateException leak = new IllegalStateException(leakReport(leaked));
+            if (childLeak != null) {
+                leak.addSuppressed(childLeak);
+            }
+            throw leak;
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Tell whether this allocator records outstanding buffers.
+     */
+    public boolean isDebug() {
+        return debug;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[name=" + name + ", allocated=" + allocated.get() + ", limit=" + limit + "]";
+    }
+
+    /**
+     * Get the number of bytes to set aside for a request of {@code size} bytes. Only called on the
+     * root allocator.
+     */
+    protected long allocationSize(long size) {
+        return size;
+    }
+
+    /**
+     * Obtain {@code allocationSize} bytes of zeroed memory for a buffer of {@code size} bytes. Only
+     * called on the root allocator.
+     */
+    protected MemoryChunk allocateMemory(long size, long allocationSize) {
+        return MemoryChunk.allocate(allocationSize);
+    }
+
+    /**
+     * Take back memory obtained from {@link #allocateMemory(long, long)}. Only called on the root
+     * allocator.
+     */
+    protected void releaseMemory(MemoryChunk memory) {
+        memory.free();
+    }
+
+    private void reserve(long size) {
+        long current;
+        long newAllocated;
+        do {
+            current = allocated.get();
+            newAllocated = current + size;
+            if (newAllocated > limit) {
+                throw new OutOfMemoryException("Unable to allocate " + size + " bytes in allocator '" + name
+                        + "'. Current allocation: " + current + ", Limit: " + limit);
+            }
+        } while (!allocated.compareAndSet(current, newAllocated));
+
+        long fromParent = Math.min(size, newAllocated - reservation);
+        if (parent != null && fromParent > 0) {
+            try {
+                parent.reserve(fromParent);
+            } catch (OutOfMemoryException e) {
+                // The parents hold nothing for this request, but concurrent reservations and releases may have
+                // moved the share of this allocator above its reservation, so undo the charge the way release
+                // does and settle the difference with the parent
+                long previous = allocated.getAndAdd(-size);
+                long toParent = Math.max(0, Math.min(size, previous - reservation));
+                if (toParent > fromParent) {
+                    parent.release(toParent - fromParent);
+                } else if (toParent < fromParent) {
+                    parent.forceReserve(fromParent - toParent);
+                }
+                throw e;
+            }
+        }
+        // Only reservations that succeeded all the way up count towards the peak
+        updatePeak(newAllocated);
+    }
+
+    /**
+     * Charge memory without checking the limit. Only used to hand back to a parent what a concurrent
+     * release already returned on behalf of a reservation that was then refused.
+     */
+    private void forceReserve(long size) {
+        long newAllocated = allocated.addAndGet(size);
+        long fromParent = Math.min(size, newAllocated - reservation);
+        if (parent != null && fromParent > 0) {
+            parent.forceReserve(fromParent);
+        }
+    }
+
+    private void release(long size) {
+        long previous = allocated.getAndAdd(-size);
+        long toParent = Math.min(size, previous - reservation);
+        if (parent != null && toParent > 0) {
+            parent.release(toParent);
+        }
+    }
+
+    private void updatePeak(long newAllocated) {
+        long peak;
+        while (newAllocated > (peak = peakAllocated.get())) {
+            if (peakAllocated.compareAndSet(peak, newAllocated)) {
+                return;
+            }
+        }
+    }
+
+    private void addOwnerUsage(String owner, long bytes) {
+        if (owner != null && bytes != 0) {
+            ownerUsage.computeIfAbsent(owner, key -> new LongAdder()).add(bytes);
+        }
+    }
+
+    private String path() {
+        return parent == null ? name : parent.path() + "/" + name;
+    }
+
+    private SwordBuf rewrap(SwordBuf detached, MemoryChunk memory, long size) {
+        SwordBuf buffer = new SwordBuf(this, memory, size, detached.getOwner());
+        if (debug) {
+            AllocationRecord record = outstanding.remove(detached);
+            if (record != null) {
+                record.releasedAt = new Throwable("Reallocated on thread " + Thread.currentThread().getName());
+                released.put(detached, record);
+            }
+            outstanding.put(buffer, new AllocationRecord(size, record == null ? null : record.owner));
+        }
+        return buffer;
+    }
+
+    /**
+     * Build the exception for touching a buffer whose memory was already handed back. In debug mode the
+     * exception's cause carries the stack that released it.
+     */
+    IllegalStateException releasedBufferException(SwordBuf buffer, String message) {
+        IllegalStateException e = new IllegalStateException(message);
+        if (debug) {
+            AllocationRecord record = released.get(buffer);
+            if (record != null) {
+                e.initCause(record.releasedAt);
+            }
+        }
+        return e;
+    }
+
+    private String leakReport(long leaked) {
+        StringBuilder report = new StringBuilder("Allocator '").append(name).append("' closed with ")
+                .append(leaked).append(" bytes outstanding");
+        if (debug) {
+            for (AllocationRecord record : outstanding.values()) {
+                report.append(System.lineSeparator()).append("  ").append(record.allocatedAt.getMessage());
+                for (StackTraceElement element : record.allocatedAt.getStackTrace()) {
+                    report.append(System.lineSeparator()).append("    at ").append(element);
+                }
+            }
+        } else {
+            report.append(" (run with -Dsword.memory.debug=true for allocation stacks)");
+        }
+        return report.toString();
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Allocator '" + name + "' is closed");
+        }
+    }
+
+    private static final class AllocationRecord {
+        private final String owner;
+        private final Throwable allocatedAt;
+        private volatile Throwable releasedAt;
+
+        AllocationRecord(long size, String owner) {
+            this.owner = owner;
+            this.allocatedAt = new Throwable(size + " bytes" + (owner == null ? "" : " owned by '" + owner + "'")
+                    + " allocated on thread " + Thread.currentThread().getName());
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package sword.dev;
+
+import sword.dev.exceptions.OutOfMemoryException;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The buffer layout shared by vectors whose values all take the same number of bytes: a data buffer
+ * holding value {@code i} at byte offset {@code i * typeWidth}, and for nullable vectors a validity
+ * bitmap with one bit per value. Subclasses add the typed accessors.
+ *
+ * <p>The null count is cached once counted and forgotten on the next write that can change validity.
+ * While it is known to be zero, {@link #isNull(int)} answers without reading the bitmap, and loops can
+ * check {@link #isAllValid()} once to skip per-row null checks altogether.
+ */
+public abstract class BaseFixedWidthVector extends BaseValueVectorV2 implements FieldVectorV2 {
+    protected final int typeWidth;
+    protected SwordBuf dataBuffer;
+    protected SwordBuf validityBuffer;
+    protected int valueCount;
+    protected boolean nullable;
+    // Nulls among the first valueCount values, or UNKNOWN_NULL_COUNT until counted again
+    private int nullCount;
+
+    private static final int UNKNOWN_NULL_COUNT = -1;
+
+    protected BaseFixedWidthVector(String name, BufferAllocator allocator, int typeWidth) {
+        super(name, allocator);
+        this.typeWidth = typeWidth;
+        this.valueCount = 0;
+        this.nullable = false;
+        this.nullCount = 0;
+    }
+
+    /**
+     * Get the number of bytes each value takes in the data buffer.
+     */
+    public int getTypeWidth() {
+        return typeWidth;
+    }
+
+    @Override
+    public void allocateNew() throws OutOfMemoryException {
+        releaseBuffer(dataBuffer);
+        releaseBuffer(validityBuffer);
+        dataBuffer = null;
+        validityBuffer = null;
+        dataBuffer = allocateBuffer((long) initialValueCapacity * typeWidth);
+        if (nullable) {
+            validityBuffer = allocateBuffer(getValidityBufferSizeFromCount(initialValueCapacity));
+        }
+        valueCount = 0;
+        nullCount = 0;
+    }
+
+    @Override
+    public boolean allocateNewSafe() {
+        try {
+            allocateNew();
+            return true;
+        } catch (OutOfMemoryException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void reAlloc() {
+        int capacity = getValueCapacity();
+        resize(nextValueCapacity(capacity, (long) capacity + 1));
+    }
+
+    /**
+     * Grow the vector, as the growth policy directs, until at least {@code minCapacity} values fit.
+     */
+    public void ensureCapacity(int minCapacity) {
+        int capacity = getValueCapacity();
+        if (minCapacity > capacity) {
+            resize(nextValueCapacity(capacity, minCapacity));
+        }
+    }
+
+    @Override
+    public void shrinkToFit() {
+        if (dataBuffer != null && valueCount < getValueCapacity()) {
+            resize(valueCount);
+        }
+    }
+
+    private void resize(int valueCapacity) {
+        dataBuffer = reallocateBuffer(dataBuffer, (long) valueCapacity * typeWidth);
+        if (nullable) {
+            validityBuffer = reallocateBuffer(validityBuffer, getValidityBufferSizeFromCount(valueCapacity));
+        }
+    }
+
+    @Override
+    public int getValueCapacity() {
+        if (dataBuffer == null) {
+            return 0;
+        }
+        return (int) Math.min(dataBuffer.capacity() / typeWidth, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isNull(int index) {
+        if (!nullable || nullCount == 0) return false;
+        return !BitVectorHelper.getBit(validityBuffer, index);
+    }
+
+    /**
+     * Whether no value is null, counting the nulls if they aren't already known.
+     */
+    public boolean isAllValid() {
+        return getNullCount() == 0;
+    }
+
+    @Override
+    public int getValueCount() {
+        return valueCount;
+    }
+
+    @Override
+    public void setValueCount(int valueCount) {
+        if (valueCount != this.valueCount) {
+            this.valueCount = valueCount;
+            nullCount = UNKNOWN_NULL_COUNT;
+        }
+    }
+
+    @Override
+    public void clear() {
+        valueCount = 0;
+        nullCount = 0;
+        releaseBuffer(dataBuffer);
+        releaseBuffer(validityBuffer);
+        dataBuffer = null;
+        validityBuffer = null;
+    }
+
+    @Override
+    public void copyFrom(int fromIndex, int thisIndex, ValueVectorV2 from) {
+        if (from.getClass() != getClass()) {
+            throw new IllegalArgumentException("Cannot copy from " + from.getClass().getSimpleName());
+        }
+        BaseFixedWidthVector fromVector = (BaseFixedWidthVector) from;
+        if (fromVector.isNull(fromIndex)) {
+            setNull(thisIndex);
+            return;
+        }
+        dataBuffer.setBytes((long) thisIndex * typeWidth, fromVector.dataBuffer, (long) fromIndex * typeWidth, typeWidth);
+        markSet(thisIndex);
+    }
+
+    @Override
+    public void copyFromSafe(int fromIndex, int thisIndex, ValueVectorV2 from) {
+        ensureCapacity(thisIndex + 1);
+        copyFrom(fromIndex, thisIndex, from);
+    }
+
+    @Override
+    public void transferTo(FieldVectorV2 target) {
+        if (target.getClass() != getClass()) {
+            throw new IllegalArgumentException("Cannot transfer to " + target.getClass().getSimpleName());
+        }
+        BaseFixedWidthVector targetVector = (BaseFixedWidthVector) target;
+        targetVector.clear();
+        targetVector.dataBuffer = this.dataBuffer;
+        targetVector.validityBuffer = this.validityBuffer;
+        targetVector.valueCount = this.valueCount;
+        targetVector.nullable = this.nullable;
+        targetVector.nullCount = this.nullCount;
+        this.dataBuffer = null;
+        this.validityBuffer = null;
+        this.valueCount = 0;
+        this.nullCount = 0;
+    }
+
+    @Override
+    public void copySubset(int fromIndex, int toIndex, FieldVectorV2 target, int targetIndex) {
+        if (target.getClass() != getClass()) {
+            throw new IllegalArgumentException("Cannot copy subset to " + target.getClass().getSimpleName());
+        }
+        BaseFixedWidthVector targetVector = (BaseFixedWidthVector) target;
+        int length = toIndex - fromIndex;
+        targetVector.dataBuffer.setBytes((long) targetIndex * typeWidth, this.dataBuffer,
+                (long) fromIndex * typeWidth, (long) length * typeWidth);
+        if (nullable && targetVector.nullable) {
+            BitVectorHelper.copyBits(this.validityBuffer, fromIndex, targetVector.validityBuffer, targetIndex, length);
+        } else if (targetVector.nullable) {
+            BitVectorHelper.setRange(targetVector.validityBuffer, targetIndex, length);
+        }
+        targetVector.valueCount = Math.max(targetVector.valueCount, targetIndex + length);
+        targetVector.nullCount = UNKNOWN_NULL_COUNT;
+    }
+
+    @Override
+    public FieldVectorV2 slice(int start, int end) {
+        BaseFixedWidthVector sliced = (BaseFixedWidthVector) getNewVector();
+        sliced.setName(getName() + "[" + start + "," + end + "]");
+        int length = end - start;
+        sliced.dataBuffer = dataBuffer.slice((long) start * typeWidth, (long) length * typeWidth);
+        sliced.nullable = nullable;
+        if (nullable) {
+            if (start % 8 == 0) {
+                sliced.validityBuffer = validityBuffer.slice(start / 8, getValidityBufferSizeFromCount(length));
+            } else {
+                // Validity bits only line up with a shared byte when the slice starts on a byte boundary
+                sliced.validityBuffer = allocateBuffer(getValidityBufferSizeFromCount(length));
+                BitVectorHelper.copyBits(validityBuffer, start, sliced.validityBuffer, 0, length);
+            }
+        }
+        sliced.valueCount = length;
+        sliced.nullCount = UNKNOWN_NULL_COUNT;
+        return sliced;
+    }
+
+    @Override
+    public boolean isNullable() {
+        return nullable;
+    }
+
+    @Override
+    public void setNullable(boolean nullable) {
+        this.nullable = nullable;
+        if (nullable && validityBuffer == null) {
+            validityBuffer = allocateBuffer(getValidityBufferSizeFromCount(getValueCapacity()));
+        }
+        nullCount = UNKNOWN_NULL_COUNT;
+    }
+
+    @Override
+    public int getNullCount() {
+        if (!nullable) return 0;
+        if (nullCount == UNKNOWN_NULL_COUNT) {
+            nullCount = BitVectorHelper.getNullCount(validityBuffer, valueCount);
+        }
+        return nullCount;
+    }
+
+    @Override
+    public void setSafe(int index, Object value) {
+        ensureCapacity(index + 1);
+        set(index, value);
+    }
+
+    public void setNull(int index) {
+        if (!nullable) throw new UnsupportedOperationException("This vector is not nullable");
+        BitVectorHelper.unsetBit(validityBuffer, index);
+        valueCount = Math.max(valueCount, index + 1);
+        nullCount = UNKNOWN_NULL_COUNT;
+    }
+
+    /**
+     * Mark a value as written: set its validity bit and extend the value count to cover it.
+     */
+    protected final void markSet(int index) {
+        if (nullable) {
+            BitVectorHelper.setBit(validityBuffer, index);
+            // Still no nulls only if no unwritten values were skipped over
+            if (nullCount != 0 || index > valueCount) {
+                nullCount = UNKNOWN_NULL_COUNT;
+            }
+        }
+        valueCount = Math.max(valueCount, index + 1);
+    }
+
+    /**
+     * Mark {@code count} values starting at {@code index} as written, setting their validity bits in
+     * bulk.
+     */
+    protected final void markSetRange(int index, int count) {
+        if (nullable) {
+            BitVectorHelper.setRange(validityBuffer, index, count);
+            if (nullCount != 0 || index > valueCount) {
+                nullCount = UNKNOWN_NULL_COUNT;
+            }
+        }
+        valueCount = Math.max(valueCount, index + count);
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        return new Iterator<Object>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < valueCount;
+            }
+
+            @Override
+            public Object next() {
+                if (index >= valueCount) {
+                    throw new NoSuchElementException();
+                }
+                return getObject(index++);
+            }
+        };
+    }
+
+    @Override
+    public long getBufferSize() {
+        if (dataBuffer == null) {
+            return 0;
+        }
+        return dataBuffer.capacity() + (nullable ? validityBuffer.capacity() : 0);
+    }
+
+    @Override
+    public long getBufferSizeFor(int valueCount) {
+        return (long) valueCount * typeWidth + (nullable ? getValidityBufferSizeFromCount(valueCount) : 0);
+    }
+
+    @Override
+    public SwordBuf[] getBuffers(boolean clear) {
+        SwordBuf[] buffers = nullable ? new SwordBuf[2] : new SwordBuf[1];
+        buffers[0] = dataBuffer;
+        if (nullable) {
+            buffers[1] = validityBuffer;
+        }
+        if (clear) {
+            // The caller takes over this vector's references
+            for (SwordBuf buffer : buffers) {
+                buffer.retain();
+            }
+            clear();
+        }
+        return buffers;
+    }
+
+    @Override
+    public SwordBuf getValidityBuffer() {
+        return validityBuffer;
+    }
+
+    @Override
+    public SwordBuf getDataBuffer() {
+        return dataBuffer;
+    }
+
+    @Override
+    public SwordBuf getOffsetBuffer() {
+        return null; // Fixed-width vectors don't use an offset buffer
+    }
+}
@@ -9,12 +9,16 @@ import java.util.Objects;
 
 public abstract class BaseValueVectorV2 implements ValueVectorV2 {
 
-    protected static final int INITIAL_VALUE_ALLOCATION = 100000000; // Simplified initial allocation
+    // Vectors grow on safe writes, so the default only has to cover a typical batch
+    protected static final int INITIAL_VALUE_ALLOCATION = 4096;
 
     protected final BufferAllocator allocator;
     protected String name;
+    protected int initialValueCapacity = INITIAL_VALUE_ALLOCATION;
+    protected GrowthPolicy growthPolicy = GrowthPolicy.doubling();
 
     protected BaseValueVectorV2(String name, BufferAllocator allocator) {
+        this.name = name;
         this.allocator = Objects.requireNonNull(allocator, "allocator cannot be null");
     }
 
@@ -57,15 +61,52 @@ public abstract class BaseValueVectorV2 implements ValueVectorV2 {
         }
     }
 
+    public GrowthPolicy getGrowthPolicy() {
+        return growthPolicy;
+    }
+
+    /**
+     * Set how far the vector grows when a safe write runs past its capacity.
+     */
+    public void setGrowthPolicy(GrowthPolicy growthPolicy) {
+        this.growthPolicy = Objects.requireNonNull(growthPolicy, "growthPolicy cannot be null");
+    }
+
+    /**
+     * Get the capacity to grow to so that at least {@code minCapacity} values fit, as chosen by the
+     * growth policy and bounded by the largest int index.
+     */
+    protected int nextValueCapacity(int currentCapacity, long minCapacity) {
+        if (minCapacity > Integer.MAX_VALUE) {
+            throw new OutOfMemoryException("Vector '" + name + "' cannot hold more than " + Integer.MAX_VALUE + " values");
+        }
+        long capacity = growthPolicy.nextCapacity(currentCapacity, minCapacity);
+        return (int) Math.min(Math.max(capacity, minCapacity), Integer.MAX_VALUE);
+    }
+
+    protected SwordBuf allocateBuffer(long size) {
+        return allocator.allocate(size, name);
+    }
+
+    /**
+     * Resize a buffer, in place where the allocator can, keeping its contents. A null buffer is
+     * allocated fresh.
+     */
+    protected SwordBuf reallocateBuffer(SwordBuf buffer, long size) {
+        if (buffer == null) {
+            return allocateBuffer(size);
+        }
+        return allocator.reallocate(buffer, size);
+    }
+
     protected void releaseBuffer(SwordBuf buffer) {
         if (buffer != null) {
             buffer.close();
-            allocator.free(buffer);
         }
     }
 
     protected static int getValidityBufferSizeFromCount(final int valueCount) {
-        return (valueCount + 7) / 8;
+        return (int) (((long) valueCount + 7) / 8);
     }
 
     protected long computeCombinedBufferSize(int valueCount, int typeWidth) {
@@ -94,13 +135,15 @@ public abstract class BaseValueVectorV2 implements ValueVectorV2 {
 
     protected DataAndValidityBuffers allocFixedDataAndValidityBufs(int valueCount, int typeWidth) {
         long bufferSize = computeCombinedBufferSize(valueCount, typeWidth);
-        SwordBuf combinedBuffer = allocator.allocate((int)bufferSize);
+        SwordBuf combinedBuffer = allocateBuffer(bufferSize);
 
         int validityBufferSize = getValidityBufferSizeFromCount(valueCount);
-        int dataBufferSize = valueCount * typeWidth;
+        long dataBufferSize = (long) valueCount * typeWidth;
 
         SwordBuf validityBuf = combinedBuffer.slice(0, validityBufferSize);
         SwordBuf dataBuf = combinedBuffer.slice(validityBufferSize, dataBufferSize);
+        // The slices now hold the memory between them
+        combinedBuffer.close();
 
         return new DataAndValidityBuffers(dataBuf, validityBuf);
     }
@@ -123,17 +166,25 @@ public abstract class BaseValueVectorV2 implements ValueVectorV2 {
 
     @Override
     public void setInitialCapacity(int numRecords) {
+        if (numRecords < 0) {
+            throw new IllegalArgumentException("Initial capacity cannot be negative: " + numRecords);
+        }
+        this.initialValueCapacity = numRecords;
+    }
+
+    @Override
+    public void shrinkToFit() {
         // To be implemented by subclasses
     }
 
     @Override
-    public int getBufferSize() {
+    public long getBufferSize() {
         // To be implemented by subclasses
         return 0;
     }
 
     @Override
-    public int getBufferSizeFor(int valueCount) {
+    public long getBufferSizeFor(int valueCount) {
         // To be implemented by subclasses
         return 0;
     }
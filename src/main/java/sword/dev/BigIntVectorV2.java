@@ -0,0 +1,67 @@
+package sword.dev;
+
+import sword.dev.type.SwordType;
+
+public class BigIntVectorV2 extends BaseFixedWidthVector {
+    private final SwordType.Int type;
+
+    public BigIntVectorV2(String name, BufferAllocator allocator) {
+        super(name, allocator, 8);
+        this.type = new SwordType.Int(64);
+    }
+
+    @Override
+    public SwordType getType() {
+        return type;
+    }
+
+    @Override
+    public Object getObject(int index) {
+        return isNull(index) ? null : get(index);
+    }
+
+    @Override
+    public FieldVectorV2 getNewVector() {
+        return new BigIntVectorV2(getName(), allocator);
+    }
+
+    @Override
+    public void set(int index, Object value) {
+        if (value == null) {
+            setNull(index);
+        } else if (value instanceof Long) {
+            set(index, (long) value);
+        } else {
+            throw new IllegalArgumentException("Value must be a Long or null");
+        }
+    }
+
+    /**
+     * Copy an array of values into this vector starting at {@code index}, as one bulk memory copy.
+     */
+    public void setSimd(int index, long[] values) {
+        dataBuffer.setLongs((long) index * 8, values, 0, values.length);
+        markSetRange(index, values.length);
+    }
+
+    /**
+     * Copy {@code values.length} values starting at {@code index} into an array, as one bulk memory copy.
+     */
+    public void getSimd(int index, long[] values) {
+        dataBuffer.getLongs((long) index * 8, values, 0, values.length);
+    }
+
+    public void set(int index, long value) {
+        dataBuffer.setLong((long) index << 3, value);
+        markSet(index);
+    }
+
+    public void setSafe(int index, long value) {
+        ensureCapacity(index + 1);
+        set(index, value);
+    }
+
+    public long get(int index) {
+        return dataBuffer.getLong((long) index << 3);
+    }
+}
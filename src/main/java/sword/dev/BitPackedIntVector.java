@@ -0,0 +1,513 @@
+package sword.dev;
+
+import sword.dev.exceptions.OutOfMemoryException;
+import sword.dev.type.SwordType;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A read-only int column compressed with frame of reference and bit packing. Rows are split into
+ * blocks of {@value #BLOCK_SIZE}; each block stores its smallest value as a reference and every row
+ * as its distance from it, packed into just enough bits for the block's range. A column of ids within
+ * a partition or small counters takes a few bits per row instead of 32, so a scan reads a fraction of
+ * the memory.
+ *
+ * <p>Each block has a 16 byte header: the reference, the bit width and the byte offset of its packed
+ * words. Whole blocks are unpacked with the Vector API when {@link VectorSupport#isAvailable() it is
+ * available}, one value at a time otherwise; {@link #get(int)} unpacks a single row. Nulls keep a
+ * validity bitmap of their own and are packed as the block's reference.
+ *
+ * <p>Vectors are built with {@link #encode(IntVectorV2, BufferAllocator)}; there is no writing to them
+ * afterwards.
+ */
+public class BitPackedIntVector extends BaseValueVectorV2 implements FieldVectorV2 {
+    public static final int BLOCK_SIZE = BitPacking.BLOCK_SIZE;
+
+    private static final int HEADER_SIZE = 16;
+    private static final boolean SIMD = VectorSupport.isAvailable();
+
+    private final SwordType.Int type;
+    private SwordBuf headerBuffer;
+    private SwordBuf packedBuffer;
+    private SwordBuf validityBuffer;
+    private int blockCount;
+    private int valueCount;
+    private boolean nullable;
+
+    public BitPackedIntVector(String name, BufferAllocator allocator) {
+        super(name, allocator);
+        this.type = new SwordType.Int(32);
+    }
+
+    /**
+     * Compress an int vector, allocating the packed buffers from {@code allocator}.
+     */
+    public static BitPackedIntVector encode(IntVectorV2 vector, BufferAllocator allocator) {
+        BitPackedIntVector encoded = new BitPackedIntVector(vector.getName(), allocator);
+        try {
+            encoded.pack(vector);
+        } catch (RuntimeException e) {
+            encoded.close();
+            throw e;
+        }
+        return encoded;
+    }
+
+    public static BitPackedIntVector encode(IntVectorV2 vector) {
+        return encode(vector, vector.getAllocator());
+    }
+
+    private void pack(IntVectorV2 vector) {
+        int count = vector.getValueCount();
+        int blocks = (int) (((long) count + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        boolean hasNulls = vector.isNullable();
+        int[] values = new int[BLOCK_SIZE];
+        int[] references = new int[blocks];
+        int[] bitWidths = new int[blocks];
+
+        // First pass sizes every block so the packed words can be allocated at once
+        long packedSize = 0;
+        for (int block = 0; block < blocks; block++) {
+            int length = readBlock(vector, block, values);
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int i = 0; i < length; i++) {
+                if (!hasNulls || !vector.isNull(block * BLOCK_SIZE + i)) {
+                    min = Math.min(min, values[i]);
+                    max = Math.max(max, values[i]);
+                }
+            }
+            if (min > max) {
+                // Only nulls
+                min = max = 0;
+            }
+            references[block] = min;
+            // The difference is taken unsigned, so a block spanning the whole int range gets 32 bits
+            bitWidths[block] = 32 - Integer.numberOfLeadingZeros(max - min);
+            packedSize += (long) BitPacking.wordsPerBlock(bitWidths[block]) * 4;
+        }
+
+        headerBuffer = allocateBuffer((long) blocks * HEADER_SIZE);
+        packedBuffer = allocateBuffer(packedSize);
+        if (hasNulls) {
+            validityBuffer = allocateBuffer(getValidityBufferSizeFromCount(count));
+            BitVectorHelper.copyBits(vector.getValidityBuffer(), 0, validityBuffer, 0, count);
+        }
+
+        int[] packed = new int[BitPacking.wordsPerBlock(32)];
+        long offset = 0;
+        for (int block = 0; block < blocks; block++) {
+            int length = readBlock(vector, block, values);
+            int reference = references[block];
+            for (int i = 0; i < BLOCK_SIZE; i++) {
+                // Nulls and the padding after the last row pack as zero bits
+                if (i >= length || (hasNulls && vector.isNull(block * BLOCK_SIZE + i))) {
+                    values[i] = reference;
+                }
+            }
+            int bitWidth = bitWidths[block];
+            int wordCount = BitPacking.wordsPerBlock(bitWidth);
+            BitPacking.pack(values, reference, bitWidth, packed);
+            packedBuffer.setInts(offset, packed, 0, wordCount);
+            long header = (long) block * HEADER_SIZE;
+            headerBuffer.setInt(header, reference);
+            headerBuffer.setInt(header + 4, bitWidth);
+            headerBuffer.setLong(header + 8, offset);
+            offset += (long) wordCount * 4;
+        }
+        blockCount = blocks;
+        valueCount = count;
+        nullable = hasNulls;
+    }
+
+    private static int readBlock(IntVectorV2 vector, int block, int[] values) {
+        int start = block * BLOCK_SIZE;
+        int length = Math.min(BLOCK_SIZE, vector.getValueCount() - start);
+        vector.getDataBuffer().getInts((long) start * 4, values, 0, length);
+        return length;
+    }
+
+    @Override
+    public SwordType getType() {
+        return type;
+    }
+
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * Get the value every row of a block is stored relative to.
+     */
+    public int getReference(int block) {
+        return headerBuffer.getInt((long) block * HEADER_SIZE);
+    }
+
+    /**
+     * Get the number of bits each row of a block is packed into, from 0 when all its rows are equal up
+     * to 32.
+     */
+    public int getBitWidth(int block) {
+        return headerBuffer.getInt((long) block * HEADER_SIZE + 4);
+    }
+
+    private long getPackedOffset(int block) {
+        return headerBuffer.getLong((long) block * HEADER_SIZE + 8);
+    }
+
+    /**
+     * Unpack a single row. Undefined for nulls.
+     */
+    public int get(int index) {
+        if (index < 0 || index >= valueCount) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + valueCount);
+        }
+        int block = index / BLOCK_SIZE;
+        return BitPacking.unpack(packedBuffer, getPackedOffset(block), getReference(block), getBitWidth(block),
+                index % BLOCK_SIZE);
+    }
+
+    @Override
+    public boolean isNull(int index) {
+        if (!nullable) return false;
+        return !BitVectorHelper.getBit(validityBuffer, index);
+    }
+
+    @Override
+    public Object getObject(int index) {
+        return isNull(index) ? null : get(index);
+    }
+
+    /**
+     * Unpack all {@value #BLOCK_SIZE} rows of a block into {@code dst}, which must have room for them
+     * even when the block is the last, partly filled one. Rows past the end read as the reference.
+     */
+    public void decodeBlock(int block, int[] dst, int dstIndex) {
+        decodeBlock(block, dst, dstIndex, newWords());
+    }
+
+    // Readers share the vector, so each brings its own array for the packed words of a block
+    private static int[] newWords() {
+        return new int[BitPacking.wordsPerBlock(32)];
+    }
+
+    private void decodeBlock(int block, int[] dst, int dstIndex, int[] words) {
+        if (block < 0 || block >= blockCount) {
+            throw new IndexOutOfBoundsException("Block " + block + " out of bounds for " + blockCount + " blocks");
+        }
+        int bitWidth = getBitWidth(block);
+        packedBuffer.getInts(getPackedOffset(block), words, 0, BitPacking.wordsPerBlock(bitWidth));
+        if (SIMD) {
+            SimdBitUnpacker.unpack(words, getReference(block), bitWidth, dst, dstIndex);
+        } else {
+            BitPacking.unpackScalar(words, getReference(block), bitWidth, dst, dstIndex);
+        }
+    }
+
+    /**
+     * Unpack rows {@code start} up to {@code start + length} into {@code dst}. Whole blocks are unpacked
+     * straight into the array, so a full decode costs no copying beyond the two partial ends.
+     */
+    public void decode(int start, int length, int[] dst, int dstIndex) {
+        decode(start, length, dst, dstIndex, newWords());
+    }
+
+    private void decode(int start, int length, int[] dst, int dstIndex, int[] words) {
+        if (start < 0 || length < 0 || start + length > valueCount) {
+            throw new IndexOutOfBoundsException("Range [" + start + ", " + (start + length) + ") out of bounds for length " + valueCount);
+        }
+        int[] scratch = null;
+        int row = start;
+        int end = start + length;
+        while (row < end) {
+            int block = row / BLOCK_SIZE;
+            int blockStart = block * BLOCK_SIZE;
+            int take = Math.min(end, blockStart + BLOCK_SIZE) - row;
+            int target = dstIndex + (row - start);
+            if (row == blockStart && take == BLOCK_SIZE) {
+                decodeBlock(block, dst, target, words);
+            } else {
+                if (scratch == null) {
+                    scratch = new int[BLOCK_SIZE];
+                }
+                decodeBlock(block, scratch, 0, words);
+                System.arraycopy(scratch, row - blockStart, dst, target, take);
+            }
+            row += take;
+        }
+    }
+
+    /**
+     * Unpack every row into {@code dst}, which must hold at least {@link #getValueCount()} values.
+     */
+    public void decode(int[] dst) {
+        decode(0, valueCount, dst, 0);
+    }
+
+    /**
+     * Unpack the whole vector into a plain int vector, allocated from this vector's allocator.
+     */
+    public IntVectorV2 decode() {
+        return decodeRange(0, valueCount, getName());
+    }
+
+    private IntVectorV2 decodeRange(int start, int end, String name) {
+        int length = end - start;
+        IntVectorV2 decoded = new IntVectorV2(name, allocator);
+        decoded.setInitialCapacity(length);
+        decoded.allocateNew();
+        try {
+            int[] values = new int[BLOCK_SIZE];
+            int[] words = newWords();
+            for (int row = start; row < end; row += BLOCK_SIZE) {
+                int take = Math.min(BLOCK_SIZE, end - row);
+                decode(row, take, values, 0, words);
+                decoded.getDataBuffer().setInts((long) (row - start) * 4, values, 0, take);
+            }
+            decoded.setValueCount(length);
+            if (nullable) {
+                decoded.setNullable(true);
+                BitVectorHelper.copyBits(validityBuffer, start, decoded.getValidityBuffer(), 0, length);
+            }
+        } catch (RuntimeException e) {
+            decoded.close();
+            throw e;
+        }
+        return decoded;
+    }
+
+    @Override
+    public int getValueCount() {
+        return valueCount;
+    }
+
+    /**
+     * Shorten the vector to {@code valueCount} rows. Rows cannot be added.
+     */
+    @Override
+    public void setValueCount(int valueCount) {
+        if (valueCount < 0 || valueCount > this.valueCount) {
+            throw new UnsupportedOperationException("Bit-packed vectors cannot grow; encode a new one");
+        }
+        this.valueCount = valueCount;
+    }
+
+    /**
+     * Rows are only ever those the vector was encoded with.
+     */
+    @Override
+    public int getValueCapacity() {
+        return valueCount;
+    }
+
+    /**
+     * Release the packed rows, leaving an empty vector. There is nothing to allocate ahead of encoding.
+     */
+    @Override
+    public void allocateNew() throws OutOfMemoryException {
+        clear();
+    }
+
+    @Override
+    public boolean allocateNewSafe() {
+        clear();
+        return true;
+    }
+
+    @Override
+    public void reAlloc() {
+        throw new UnsupportedOperationException("Bit-packed vectors cannot grow; encode a new one");
+    }
+
+    @Override
+    public void clear() {
+        releaseBuffer(headerBuffer);
+        releaseBuffer(packedBuffer);
+        releaseBuffer(validityBuffer);
+        headerBuffer = null;
+        packedBuffer = null;
+        validityBuffer = null;
+        blockCount = 0;
+        valueCount = 0;
+    }
+
+    @Override
+    public void set(int index, Object value) {
+        throw new UnsupportedOperationException("Bit-packed vectors are read-only");
+    }
+
+    @Override
+    public void setSafe(int index, Object value) {
+        set(index, value);
+    }
+
+    @Override
+    public void copyFrom(int fromIndex, int thisIndex, ValueVectorV2 from) {
+        throw new UnsupportedOperationException("Bit-packed vectors are read-only");
+    }
+
+    @Override
+    public void copyFromSafe(int fromIndex, int thisIndex, ValueVectorV2 from) {
+        copyFrom(fromIndex, thisIndex, from);
+    }
+
+    @Override
+    public void copySubset(int fromIndex, int toIndex, FieldVectorV2 target, int targetIndex) {
+        throw new UnsupportedOperationException("Bit-packed vectors are read-only");
+    }
+
+    @Override
+    public FieldVectorV2 getNewVector() {
+        return new BitPackedIntVector(getName(), allocator);
+    }
+
+    @Override
+    public void transferTo(FieldVectorV2 target) {
+        if (!(target instanceof BitPackedIntVector)) {
+            throw new IllegalArgumentException("Cannot transfer to " + target.getClass().getSimpleName());
+        }
+        BitPackedIntVector targetVector = (BitPackedIntVector) target;
+        targetVector.clear();
+        targetVector.headerBuffer = headerBuffer;
+        targetVector.packedBuffer = packedBuffer;
+        targetVector.validityBuffer = validityBuffer;
+        targetVector.blockCount = blockCount;
+        targetVector.valueCount = valueCount;
+        targetVector.nullable = nullable;
+        headerBuffer = null;
+        packedBuffer = null;
+        validityBuffer = null;
+        blockCount = 0;
+        valueCount = 0;
+    }
+
+    /**
+     * Get rows {@code start} up to {@code end} as a new bit-packed vector. Blocks do not line up with an
+     * arbitrary start row, so the range is unpacked and packed again rather than shared.
+     */
+    @Override
+    public FieldVectorV2 slice(int start, int end) {
+        if (start < 0 || end > valueCount || start > end) {
+            throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") out of bounds for length " + valueCount);
+        }
+        try (IntVectorV2 range = decodeRange(start, end, getName() + "[" + start + "," + end + "]")) {
+            return encode(range, allocator);
+        }
+    }
+
+    @Override
+    public boolean isNullable() {
+        return nullable;
+    }
+
+    /**
+     * Whether rows can be null is fixed when the vector is encoded.
+     */
+    @Override
+    public void setNullable(boolean nullable) {
+        if (nullable != this.nullable && packedBuffer != null) {
+            throw new UnsupportedOperationException("Bit-packed vectors are read-only");
+        }
+        this.nullable = nullable;
+    }
+
+    @Override
+    public int getNullCount() {
+        if (!nullable) return 0;
+        return BitVectorHelper.getNullCount(validityBuffer, valueCount);
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        return new Iterator<Object>() {
+            private final int[] block = new int[BLOCK_SIZE];
+            private final int[] words = newWords();
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < valueCount;
+            }
+
+            @Override
+            public Object next() {
+                if (index >= valueCount) {
+                    throw new NoSuchElementException();
+                }
+                // Unpack a block at a time rather than each row on its own
+                if (index % BLOCK_SIZE == 0) {
+                    decodeBlock(index / BLOCK_SIZE, block, 0, words);
+                }
+                int row = index++;
+                return isNull(row) ? null : block[row % BLOCK_SIZE];
+            }
+        };
+    }
+
+    @Override
+    public long getBufferSize() {
+        if (packedBuffer == null) {
+            return 0;
+        }
+        return headerBuffer.capacity() + packedBuffer.capacity() + (nullable ? validityBuffer.capacity() : 0);
+    }
+
+    /**
+     * The size depends on the values, not just their number; this is the size of the blocks holding
+     * the first {@code valueCount} rows.
+     *
+     * @throws IllegalArgumentException if the vector holds fewer than {@code valueCount} rows
+     */
+    @Override
+    public long getBufferSizeFor(int valueCount) {
+        if (valueCount < 0 || valueCount > this.valueCount) {
+            throw new IllegalArgumentException("Cannot size " + valueCount + " rows of a vector holding " + this.valueCount);
+        }
+        int blocks = (int) (((long) valueCount + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        long size = (long) blocks * HEADER_SIZE + (nullable ? getValidityBufferSizeFromCount(valueCount) : 0);
+        for (int block = 0; block < blocks; block++) {
+            size += (long) BitPacking.wordsPerBlock(getBitWidth(block)) * 4;
+        }
+        return size;
+    }
+
+    @Override
+    public SwordBuf[] getBuffers(boolean clear) {
+        if (packedBuffer == null) {
+            return new SwordBuf[0];
+        }
+        SwordBuf[] buffers = nullable
+                ? new SwordBuf[]{headerBuffer, packedBuffer, validityBuffer}
+                : new SwordBuf[]{headerBuffer, packedBuffer};
+        if (clear) {
+            // The caller takes over this vector's references
+            for (SwordBuf buffer : buffers) {
+                buffer.retain();
+            }
+            clear();
+        }
+        return buffers;
+    }
+
+    @Override
+    public SwordBuf getValidityBuffer() {
+        return validityBuffer;
+    }
+
+    /**
+     * Get the buffer of packed words.
+     */
+    @Override
+    public SwordBuf getDataBuffer() {
+        return packedBuffer;
+    }
+
+    /**
+     * Get the buffer of block headers.
+     */
+    @Override
+    public SwordBuf getOffsetBuffer() {
+        return headerBuffer;
+    }
+}
@@ -0,0 +1,98 @@
+package sword.dev;
+
+/**
+ * Packs and unpacks blocks of {@value #BLOCK_SIZE} ints at a given bit width. Value {@code i} of a
+ * block goes to lane {@code i % LANES} as the {@code i / LANES}-th value of that lane, and each lane
+ * packs its values low bits first into its own words; word {@code w} of lane {@code l} is stored at
+ * {@code w * LANES + l}. All lanes therefore move in step, so a run of {@code LANES} words can be
+ * unpacked with whole-vector shifts. A block at bit width {@code b} takes {@code 32 * b} words.
+ */
+final class BitPacking {
+    static final int BLOCK_SIZE = 1024;
+    static final int LANES = 16;
+    static final int VALUES_PER_LANE = BLOCK_SIZE / LANES;
+
+    private BitPacking() {
+        // Utility class, no instances
+    }
+
+    static int wordsPerBlock(int bitWidth) {
+        return bitWidth * BLOCK_SIZE / 32;
+    }
+
+    /**
+     * Pack {@code values[i] - reference} for a whole block into {@code words}.
+     */
+    static void pack(int[] values, int reference, int bitWidth, int[] words) {
+        java.util.Arrays.fill(words, 0, wordsPerBlock(bitWidth), 0);
+        if (bitWidth == 0) {
+            return;
+        }
+        for (int lane = 0; lane < LANES; lane++) {
+            int bitPos = 0;
+            int word = 0;
+            for (int k = 0; k < VALUES_PER_LANE; k++) {
+                int delta = values[k * LANES + lane] - reference;
+                words[word * LANES + lane] |= delta << bitPos;
+                if (bitPos + bitWidth > 32) {
+                    words[(word + 1) * LANES + lane] |= delta >>> (32 - bitPos);
+                }
+                bitPos += bitWidth;
+                if (bitPos >= 32) {
+                    bitPos -= 32;
+                    word++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Unpack a whole block into {@code out} starting at {@code outIndex}, one value at a time.
+     */
+    static void unpackScalar(int[] words, int reference, int bitWidth, int[] out, int outIndex) {
+        if (bitWidth == 0) {
+            java.util.Arrays.fill(out, outIndex, outIndex + BLOCK_SIZE, reference);
+            return;
+        }
+        int mask = bitWidth == 32 ? -1 : (1 << bitWidth) - 1;
+        for (int lane = 0; lane < LANES; lane++) {
+            int bitPos = 0;
+            int word = 0;
+            for (int k = 0; k < VALUES_PER_LANE; k++) {
+                int value = words[word * LANES + lane] >>> bitPos;
+                if (bitPos + bitWidth > 32) {
+                    value |= words[(word + 1) * LANES + lane] << (32 - bitPos);
+                }
+                out[outIndex + k * LANES + lane] = (value & mask) + reference;
+                bitPos += bitWidth;
+                if (bitPos >= 32) {
+                    bitPos -= 32;
+                    word++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Unpack one value of a block straight from its packed buffer.
+     *
+     * @param buffer the packed words
+     * @param blockOffset the byte offset of the block's first word
+     * @param index the value's position within the block
+     */
+    static int unpack(SwordBuf buffer, long blockOffset, int reference, int bitWidth, int index) {
+        if (bitWidth == 0) {
+            return reference;
+        }
+        int lane = index % LANES;
+        int bitPos = (index / LANES) * bitWidth;
+        int word = bitPos >>> 5;
+        int shift = bitPos & 31;
+        int value = buffer.getInt(blockOffset + ((long) word * LANES + lane) * 4) >>> shift;
+        if (shift + bitWidth > 32) {
+            value |= buffer.getInt(blockOffset + ((long) (word + 1) * LANES + lane) * 4) << (32 - shift);
+        }
+        int mask = bitWidth == 32 ? -1 : (1 << bitWidth) - 1;
+        return (value & mask) + reference;
+    }
+}
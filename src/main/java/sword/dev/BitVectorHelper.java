@@ -1,5 +1,10 @@
 package sword.dev;
 
+/**
+ * Operations on bitmaps held in a {@link SwordBuf}, bit {@code i} being bit {@code i % 8} of byte
+ * {@code i / 8}. The single-bit accessors work on one byte; the range, counting and combining operations
+ * work on whole 64-bit words and fall back to bytes and single bits only at the ends of the range.
+ */
 public class BitVectorHelper {
 
     private BitVectorHelper() {
@@ -29,24 +34,164 @@ public class BitVectorHelper {
         return (currentByte & (1 << bitIndex)) != 0;
     }
 
+    /**
+     * Set {@code count} bits starting at {@code start}. Whole bytes in between are filled in one call.
+     */
+    public static void setRange(SwordBuf buffer, int start, int count) {
+        fillRange(buffer, start, count, true);
+    }
+
+    /**
+     * Clear {@code count} bits starting at {@code start}. Whole bytes in between are filled in one call.
+     */
+    public static void clearRange(SwordBuf buffer, int start, int count) {
+        fillRange(buffer, start, count, false);
+    }
+
+    private static void fillRange(SwordBuf buffer, int start, int count, boolean value) {
+        int end = start + count;
+        int index = start;
+        // Single bits up to the first byte boundary
+        while (index < end && (index & 7) != 0) {
+            setValidityBuffer(buffer, index++, value);
+        }
+        int wholeBytes = (end - index) >>> 3;
+        if (wholeBytes > 0) {
+            buffer.fill(index >>> 3, wholeBytes, value ? (byte) 0xFF : 0);
+            index += wholeBytes << 3;
+        }
+        while (index < end) {
+            setValidityBuffer(buffer, index++, value);
+        }
+    }
+
+    /**
+     * Read {@code count} bits starting at {@code index} into the low bits of a long, bit {@code index}
+     * lowest. At most 64 bits can be read, fewer when {@code index} is not on a byte boundary:
+     * {@code count + index % 8} must not exceed 64.
+     */
+    public static long getBits(SwordBuf buffer, int index, int count) {
+        long byteIndex = index >>> 3;
+        int shift = index & 7;
+        long word;
+        if (byteIndex + 8 <= buffer.capacity()) {
+            word = buffer.getLong(byteIndex);
+        } else {
+            // Near the end of the buffer, read only the bytes holding the bits
+            word = 0;
+            int bytes = (shift + count + 7) >>> 3;
+            for (int i = 0; i < bytes; i++) {
+                word |= (buffer.getByte(byteIndex + i) & 0xFFL) << (i << 3);
+            }
+        }
+        word >>>= shift;
+        return count == 64 ? word : word & ((1L << count) - 1);
+    }
+
+    /**
+     * Count the set bits among the first {@code count}, a word at a time.
+     */
+    public static int countSetBits(SwordBuf buffer, int count) {
+        long setBits = 0;
+        long byteIndex = 0;
+        long wholeBytes = count >>> 3;
+        for (; byteIndex + 8 <= wholeBytes; byteIndex += 8) {
+            setBits += Long.bitCount(buffer.getLong(byteIndex));
+        }
+        for (; byteIndex < wholeBytes; byteIndex++) {
+            setBits += Integer.bitCount(buffer.getByte(byteIndex) & 0xFF);
+        }
+        int remainder = count & 7;
+        if (remainder != 0) {
+            // Bits past the count in the last byte are not looked at
+            setBits += Integer.bitCount(buffer.getByte(byteIndex) & ((1 << remainder) - 1));
+        }
+        return (int) setBits;
+    }
+
+    /**
+     * Count the clear bits among the first {@code valueCount} of a validity bitmap.
+     */
     public static int getNullCount(SwordBuf buffer, int valueCount) {
-        int nullCount = 0;
-        int byteCount = (valueCount + 7) / 8;
+        return valueCount - countSetBits(buffer, valueCount);
+    }
 
-        for (int i = 0; i < byteCount; i++) {
-            byte currentByte = buffer.getByte(i);
-            nullCount += 8 - Integer.bitCount(currentByte & 0xFF);
+    /**
+     * Whether all of the first {@code count} bits are set, stopping at the first word that isn't full.
+     */
+    public static boolean isAllSet(SwordBuf buffer, int count) {
+        long byteIndex = 0;
+        long wholeBytes = count >>> 3;
+        for (; byteIndex + 8 <= wholeBytes; byteIndex += 8) {
+            if (buffer.getLong(byteIndex) != -1L) {
+                return false;
+            }
+        }
+        for (; byteIndex < wholeBytes; byteIndex++) {
+            if (buffer.getByte(byteIndex) != (byte) 0xFF) {
+                return false;
+            }
         }
+        int remainder = count & 7;
+        int mask = (1 << remainder) - 1;
+        return remainder == 0 || (buffer.getByte(byteIndex) & mask) == mask;
+    }
 
-        // Adjust for the last byte if valueCount is not a multiple of 8
-        int remainder = valueCount % 8;
+    /**
+     * Write the bitwise AND of the first {@code count} bits of two bitmaps into {@code dst}, which may be
+     * one of them. Bits of {@code dst} past the count are left as they were.
+     */
+    public static void and(SwordBuf left, SwordBuf right, SwordBuf dst, int count) {
+        long byteIndex = 0;
+        long wholeBytes = count >>> 3;
+        for (; byteIndex + 8 <= wholeBytes; byteIndex += 8) {
+            dst.setLong(byteIndex, left.getLong(byteIndex) & right.getLong(byteIndex));
+        }
+        for (; byteIndex < wholeBytes; byteIndex++) {
+            dst.setByte(byteIndex, (byte) (left.getByte(byteIndex) & right.getByte(byteIndex)));
+        }
+        int remainder = count & 7;
         if (remainder != 0) {
-            byte lastByte = buffer.getByte(byteCount - 1);
-            int mask = (1 << remainder) - 1;
-            nullCount -= 8 - Integer.bitCount(lastByte & mask);
+            mergeLastByte(dst, byteIndex, left.getByte(byteIndex) & right.getByte(byteIndex), remainder);
         }
+    }
 
-        return nullCount;
+    /**
+     * Write the bitwise OR of the first {@code count} bits of two bitmaps into {@code dst}, which may be
+     * one of them. Bits of {@code dst} past the count are left as they were.
+     */
+    public static void or(SwordBuf left, SwordBuf right, SwordBuf dst, int count) {
+        long byteIndex = 0;
+        long wholeBytes = count >>> 3;
+        for (; byteIndex + 8 <= wholeBytes; byteIndex += 8) {
+            dst.setLong(byteIndex, left.getLong(byteIndex) | right.getLong(byteIndex));
+        }
+        for (; byteIndex < wholeBytes; byteIndex++) {
+            dst.setByte(byteIndex, (byte) (left.getByte(byteIndex) | right.getByte(byteIndex)));
+        }
+        int remainder = count & 7;
+        if (remainder != 0) {
+            mergeLastByte(dst, byteIndex, left.getByte(byteIndex) | right.getByte(byteIndex), remainder);
+        }
+    }
+
+    private static void mergeLastByte(SwordBuf dst, long byteIndex, int bits, int remainder) {
+        int mask = (1 << remainder) - 1;
+        dst.setByte(byteIndex, (byte) ((bits & mask) | (dst.getByte(byteIndex) & ~mask)));
+    }
+
+    /**
+     * Copy {@code count} bits from one bitmap to another. Byte-aligned runs are copied in bulk.
+     */
+    public static void copyBits(SwordBuf src, int srcIndex, SwordBuf dst, int dstIndex, int count) {
+        int bulkBits = 0;
+        if (srcIndex % 8 == 0 && dstIndex % 8 == 0) {
+            bulkBits = count & ~7;
+            dst.setBytes(dstIndex / 8, src, srcIndex / 8, bulkBits / 8);
+        }
+        for (int i = bulkBits; i < count; i++) {
+            setValidityBuffer(dst, dstIndex + i, getBit(src, srcIndex + i));
+        }
     }
 
     public static void setValidityBuffer(SwordBuf buffer, int index, boolean isValid) {
@@ -0,0 +1,547 @@
+package sword.dev;
+
+import sword.dev.exceptions.OutOfMemoryException;
+import sword.dev.type.SwordType;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A boolean column storing one bit per value, least significant bit first, plus a validity bitmap when
+ * nullable. Buffers are sized in whole 64-bit words, and bits past the value count are kept clear, so
+ * the logical operations and {@link #cardinality()} run a word at a time without looking at the tail.
+ * The logical operations use the Vector API for the bulk of the words when it is available.
+ *
+ * <p>Besides holding a column, a bit vector is the result of a filter predicate: a set bit selects the
+ * row. {@link #toSelection(int[])} and {@link #fromSelection} convert between that and a list of
+ * selected row indices.
+ */
+public class BitVectorV2 extends BaseValueVectorV2 implements FieldVectorV2 {
+    private static final boolean SIMD = VectorSupport.isAvailable();
+
+    /**
+     * The logical operations combining two vectors word by word.
+     */
+    enum Op {
+        AND, OR, XOR, AND_NOT;
+
+        long apply(long left, long right) {
+            switch (this) {
+                case AND:
+                    return left & right;
+                case OR:
+                    return left | right;
+                case XOR:
+                    return left ^ right;
+                default:
+                    return left & ~right;
+            }
+        }
+    }
+
+    private final SwordType.Bool type;
+    private SwordBuf dataBuffer;
+    private SwordBuf validityBuffer;
+    private int valueCount;
+    private boolean nullable;
+
+    public BitVectorV2(String name, BufferAllocator allocator) {
+        super(name, allocator);
+        this.type = new SwordType.Bool();
+    }
+
+    /**
+     * Build a vector of {@code valueCount} rows with the rows listed in {@code selection} set and the
+     * rest clear.
+     *
+     * @param selection row indices, the first {@code count} of which are used
+     */
+    public static BitVectorV2 fromSelection(String name, BufferAllocator allocator, int[] selection, int count, int valueCount) {
+        BitVectorV2 vector = new BitVectorV2(name, allocator);
+        vector.setInitialCapacity(valueCount);
+        vector.allocateNew();
+        for (int i = 0; i < count; i++) {
+            int index = selection[i];
+            if (index < 0 || index >= valueCount) {
+                vector.close();
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + valueCount);
+            }
+            setBitInWord(vector.dataBuffer, index);
+        }
+        vector.valueCount = valueCount;
+        return vector;
+    }
+
+    @Override
+    public SwordType getType() {
+        return type;
+    }
+
+    private static long bytesForBits(long bitCount) {
+        return ((bitCount + 63) >>> 6) << 3;
+    }
+
+    private static int wordCount(int bitCount) {
+        return (int) (((long) bitCount + 63) >>> 6);
+    }
+
+    @Override
+    public void allocateNew() throws OutOfMemoryException {
+        releaseBuffer(dataBuffer);
+        releaseBuffer(validityBuffer);
+        dataBuffer = null;
+        validityBuffer = null;
+        dataBuffer = allocateBuffer(bytesForBits(initialValueCapacity));
+        if (nullable) {
+            validityBuffer = allocateBuffer(bytesForBits(initialValueCapacity));
+        }
+        valueCount = 0;
+    }
+
+    @Override
+    public boolean allocateNewSafe() {
+        try {
+            allocateNew();
+            return true;
+        } catch (OutOfMemoryException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void reAlloc() {
+        int capacity = getValueCapacity();
+        resize(nextValueCapacity(capacity, (long) capacity + 1));
+    }
+
+    /**
+     * Grow the vector, as the growth policy directs, until at least {@code minCapacity} values fit.
+     */
+    public void ensureCapacity(int minCapacity) {
+        int capacity = getValueCapacity();
+        if (minCapacity > capacity) {
+            resize(nextValueCapacity(capacity, minCapacity));
+        }
+    }
+
+    @Override
+    public void shrinkToFit() {
+        if (dataBuffer != null && bytesForBits(valueCount) < dataBuffer.capacity()) {
+            resize(valueCount);
+        }
+    }
+
+    private void resize(int valueCapacity) {
+        dataBuffer = reallocateBuffer(dataBuffer, bytesForBits(valueCapacity));
+        if (nullable) {
+            validityBuffer = reallocateBuffer(validityBuffer, bytesForBits(valueCapacity));
+        }
+    }
+
+    @Override
+    public int getValueCapacity() {
+        if (dataBuffer == null) {
+            return 0;
+        }
+        return (int) Math.min(dataBuffer.capacity() * 8, Integer.MAX_VALUE);
+    }
+
+    public boolean get(int index) {
+        return BitVectorHelper.getBit(dataBuffer, index);
+    }
+
+    @Override
+    public boolean isNull(int index) {
+        if (!nullable) return false;
+        return !BitVectorHelper.getBit(validityBuffer, index);
+    }
+
+    @Override
+    public Object getObject(int index) {
+        return isNull(index) ? null : get(index);
+    }
+
+    public void set(int index, boolean value) {
+        BitVectorHelper.setValidityBuffer(dataBuffer, index, value);
+        if (nullable) {
+            BitVectorHelper.setBit(validityBuffer, index);
+        }
+        valueCount = Math.max(valueCount, index + 1);
+    }
+
+    public void setSafe(int index, boolean value) {
+        ensureCapacity(index + 1);
+        set(index, value);
+    }
+
+    @Override
+    public void set(int index, Object value) {
+        if (value == null) {
+            setNull(index);
+        } else if (value instanceof Boolean) {
+            set(index, (boolean) value);
+        } else {
+            throw new IllegalArgumentException("Value must be a Boolean or null");
+        }
+    }
+
+    @Override
+    public void setSafe(int index, Object value) {
+        ensureCapacity(index + 1);
+        set(index, value);
+    }
+
+    public void setNull(int index) {
+        if (!nullable) throw new UnsupportedOperationException("This vector is not nullable");
+        BitVectorHelper.unsetBit(validityBuffer, index);
+        // Null rows keep a clear data bit so they never count as selected
+        BitVectorHelper.unsetBit(dataBuffer, index);
+        valueCount = Math.max(valueCount, index + 1);
+    }
+
+    private static void setBitInWord(SwordBuf buffer, int index) {
+        long word = (long) (index >>> 6) << 3;
+        buffer.setLong(word, buffer.getLong(word) | (1L << index));
+    }
+
+    /**
+     * Count the rows that are set. Null rows are not counted.
+     */
+    public int cardinality() {
+        int words = wordCount(valueCount);
+        long count = 0;
+        for (int i = 0; i < words; i++) {
+            long word = dataBuffer.getLong((long) i << 3);
+            if (nullable) {
+                word &= validityBuffer.getLong((long) i << 3);
+            }
+            count += Long.bitCount(word);
+        }
+        return (int) count;
+    }
+
+    /**
+     * Write the indices of the rows that are set, in order, into {@code selection}. Null rows are not
+     * selected.
+     *
+     * @param selection must have room for {@link #cardinality()} indices
+     * @return the number of indices written
+     */
+    public int toSelection(int[] selection) {
+        int words = wordCount(valueCount);
+        int count = 0;
+        for (int i = 0; i < words; i++) {
+            long word = dataBuffer.getLong((long) i << 3);
+            if (nullable) {
+                word &= validityBuffer.getLong((long) i << 3);
+            }
+            int base = i << 6;
+            while (word != 0) {
+                selection[count++] = base + Long.numberOfTrailingZeros(word);
+                // Clear the lowest set bit
+                word &= word - 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Keep the rows set in both this vector and {@code other}. A row is null in the result if it is null
+     * in either.
+     */
+    public void and(BitVectorV2 other) {
+        combine(Op.AND, other);
+    }
+
+    /**
+     * Set the rows set in either this vector or {@code other}. A row is null in the result if it is null
+     * in either.
+     */
+    public void or(BitVectorV2 other) {
+        combine(Op.OR, other);
+    }
+
+    /**
+     * Set the rows set in exactly one of this vector and {@code other}. A row is null in the result if it
+     * is null in either.
+     */
+    public void xor(BitVectorV2 other) {
+        combine(Op.XOR, other);
+    }
+
+    /**
+     * Clear the rows set in {@code other}. A row is null in the result if it is null in either.
+     */
+    public void andNot(BitVectorV2 other) {
+        combine(Op.AND_NOT, other);
+    }
+
+    /**
+     * Flip every row. Null rows stay null.
+     */
+    public void not() {
+        int length = wordCount(valueCount) << 3;
+        int done = 0;
+        if (SIMD) {
+            done = SimdBitOps.not(dataBuffer, length);
+        }
+        for (int i = done; i < length; i += 8) {
+            dataBuffer.setLong(i, ~dataBuffer.getLong(i));
+        }
+        if (nullable) {
+            applyWords(Op.AND, dataBuffer, validityBuffer, length);
+        }
+        clearTail();
+    }
+
+    private void combine(Op op, BitVectorV2 other) {
+        if (other.valueCount != valueCount) {
+            throw new IllegalArgumentException("Cannot combine " + valueCount + " rows with " + other.valueCount);
+        }
+        if (valueCount == 0) {
+            return;
+        }
+        int length = wordCount(valueCount) << 3;
+        applyWords(op, dataBuffer, other.dataBuffer, length);
+        if (other.nullable) {
+            if (!nullable) {
+                makeNullable();
+            }
+            applyWords(Op.AND, validityBuffer, other.validityBuffer, length);
+        }
+        if (nullable) {
+            // Keep the data bits of null rows clear
+            applyWords(Op.AND, dataBuffer, validityBuffer, length);
+        }
+    }
+
+    private static void applyWords(Op op, SwordBuf dst, SwordBuf src, int length) {
+        int done = 0;
+        if (SIMD) {
+            done = SimdBitOps.apply(op, dst, src, length);
+        }
+        for (int i = done; i < length; i += 8) {
+            dst.setLong(i, op.apply(dst.getLong(i), src.getLong(i)));
+        }
+    }
+
+    // Clear the bits past the value count in its last word
+    private void clearTail() {
+        int bits = valueCount & 63;
+        if (bits != 0) {
+            long word = (long) (valueCount >>> 6) << 3;
+            long mask = (1L << bits) - 1;
+            dataBuffer.setLong(word, dataBuffer.getLong(word) & mask);
+            if (nullable) {
+                validityBuffer.setLong(word, validityBuffer.getLong(word) & mask);
+            }
+        }
+    }
+
+    // Add a validity bitmap marking every current row valid
+    private void makeNullable() {
+        validityBuffer = allocateBuffer(dataBuffer.capacity());
+        BitVectorHelper.setRange(validityBuffer, 0, valueCount);
+        nullable = true;
+    }
+
+    @Override
+    public int getValueCount() {
+        return valueCount;
+    }
+
+    @Override
+    public void setValueCount(int valueCount) {
+        if (valueCount < this.valueCount) {
+            // Clear the dropped rows so the bits past the value count stay clear
+            long from = (long) wordCount(valueCount) << 3;
+            long length = bytesForBits(this.valueCount) - from;
+            dataBuffer.setZero(from, length);
+            if (nullable) {
+                validityBuffer.setZero(from, length);
+            }
+            this.valueCount = valueCount;
+            clearTail();
+        }
+        this.valueCount = valueCount;
+    }
+
+    @Override
+    public void clear() {
+        valueCount = 0;
+        releaseBuffer(dataBuffer);
+        releaseBuffer(validityBuffer);
+        dataBuffer = null;
+        validityBuffer = null;
+    }
+
+    @Override
+    public void copyFrom(int fromIndex, int thisIndex, ValueVectorV2 from) {
+        if (!(from instanceof BitVectorV2)) {
+            throw new IllegalArgumentException("Cannot copy from " + from.getClass().getSimpleName());
+        }
+        BitVectorV2 fromVector = (BitVectorV2) from;
+        if (fromVector.isNull(fromIndex)) {
+            setNull(thisIndex);
+        } else {
+            set(thisIndex, fromVector.get(fromIndex));
+        }
+    }
+
+    @Override
+    public void copyFromSafe(int fromIndex, int thisIndex, ValueVectorV2 from) {
+        ensureCapacity(thisIndex + 1);
+        copyFrom(fromIndex, thisIndex, from);
+    }
+
+    @Override
+    public FieldVectorV2 getNewVector() {
+        BitVectorV2 vector = new BitVectorV2(getName(), allocator);
+        vector.nullable = nullable;
+        return vector;
+    }
+
+    @Override
+    public void transferTo(FieldVectorV2 target) {
+        if (!(target instanceof BitVectorV2)) {
+            throw new IllegalArgumentException("Cannot transfer to " + target.getClass().getSimpleName());
+        }
+        BitVectorV2 targetVector = (BitVectorV2) target;
+        targetVector.clear();
+        targetVector.dataBuffer = dataBuffer;
+        targetVector.validityBuffer = validityBuffer;
+        targetVector.valueCount = valueCount;
+        targetVector.nullable = nullable;
+        dataBuffer = null;
+        validityBuffer = null;
+        valueCount = 0;
+    }
+
+    @Override
+    public void copySubset(int fromIndex, int toIndex, FieldVectorV2 target, int targetIndex) {
+        if (!(target instanceof BitVectorV2)) {
+            throw new IllegalArgumentException("Cannot copy subset to " + target.getClass().getSimpleName());
+        }
+        BitVectorV2 targetVector = (BitVectorV2) target;
+        int length = toIndex - fromIndex;
+        BitVectorHelper.copyBits(dataBuffer, fromIndex, targetVector.dataBuffer, targetIndex, length);
+        if (nullable && targetVector.nullable) {
+            BitVectorHelper.copyBits(validityBuffer, fromIndex, targetVector.validityBuffer, targetIndex, length);
+        } else if (targetVector.nullable) {
+            for (int i = 0; i < length; i++) {
+                BitVectorHelper.setBit(targetVector.validityBuffer, targetIndex + i);
+            }
+        }
+        targetVector.valueCount = Math.max(targetVector.valueCount, targetIndex + length);
+    }
+
+    /**
+     * Get rows {@code start} up to {@code end} as a new vector. A slice of whole words, or running to the
+     * end of this vector, shares its buffers; any other range is copied, since the word operations need
+     * row 0 at bit 0 of a word and nothing set past the last row.
+     */
+    @Override
+    public FieldVectorV2 slice(int start, int end) {
+        int length = end - start;
+        BitVectorV2 sliced = new BitVectorV2(getName() + "[" + start + "," + end + "]", allocator);
+        sliced.nullable = nullable;
+        if (start % 64 == 0 && (end % 64 == 0 || end == valueCount)) {
+            long offset = (long) start >>> 3;
+            long size = Math.min(bytesForBits(length), dataBuffer.capacity() - offset);
+            sliced.dataBuffer = dataBuffer.slice(offset, size);
+            if (nullable) {
+                sliced.validityBuffer = validityBuffer.slice(offset, size);
+            }
+        } else {
+            sliced.dataBuffer = allocateBuffer(bytesForBits(length));
+            BitVectorHelper.copyBits(dataBuffer, start, sliced.dataBuffer, 0, length);
+            if (nullable) {
+                sliced.validityBuffer = allocateBuffer(bytesForBits(length));
+                BitVectorHelper.copyBits(validityBuffer, start, sliced.validityBuffer, 0, length);
+            }
+        }
+        sliced.valueCount = length;
+        return sliced;
+    }
+
+    @Override
+    public boolean isNullable() {
+        return nullable;
+    }
+
+    @Override
+    public void setNullable(boolean nullable) {
+        if (nullable && !this.nullable && dataBuffer != null) {
+            makeNullable();
+            return;
+        }
+        this.nullable = nullable;
+    }
+
+    @Override
+    public int getNullCount() {
+        if (!nullable) return 0;
+        return BitVectorHelper.getNullCount(validityBuffer, valueCount);
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        return new Iterator<Object>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < valueCount;
+            }
+
+            @Override
+            public Object next() {
+                if (index >= valueCount) {
+                    throw new NoSuchElementException();
+                }
+                return getObject(index++);
+            }
+        };
+    }
+
+    @Override
+    public long getBufferSize() {
+        if (dataBuffer == null) {
+            return 0;
+        }
+        return dataBuffer.capacity() + (nullable ? validityBuffer.capacity() : 0);
+    }
+
+    @Override
+    public long getBufferSizeFor(int valueCount) {
+        return bytesForBits(valueCount) * (nullable ? 2 : 1);
+    }
+
+    @Override
+    public SwordBuf[] getBuffers(boolean clear) {
+        SwordBuf[] buffers = nullable ? new SwordBuf[]{dataBuffer, validityBuffer} : new SwordBuf[]{dataBuffer};
+        if (clear) {
+            // The caller takes over this vector's references
+            for (SwordBuf buffer : buffers) {
+                buffer.retain();
+            }
+            clear();
+        }
+        return buffers;
+    }
+
+    @Override
+    public SwordBuf getValidityBuffer() {
+        return validityBuffer;
+    }
+
+    @Override
+    public SwordBuf getDataBuffer() {
+        return dataBuffer;
+    }
+
+    @Override
+    public SwordBuf getOffsetBuffer() {
+        return null;
+    }
+}
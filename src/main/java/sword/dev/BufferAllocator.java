@@ -1,6 +1,87 @@
 package sword.dev;
 
-public interface BufferAllocator {
-    SwordBuf allocate(int size);
+public interface BufferAllocator extends AutoCloseable {
+    SwordBuf allocate(long size);
+
+    /**
+     * Allocate a buffer on behalf of a named owner, typically a vector. The owner is only recorded by
+     * allocators that track outstanding buffers.
+     *
+     * @param size the number of bytes to allocate
+     * @param owner the name of the owner, or null
+     * @return the buffer
+     */
+    default SwordBuf allocate(long size, String owner) {
+        return allocate(size);
+    }
+
+    /**
+     * Return a buffer's memory to this allocator, which either frees or recycles it. Called by
+     * {@link SwordBuf#close()}; the buffer must not be used afterwards.
+     *
+     * @param buffer the buffer to release
+     */
     void free(SwordBuf buffer);
+
+    /**
+     * Resize a buffer, keeping its contents up to the smaller of the two sizes and zeroing anything
+     * past the old size. The old buffer is released and must not be used afterwards. Allocators may
+     * resize in place when the buffer is not shared; by default a new buffer is allocated and the
+     * contents are copied over.
+     *
+     * @param buffer the buffer to resize, allocated by this allocator
+     * @param newSize the new size in bytes
+     * @return the resized buffer
+     */
+    default SwordBuf reallocate(SwordBuf buffer, long newSize) {
+        SwordBuf newBuffer = allocate(newSize, buffer.getOwner());
+        newBuffer.setBytes(0, buffer, 0, Math.min(buffer.capacity(), newSize));
+        buffer.close();
+        return newBuffer;
+    }
+
+    /**
+     * Create an allocator that takes its memory from this one. The child's usage counts against its own
+     * limit as well as the limits of every allocator above it.
+     *
+     * @param name the name of the child, reported when one of its allocations fails
+     * @param initReservation the number of bytes reserved from this allocator up front
+     * @param limit the maximum number of bytes the child may hand out at once
+     * @return the child allocator
+     */
+    BufferAllocator newChildAllocator(String name, long initReservation, long limit);
+
+    /**
+     * Get the name of this allocator.
+     *
+     * @return the name of this allocator
+     */
+    String getName();
+
+    /**
+     * Get the allocator this one was created from.
+     *
+     * @return the parent allocator, or null for a root allocator
+     */
+    BufferAllocator getParentAllocator();
+
+    /**
+     * Get the number of bytes currently handed out by this allocator and its children.
+     *
+     * @return the number of bytes allocated
+     */
+    long getAllocatedMemory();
+
+    /**
+     * Get the maximum number of bytes this allocator may hand out at once.
+     *
+     * @return the limit in bytes
+     */
+    long getLimit();
+
+    /**
+     * Close this allocator and all of its children.
+     */
+    @Override
+    void close();
 }
@@ -0,0 +1,12 @@
+package sword.dev;
+
+/**
+ * An allocator created by {@link BufferAllocator#newChildAllocator(String, long, long)}. It takes its
+ * memory from the root of its tree and charges everything beyond its initial reservation to its parent.
+ */
+class ChildAllocator extends BaseAllocator {
+
+    ChildAllocator(String name, BaseAllocator parent, long initReservation, long limit) {
+        super(name, parent, initReservation, limit);
+    }
+}
@@ -0,0 +1,61 @@
+package sword.dev;
+
+import jdk.incubator.foreign.MemorySegment;
+import jdk.incubator.foreign.ResourceScope;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * A read-write mapping of a whole file of any size, made through the incubating foreign memory API
+ * since NIO cannot map more than 2 GB at once. The API is only there when the JVM was started with
+ * {@code --add-modules=jdk.incubator.foreign}, or runs Sword as a named module, so it is kept in this
+ * class and only loaded when {@link #isAvailable()} says so.
+ */
+final class FileMapping {
+    private static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.incubator.foreign").isPresent();
+
+    private final ResourceScope scope;
+    private final MemorySegment segment;
+
+    private FileMapping(ResourceScope scope, MemorySegment segment) {
+        this.scope = scope;
+        this.segment = segment;
+    }
+
+    static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    /**
+     * Map the first {@code size} bytes of a file, growing it to that size. New pages read as zero.
+     */
+    static FileMapping map(Path path, long size) throws IOException {
+        ResourceScope scope = ResourceScope.newSharedScope();
+        try {
+            return new FileMapping(scope, MemorySegment.mapFile(path, 0, size, FileChannel.MapMode.READ_WRITE, scope));
+        } catch (IOException | RuntimeException e) {
+            scope.close();
+            throw e;
+        }
+    }
+
+    long address() {
+        return segment.address().toRawLongValue();
+    }
+
+    /**
+     * Write changes through to the file.
+     */
+    void force() {
+        segment.force();
+    }
+
+    /**
+     * Unmap the file. Its memory must not be touched afterwards.
+     */
+    void unmap() {
+        scope.close();
+    }
+}
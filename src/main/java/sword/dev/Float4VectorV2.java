@@ -0,0 +1,67 @@
+package sword.dev;
+
+import sword.dev.type.SwordType;
+
+public class Float4VectorV2 extends BaseFixedWidthVector {
+    private final SwordType.FloatingPoint type;
+
+    public Float4VectorV2(String name, BufferAllocator allocator) {
+        super(name, allocator, 4);
+        this.type = new SwordType.FloatingPoint(32);
+    }
+
+    @Override
+    public SwordType getType() {
+        return type;
+    }
+
+    @Override
+    public Object getObject(int index) {
+        return isNull(index) ? null : get(index);
+    }
+
+    @Override
+    public FieldVectorV2 getNewVector() {
+        return new Float4VectorV2(getName(), allocator);
+    }
+
+    @Override
+    public void set(int index, Object value) {
+        if (value == null) {
+            setNull(index);
+        } else if (value instanceof Float) {
+            set(index, (float) value);
+        } else {
+            throw new IllegalArgumentException("Value must be a Float or null");
+        }
+    }
+
+    /**
+     * Copy an array of values into this vector starting at {@code index}, as one bulk memory copy.
+     */
+    public void setSimd(int index, float[] values) {
+        dataBuffer.setFloats((long) index * 4, values, 0, values.length);
+        markSetRange(index, values.length);
+    }
+
+    /**
+     * Copy {@code values.length} values starting at {@code index} into an array, as one bulk memory copy.
+     */
+    public void getSimd(int index, float[] values) {
+        dataBuffer.getFloats((long) index * 4, values, 0, values.length);
+    }
+
+    public void set(int index, float value) {
+        dataBuffer.setFloat((long) index << 2, value);
+        markSet(index);
+    }
+
+    public void setSafe(int index, float value) {
+        ensureCapacity(index + 1);
+        set(index, value);
+    }
+
+    public float get(int index) {
+        return dataBuffer.getFloat((long) index << 2);
+    }
+}
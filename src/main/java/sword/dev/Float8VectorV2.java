@@ -0,0 +1,67 @@
+package sword.dev;
+
+import sword.dev.type.SwordType;
+
+public class Float8VectorV2 extends BaseFixedWidthVector {
+    private final SwordType.FloatingPoint type;
+
+    public Float8VectorV2(String name, BufferAllocator allocator) {
+        super(name, allocator, 8);
+        this.type = new SwordType.FloatingPoint(64);
+    }
+
+    @Override
+    public SwordType getType() {
+        return type;
+    }
+
+    @Override
+    public Object getObject(int index) {
+        return isNull(index) ? null : get(index);
+    }
+
+    @Override
+    public FieldVectorV2 getNewVector() {
+        return new Float8VectorV2(getName(), allocator);
+    }
+
+    @Override
+    public void set(int index, Object value) {
+        if (value == null) {
+            setNull(index);
+        } else if (value instanceof Double) {
+            set(index, (double) value);
+        } else {
+            throw new IllegalArgumentException("Value must be a Double or null");
+        }
+    }
+
+    /**
+     * Copy an array of values into this vector starting at {@code index}, as one bulk memory copy.
+     */
+    public void setSimd(int index, double[] values) {
+        dataBuffer.setDoubles((long) index * 8, values, 0, values.length);
+        markSetRange(index, values.length);
+    }
+
+    /**
+     * Copy {@code values.length} values starting at {@code index} into an array, as one bulk memory copy.
+     */
+    public void getSimd(int index, double[] values) {
+        dataBuffer.getDoubles((long) index * 8, values, 0, values.length);
+    }
+
+    public void set(int index, double value) {
+        dataBuffer.setDouble((long) index << 3, value);
+        markSet(index);
+    }
+
+    public void setSafe(int index, double value) {
+        ensureCapacity(index + 1);
+        set(index, value);
+    }
+
+    public double get(int index) {
+        return dataBuffer.getDouble((long) index << 3);
+    }
+}
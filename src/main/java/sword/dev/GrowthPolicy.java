@@ -0,0 +1,59 @@
+package sword.dev;
+
+/**
+ * Decides how far a vector grows when it runs out of room.
+ */
+public interface GrowthPolicy {
+
+    /**
+     * Compute the capacity to grow to.
+     *
+     * @param currentCapacity the current capacity, in values
+     * @param minCapacity the smallest acceptable capacity, greater than the current one
+     * @return the new capacity, at least {@code minCapacity}
+     */
+    long nextCapacity(long currentCapacity, long minCapacity);
+
+    /**
+     * Double the capacity on every growth.
+     */
+    static GrowthPolicy doubling() {
+        return factor(2.0);
+    }
+
+    /**
+     * Multiply the capacity by {@code factor} on every growth, e.g. 1.5.
+     */
+    static GrowthPolicy factor(double factor) {
+        if (!(factor > 1.0)) {
+            throw new IllegalArgumentException("Growth factor must be greater than 1: " + factor);
+        }
+        return (currentCapacity, minCapacity) ->
+                Math.max(minCapacity, Math.max(currentCapacity + 1, (long) Math.ceil(currentCapacity * factor)));
+    }
+
+    /**
+     * Add a whole number of {@code step} values on every growth.
+     */
+    static GrowthPolicy fixedStep(long step) {
+        if (step <= 0) {
+            throw new IllegalArgumentException("Growth step must be positive: " + step);
+        }
+        return (currentCapacity, minCapacity) -> {
+            long steps = (minCapacity - currentCapacity + step - 1) / step;
+            return currentCapacity + steps * step;
+        };
+    }
+
+    /**
+     * Grow as {@code policy} does, but by at most {@code maxStep} values at a time, so that large
+     * vectors don't overshoot by a whole doubling.
+     */
+    static GrowthPolicy capped(GrowthPolicy policy, long maxStep) {
+        if (maxStep <= 0) {
+            throw new IllegalArgumentException("Maximum growth step must be positive: " + maxStep);
+        }
+        return (currentCapacity, minCapacity) -> Math.max(minCapacity,
+                Math.min(policy.nextCapacity(currentCapacity, minCapacity), currentCapacity + maxStep));
+    }
+}
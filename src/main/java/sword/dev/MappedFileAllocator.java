@@ -0,0 +1,173 @@
+package sword.dev;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A root allocator that backs every buffer with its own memory-mapped file in a spill directory. The
+ * memory lives in the page cache rather than on the heap or in direct memory, so vectors can grow past
+ * physical memory and the OS pages them in and out as they are scanned.
+ *
+ * <p>Buffers of up to 2 GB are mapped through NIO. Larger ones are mapped as one contiguous region
+ * through the incubating foreign memory API, which needs {@code --add-modules=jdk.incubator.foreign}
+ * when Sword is run from the class path.
+ */
+public class MappedFileAllocator extends BaseAllocator {
+
+    private final Path spillDirectory;
+    private final boolean deleteOnRelease;
+    private final Map<MemoryChunk, Path> files = Collections.synchronizedMap(new IdentityHashMap<>());
+    private final Map<MemoryChunk, FileMapping> largeMappings = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    public MappedFileAllocator(Path spillDirectory) {
+        this(spillDirectory, Long.MAX_VALUE);
+    }
+
+    public MappedFileAllocator(Path spillDirectory, long limit) {
+        this(spillDirectory, limit, true);
+    }
+
+    /**
+     * @param spillDirectory the directory that holds the backing files
+     * @param limit the maximum number of bytes that may be handed out at once
+     * @param deleteOnRelease whether to delete a buffer's file once its memory is released
+     */
+    public MappedFileAllocator(Path spillDirectory, long limit, boolean deleteOnRelease) {
+        super("ROOT", null, 0, limit);
+        try {
+            this.spillDirectory = Files.createDirectories(spillDirectory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create spill directory " + spillDirectory, e);
+        }
+        this.deleteOnRelease = deleteOnRelease;
+    }
+
+    public Path getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    /**
+     * Get the file backing a buffer allocated here or by one of this allocator's children.
+     */
+    public Path getPath(SwordBuf buffer) {
+        Path path = files.get(buffer.memory());
+        if (path == null) {
+            throw new IllegalArgumentException("Buffer is not backed by a file of this allocator");
+        }
+        return path;
+    }
+
+    /**
+     * Write a buffer's changes through to its backing file.
+     */
+    public void force(SwordBuf buffer) {
+        // Held across the check and the force so that a concurrent release cannot unmap the buffer in between
+        synchronized (files) {
+            getPath(buffer);
+            force(buffer.memory());
+        }
+    }
+
+    /**
+     * Write the changes of every outstanding buffer through to its backing file.
+     */
+    public void force() {
+        List<MemoryChunk> mapped;
+        synchronized (files) {
+            mapped = new ArrayList<>(files.keySet());
+        }
+        for (MemoryChunk memory : mapped) {
+            // Buffers released since the copy are already unmapped
+            synchronized (files) {
+                if (files.containsKey(memory)) {
+                    force(memory);
+                }
+            }
+        }
+    }
+
+    private void force(MemoryChunk memory) {
+        if (memory.nioBuffer() != null) {
+            ((MappedByteBuffer) memory.nioBuffer()).force();
+            return;
+        }
+        FileMapping mapping = largeMappings.get(memory);
+        if (mapping != null) {
+            mapping.force();
+        }
+    }
+
+    @Override
+    protected MemoryChunk allocateMemory(long size, long allocationSize) {
+        if (allocationSize > Integer.MAX_VALUE && !FileMapping.isAvailable()) {
+            throw new UnsupportedOperationException("Mapping more than " + Integer.MAX_VALUE
+                    + " bytes per buffer needs --add-modules=jdk.incubator.foreign");
+        }
+        Path path = null;
+        try {
+            path = Files.createTempFile(spillDirectory, "sword-", ".spill");
+            if (allocationSize > Integer.MAX_VALUE) {
+                return mapLarge(path, allocationSize);
+            }
+            MappedByteBuffer memory;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // A mapping stays valid after its channel is closed, and new file pages read as zero
+                memory = channel.map(FileChannel.MapMode.READ_WRITE, 0, allocationSize);
+            }
+            memory.order(ByteOrder.LITTLE_ENDIAN);
+            MemoryChunk chunk = MemoryChunk.wrap(memory);
+            files.put(chunk, path);
+            return chunk;
+        } catch (IOException e) {
+            deleteQuietly(path);
+            throw new UncheckedIOException("Cannot map " + allocationSize + " bytes in " + spillDirectory, e);
+        } catch (RuntimeException e) {
+            deleteQuietly(path);
+            throw e;
+        }
+    }
+
+    private MemoryChunk mapLarge(Path path, long size) throws IOException {
+        FileMapping mapping = FileMapping.map(path, size);
+        MemoryChunk chunk = MemoryChunk.wrap(mapping.address(), size, mapping::unmap);
+        largeMappings.put(chunk, mapping);
+        files.put(chunk, path);
+        return chunk;
+    }
+
+    @Override
+    protected void releaseMemory(MemoryChunk memory) {
+        Path path;
+        synchronized (files) {
+            largeMappings.remove(memory);
+            path = files.remove(memory);
+            // Unmap now rather than when the buffer object is collected
+            memory.free();
+        }
+        if (deleteOnRelease) {
+            deleteQuietly(path);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // The file is in the spill directory and can be cleaned up with it
+        }
+    }
+}
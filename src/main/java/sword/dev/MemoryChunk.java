@@ -0,0 +1,96 @@
+package sword.dev;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A contiguous block of native memory as handed out by a root allocator: either a plain native
+ * allocation, which can be resized with the native allocator's realloc, or memory wrapped with its own
+ * way of being released, such as a mapped file region.
+ */
+public final class MemoryChunk {
+    private final long address;
+    private final long size;
+    private final ByteBuffer buffer;
+    private final Runnable release;
+
+    private MemoryChunk(long address, long size, ByteBuffer buffer, Runnable release) {
+        this.address = address;
+        this.size = size;
+        this.buffer = buffer;
+        this.release = release;
+    }
+
+    /**
+     * Allocate a zeroed block of native memory.
+     */
+    public static MemoryChunk allocate(long size) {
+        long address = MemoryUtil.UNSAFE.allocateMemory(size);
+        MemoryUtil.setMemory(address, size, (byte) 0);
+        return new MemoryChunk(address, size, null, null);
+    }
+
+    /**
+     * Tell whether this block came from {@link #allocate(long)} and so can be {@link #reallocate(long) reallocated}.
+     */
+    boolean canReallocate() {
+        return release == null;
+    }
+
+    /**
+     * Resize a block obtained from {@link #allocate(long)}, using the native allocator's realloc, which
+     * grows or shrinks it where it is when it can. Memory past the old size is zeroed. This chunk must
+     * not be used afterwards.
+     *
+     * @return the resized block, which may have moved
+     */
+    MemoryChunk reallocate(long newSize) {
+        if (release != null) {
+            throw new IllegalStateException("Only native blocks can be reallocated");
+        }
+        long newAddress = MemoryUtil.UNSAFE.reallocateMemory(address, newSize);
+        if (newSize > size) {
+            MemoryUtil.setMemory(newAddress + size, newSize - size, (byte) 0);
+        }
+        return new MemoryChunk(newAddress, newSize, null, null);
+    }
+
+    /**
+     * Wrap a direct buffer, such as a mapped file region. {@link #free()} releases it through its cleaner.
+     */
+    public static MemoryChunk wrap(ByteBuffer buffer) {
+        return new MemoryChunk(MemoryUtil.addressOf(buffer), buffer.capacity(), buffer, () -> MemoryUtil.release(buffer));
+    }
+
+    /**
+     * Wrap memory obtained some other way, which {@link #free()} hands back by running {@code release}.
+     */
+    public static MemoryChunk wrap(long address, long size, Runnable release) {
+        return new MemoryChunk(address, size, null, release);
+    }
+
+    public long address() {
+        return address;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Get the direct buffer this block wraps, or null if it wraps none.
+     */
+    public ByteBuffer nioBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Free this block. It must not be touched afterwards.
+     */
+    public void free() {
+        if (release != null) {
+            release.run();
+        } else {
+            MemoryUtil.UNSAFE.freeMemory(address);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package sword.dev;
+
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public final class MemoryUtil {
+
+    static final Unsafe UNSAFE;
+    static final long BYTE_ARRAY_BASE_OFFSET;
+    static final long SHORT_ARRAY_BASE_OFFSET;
+    static final long INT_ARRAY_BASE_OFFSET;
+    static final long LONG_ARRAY_BASE_OFFSET;
+    static final long FLOAT_ARRAY_BASE_OFFSET;
+    static final long DOUBLE_ARRAY_BASE_OFFSET;
+    private static final long BUFFER_ADDRESS_OFFSET;
+    private static final long BUFFER_CAPACITY_OFFSET;
+    // Views over native memory are duplicates of this buffer with their address and capacity replaced
+    private static final ByteBuffer VIEW_TEMPLATE = ByteBuffer.allocateDirect(0);
+
+    // Copy in bounded chunks so a large copy doesn't hold off safepoints for too long
+    private static final long COPY_CHUNK_SIZE = 1L << 20;
+
+    static {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            UNSAFE = (Unsafe) field.get(null);
+            BUFFER_ADDRESS_OFFSET = UNSAFE.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+            BUFFER_CAPACITY_OFFSET = UNSAFE.objectFieldOffset(Buffer.class.getDeclaredField("capacity"));
+            BYTE_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(byte[].class);
+            SHORT_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(short[].class);
+            INT_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(int[].class);
+            LONG_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(long[].class);
+            FLOAT_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(float[].class);
+            DOUBLE_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(double[].class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+        // Buffers are read both through Unsafe, in native order, and through little-endian NIO views
+        if (ByteOrder.nativeOrder() != ByteOrder.LITTLE_ENDIAN) {
+            throw new ExceptionInInitializerError("Sword requires a little-endian platform");
+        }
+    }
+
+    private MemoryUtil() {
+        // Utility class, no instances
+    }
+
+    /**
+     * Allocate a little-endian direct buffer. The memory is released by {@link #release(ByteBuffer)}
+     * rather than when the buffer object is garbage collected.
+     */
+    public static ByteBuffer allocateDirect(int size) {
+        return ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Get the native address of the first byte of a direct buffer.
+     */
+    public static long addressOf(ByteBuffer buffer) {
+        if (!buffer.isDirect()) {
+            throw new IllegalArgumentException("Buffer is not direct");
+        }
+        return UNSAFE.getLong(buffer, BUFFER_ADDRESS_OFFSET);
+    }
+
+    /**
+     * Get a little-endian direct buffer over {@code size} bytes of native memory at {@code address}. The
+     * buffer does not own the memory, which must outlive it.
+     */
+    static ByteBuffer directBuffer(long address, int size) {
+        ByteBuffer view = VIEW_TEMPLATE.duplicate();
+        UNSAFE.putLong(view, BUFFER_ADDRESS_OFFSET, address);
+        UNSAFE.putInt(view, BUFFER_CAPACITY_OFFSET, size);
+        view.limit(size);
+        return view.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Free the memory behind a direct buffer returned by {@link #allocateDirect(int)}. The buffer and
+     * every view of it must not be touched afterwards.
+     */
+    public static void release(ByteBuffer buffer) {
+        UNSAFE.invokeCleaner(buffer);
+    }
+
+    /**
+     * Copy {@code length} bytes between two objects or native addresses. Pass a null object to use an
+     * absolute native address as the offset. The regions may overlap.
+     */
+    public static void copyMemory(Object srcBase, long srcOffset, Object dstBase, long dstOffset, long length) {
+        if (srcBase == dstBase && dstOffset > srcOffset && dstOffset < srcOffset + length) {
+            // Overlapping with the destination ahead of the source: copy chunks back to front
+            while (length > 0) {
+                long chunk = Math.min(length, COPY_CHUNK_SIZE);
+                length -= chunk;
+                UNSAFE.copyMemory(srcBase, srcOffset + length, dstBase, dstOffset + length, chunk);
+            }
+            return;
+        }
+        while (length > 0) {
+            long chunk = Math.min(length, COPY_CHUNK_SIZE);
+            UNSAFE.copyMemory(srcBase, srcOffset, dstBase, dstOffset, chunk);
+            srcOffset += chunk;
+            dstOffset += chunk;
+            length -= chunk;
+        }
+    }
+
+    /**
+     * Set {@code length} bytes starting at a native address to {@code value}.
+     */
+    public static void setMemory(long address, long length, byte value) {
+        while (length > 0) {
+            long chunk = Math.min(length, COPY_CHUNK_SIZE);
+            UNSAFE.setMemory(address, chunk, value);
+            address += chunk;
+            length -= chunk;
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package sword.dev;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A root allocator that recycles direct memory. Requests are rounded up to a power-of-two size class
+ * and closed buffers go back to a free list for their class, so vectors that are repeatedly allocated
+ * and cleared reuse the same memory instead of going back to the JDK each time. Requests larger than
+ * the biggest size class are allocated and freed directly.
+ *
+ * <p>Small size classes are also cached in front of the shared free lists, so that the many tiny
+ * validity and batch buffers don't all meet on one lock. The caches are a fixed set of stripes, about
+ * two per core, each holding a magazine of free buffers per small class; a thread always uses the
+ * stripe picked by its id. Magazines are refilled from and flushed to the shared free lists half a
+ * magazine at a time. The number of stripes doesn't grow with the number of threads, so this stays
+ * bounded with many virtual threads, and a thread that finds its stripe busy never waits: it goes
+ * straight to the shared free list instead.
+ */
+public class PooledAllocator extends BaseAllocator {
+    public static final int MIN_SIZE_CLASS = 64;
+    public static final int DEFAULT_MAX_POOLED_SIZE = 1 << 30;
+    public static final int DEFAULT_MAX_BUFFERS_PER_CLASS = 16;
+    public static final long DEFAULT_MAX_RETAINED_MEMORY = 1L << 30;
+    public static final int DEFAULT_MAX_CACHED_SIZE = 32 * 1024;
+    public static final int DEFAULT_MAGAZINE_SIZE = 32;
+
+    private static final int MIN_SIZE_CLASS_SHIFT = Integer.numberOfTrailingZeros(MIN_SIZE_CLASS);
+
+    private final int maxPooledSize;
+    private final int maxBuffersPerClass;
+    private final long maxRetainedMemory;
+    private final int maxCachedSize;
+    private final int magazineSize;
+    private final ArrayDeque<MemoryChunk>[] freeLists;
+    private final Stripe[] stripes;
+    private final AtomicLong retained = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public PooledAllocator() {
+        this(Long.MAX_VALUE);
+    }
+
+    public PooledAllocator(long limit) {
+        this(limit, DEFAULT_MAX_POOLED_SIZE, DEFAULT_MAX_BUFFERS_PER_CLASS, DEFAULT_MAX_RETAINED_MEMORY);
+    }
+
+    /**
+     * @param limit the maximum number of bytes that may be handed out at once
+     * @param maxPooledSize the largest size class; bigger requests bypass the pool
+     * @param maxBuffersPerClass how many free buffers each size class keeps
+     * @param maxRetainedMemory how many bytes of free buffers the pool keeps across all classes
+     */
+    public PooledAllocator(long limit, int maxPooledSize, int maxBuffersPerClass, long maxRetainedMemory) {
+        this(limit, maxPooledSize, maxBuffersPerClass, maxRetainedMemory,
+                Math.min(DEFAULT_MAX_CACHED_SIZE, maxPooledSize), DEFAULT_MAGAZINE_SIZE);
+    }
+
+    /**
+     * @param limit the maximum number of bytes that may be handed out at once
+     * @param maxPooledSize the largest size class; bigger requests bypass the pool
+     * @param maxBuffersPerClass how many free buffers each size class keeps
+     * @param maxRetainedMemory how many bytes of free buffers the pool keeps across all classes
+     * @param maxCachedSize the largest size class cached per stripe
+     * @param magazineSize how many free buffers each stripe caches per size class; 0 disables the caches
+     */
+    @SuppressWarnings("unchecked")
+    public PooledAllocator(long limit, int maxPooledSize, int maxBuffersPerClass, long maxRetainedMemory,
+                           int maxCachedSize, int magazineSize) {
+        super("ROOT", null, 0, limit);
+        if (maxPooledSize < MIN_SIZE_CLASS || Integer.bitCount(maxPooledSize) != 1) {
+            throw new IllegalArgumentException("Max pooled size must be a power of two of at least " + MIN_SIZE_CLASS);
+        }
+        if (maxCachedSize < MIN_SIZE_CLASS || maxCachedSize > maxPooledSize || Integer.bitCount(maxCachedSize) != 1) {
+            throw new IllegalArgumentException("Max cached size must be a power of two between " + MIN_SIZE_CLASS
+                    + " and the max pooled size");
+        }
+        if (maxBuffersPerClass < 0 || maxRetainedMemory < 0 || magazineSize < 0) {
+            throw new IllegalArgumentException("Retention caps cannot be negative");
+        }
+        this.maxPooledSize = maxPooledSize;
+        this.maxBuffersPerClass = maxBuffersPerClass;
+        this.maxRetainedMemory = maxRetainedMemory;
+        this.maxCachedSize = maxCachedSize;
+        this.magazineSize = magazineSize;
+        this.freeLists = (ArrayDeque<MemoryChunk>[]) new ArrayDeque<?>[sizeClassIndex(maxPooledSize) + 1];
+        for (int i = 0; i < freeLists.length; i++) {
+            freeLists[i] = new ArrayDeque<>();
+        }
+        int stripeCount = magazineSize == 0 ? 0 : Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(sizeClassIndex(maxCachedSize) + 1, magazineSize);
+        }
+    }
+
+    @Override
+    protected long allocationSize(long size) {
+        return size > maxPooledSize ? size : sizeClass((int) size);
+    }
+
+    @Override
+    protected MemoryChunk allocateMemory(long size, long allocationSize) {
+        if (allocationSize <= maxPooledSize) {
+            int index = sizeClassIndex((int) allocationSize);
+            MemoryChunk memory = null;
+            if (allocationSize <= maxCachedSize && stripes.length > 0) {
+                memory = takeCached(index);
+            }
+            if (memory != null) {
+                cacheHits.increment();
+            } else {
+                ArrayDeque<MemoryChunk> freeList = freeLists[index];
+                synchronized (freeList) {
+                    memory = freeList.pollFirst();
+                }
+                if (memory != null) {
+                    retained.addAndGet(-allocationSize);
+                }
+            }
+            if (memory != null) {
+                hits.increment();
+                // Recycled memory holds whatever its previous owner wrote; hand it out zeroed like fresh memory
+                MemoryUtil.setMemory(memory.address(), size, (byte) 0);
+                return memory;
+            }
+            misses.increment();
+        }
+        return super.allocateMemory(size, allocationSize);
+    }
+
+    @Override
+    protected void releaseMemory(MemoryChunk memory) {
+        long allocationSize = memory.size();
+        if (allocationSize <= maxCachedSize && stripes.length > 0 && !isClosed()
+                && putCached(sizeClassIndex((int) allocationSize), memory)) {
+            return;
+        }
+        if (allocationSize <= maxPooledSize && !isClosed()) {
+            ArrayDeque<MemoryChunk> freeList = freeLists[sizeClassIndex((int) allocationSize)];
+            synchronized (freeList) {
+                if (freeList.size() < maxBuffersPerClass) {
+                    if (retained.addAndGet(allocationSize) <= maxRetainedMemory) {
+                        freeList.addFirst(memory);
+                        return;
+                    }
+                    retained.addAndGet(-allocationSize);
+                }
+            }
+        }
+        super.releaseMemory(memory);
+    }
+
+    /**
+     * Get the number of bytes held in free lists and per-stripe caches, ready to be handed out again.
+     * The caches are read without locking, so the figure may lag behind concurrent activity.
+     */
+    public long getRetainedMemory() {
+        long total = retained.get();
+        for (Stripe stripe : stripes) {
+            total += stripe.cachedBytes;
+        }
+        return total;
+    }
+
+    /**
+     * Get the number of pooled allocations served from a free list.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of pooled allocations served from a per-stripe cache without touching the shared
+     * free lists. These are included in {@link #getHitCount()}.
+     */
+    public long getCacheHitCount() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * Get the number of pooled allocations that had to allocate new memory.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Free all memory held in the free lists and per-stripe caches.
+     */
+    public void trim() {
+        for (Stripe stripe : stripes) {
+            List<MemoryChunk> drained = new ArrayList<>();
+            stripe.lock.lock();
+            try {
+                for (int index = 0; index < stripe.magazines.length; index++) {
+                    MemoryChunk[] magazine = stripe.magazines[index];
+                    while (stripe.counts[index] > 0) {
+                        int top = --stripe.counts[index];
+                        drained.add(magazine[top]);
+                        magazine[top] = null;
+                    }
+                }
+                stripe.cachedBytes = 0;
+            } finally {
+                stripe.lock.unlock();
+            }
+            for (MemoryChunk memory : drained) {
+                super.releaseMemory(memory);
+            }
+        }
+        for (ArrayDeque<MemoryChunk> freeList : freeLists) {
+            while (true) {
+                MemoryChunk memory;
+                synchronized (freeList) {
+                    memory = freeList.pollFirst();
+                }
+                if (memory == null) {
+                    break;
+                }
+                retained.addAndGet(-memory.size());
+                super.releaseMemory(memory);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            super.close();
+        } finally {
+            trim();
+        }
+    }
+
+    private Stripe stripe() {
+        long id = Thread.currentThread().getId();
+        // Spread neighbouring thread ids over the stripes
+        return stripes[(int) (id * 0x9E3779B97F4A7C15L >>> 32) & (stripes.length - 1)];
+    }
+
+    private MemoryChunk takeCached(int index) {
+        Stripe stripe = stripe();
+        if (!stripe.lock.tryLock()) {
+            return null;
+        }
+        try {
+            MemoryChunk[] magazine = stripe.magazines[index];
+            if (stripe.counts[index] == 0) {
+                refill(stripe, index);
+                if (stripe.counts[index] == 0) {
+                    return null;
+                }
+            }
+            int top = --stripe.counts[index];
+            MemoryChunk memory = magazine[top];
+            magazine[top] = null;
+            stripe.cachedBytes -= memory.size();
+            return memory;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private boolean putCached(int index, MemoryChunk memory) {
+        Stripe stripe = stripe();
+        if (!stripe.lock.tryLock()) {
+            return false;
+        }
+        List<MemoryChunk> overflow = null;
+        try {
+            if (stripe.counts[index] == magazineSize) {
+                overflow = flush(stripe, index);
+            }
+            stripe.magazines[index][stripe.counts[index]++] = memory;
+            stripe.cachedBytes += memory.size();
+        } finally {
+            stripe.lock.unlock();
+        }
+        if (overflow != null) {
+            for (MemoryChunk chunk : overflow) {
+                super.releaseMemory(chunk);
+            }
+        }
+        return true;
+    }
+
+    // Called with the stripe locked: move up to half a magazine over from the shared free list
+    private void refill(Stripe stripe, int index) {
+        ArrayDeque<MemoryChunk> freeList = freeLists[index];
+        MemoryChunk[] magazine = stripe.magazines[index];
+        int batch = Math.max(1, magazineSize / 2);
+        long moved = 0;
+        synchronized (freeList) {
+            while (stripe.counts[index] < batch) {
+                MemoryChunk memory = freeList.pollFirst();
+                if (memory == null) {
+                    break;
+                }
+                magazine[stripe.counts[index]++] = memory;
+                moved += memory.size();
+            }
+        }
+        if (moved > 0) {
+            retained.addAndGet(-moved);
+            stripe.cachedBytes += moved;
+        }
+    }
+
+    // Called with the stripe locked: move the older half of a full magazine to the shared free list,
+    // returning what the shared list has no room for so the caller can free it outside the locks
+    private List<MemoryChunk> flush(Stripe stripe, int index) {
+        ArrayDeque<MemoryChunk> freeList = freeLists[index];
+        MemoryChunk[] magazine = stripe.magazines[index];
+        int batch = Math.max(1, magazineSize / 2);
+        List<MemoryChunk> overflow = new ArrayList<>();
+        long moved = 0;
+        synchronized (freeList) {
+            for (int i = 0; i < batch; i++) {
+                MemoryChunk memory = magazine[i];
+                moved += memory.size();
+                if (freeList.size() < maxBuffersPerClass) {
+                    if (retained.addAndGet(memory.size()) <= maxRetainedMemory) {
+                        freeList.addLast(memory);
+                        continue;
+                    }
+                    retained.addAndGet(-memory.size());
+                }
+                overflow.add(memory);
+            }
+        }
+        int remaining = stripe.counts[index] - batch;
+        System.arraycopy(magazine, batch, magazine, 0, remaining);
+        for (int i = remaining; i < stripe.counts[index]; i++) {
+            magazine[i] = null;
+        }
+        stripe.counts[index] = remaining;
+        stripe.cachedBytes -= moved;
+        return overflow;
+    }
+
+    static int sizeClass(int size) {
+        if (size <= MIN_SIZE_CLASS) {
+            return MIN_SIZE_CLASS;
+        }
+        return Integer.highestOneBit(size - 1) << 1;
+    }
+
+    private static int sizeClassIndex(int sizeClass) {
+        return Integer.numberOfTrailingZeros(sizeClass) - MIN_SIZE_CLASS_SHIFT;
+    }
+
+    /**
+     * One cache stripe: a stack of free buffers per small size class, guarded by a lock that is only
+     * ever tried, never waited on, on the allocation path.
+     */
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final MemoryChunk[][] magazines;
+        private final int[] counts;
+        private volatile long cachedBytes;
+
+        Stripe(int sizeClasses, int magazineSize) {
+            this.magazines = new MemoryChunk[sizeClasses][magazineSize];
+            this.counts = new int[sizeClasses];
+        }
+    }
+}
@@ -0,0 +1,601 @@
+package sword.dev;
+
+import sword.dev.exceptions.OutOfMemoryException;
+import sword.dev.type.SwordType;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An int column stored as runs of equal values. Run {@code r} covers the rows from the end of run
+ * {@code r - 1} up to {@code runEnds[r]}, exclusive, and holds {@code values[r]}, which may be null.
+ * Random reads binary search the run ends; iteration and the aggregates walk whole runs, so their
+ * cost depends on the number of runs rather than rows.
+ *
+ * <p>Rows are appended, not written at arbitrary positions: appending the value the last run holds
+ * just extends that run. A slice shares the runs of the vector it was taken from.
+ */
+public class RunEndEncodedVector extends BaseValueVectorV2 implements FieldVectorV2 {
+    public static final int DEFAULT_INITIAL_RUN_CAPACITY = 1024;
+
+    private final IntVectorV2 runEnds;
+    private final IntVectorV2 values;
+    private int runCount;
+    private int offset;
+    private int valueCount;
+    private boolean sliced;
+
+    public RunEndEncodedVector(String name, BufferAllocator allocator) {
+        super(name, allocator);
+        this.runEnds = new IntVectorV2(name + ".runEnds", allocator);
+        this.values = new IntVectorV2(name + ".values", allocator);
+        this.initialValueCapacity = DEFAULT_INITIAL_RUN_CAPACITY;
+    }
+
+    /**
+     * Encode an int vector into runs, allocated from {@code allocator}.
+     */
+    public static RunEndEncodedVector encode(IntVectorV2 vector, BufferAllocator allocator) {
+        RunEndEncodedVector encoded = new RunEndEncodedVector(vector.getName(), allocator);
+        encoded.setNullable(vector.isNullable());
+        encoded.allocateNew();
+        int valueCount = vector.getValueCount();
+        int start = 0;
+        while (start < valueCount) {
+            boolean isNull = vector.isNull(start);
+            int value = isNull ? 0 : vector.get(start);
+            int end = start + 1;
+            while (end < valueCount && vector.isNull(end) == isNull && (isNull || vector.get(end) == value)) {
+                end++;
+            }
+            if (isNull) {
+                encoded.appendNulls(end - start);
+            } else {
+                encoded.appendRun(value, end - start);
+            }
+            start = end;
+        }
+        return encoded;
+    }
+
+    public static RunEndEncodedVector encode(IntVectorV2 vector) {
+        return encode(vector, vector.getAllocator());
+    }
+
+    /**
+     * Expand the runs back into a plain int vector, allocated from this vector's allocator.
+     */
+    public IntVectorV2 decode() {
+        IntVectorV2 decoded = new IntVectorV2(getName(), allocator);
+        decoded.setNullable(isNullable());
+        decoded.setInitialCapacity(valueCount);
+        decoded.allocateNew();
+        int row = 0;
+        for (int run = firstRun(); row < valueCount; run++) {
+            int end = Math.min(getRunEnd(run) - offset, valueCount);
+            if (isRunNull(run)) {
+                for (; row < end; row++) {
+                    decoded.setNull(row);
+                }
+            } else {
+                int value = values.get(run);
+                for (; row < end; row++) {
+                    decoded.set(row, value);
+                }
+            }
+        }
+        decoded.setValueCount(valueCount);
+        return decoded;
+    }
+
+    @Override
+    public SwordType getType() {
+        return values.getType();
+    }
+
+    public IntVectorV2 getRunEnds() {
+        return runEnds;
+    }
+
+    public IntVectorV2 getValues() {
+        return values;
+    }
+
+    /**
+     * Get the number of runs, including runs only partly inside a slice.
+     */
+    public int getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * Get the row where a run ends, exclusive, counted from the start of the unsliced vector.
+     */
+    public int getRunEnd(int run) {
+        return runEnds.get(run);
+    }
+
+    public int getRunValue(int run) {
+        return values.get(run);
+    }
+
+    public boolean isRunNull(int run) {
+        return values.isNull(run);
+    }
+
+    /**
+     * Find the run holding row {@code index}, by binary search over the run ends.
+     */
+    public int findRun(int index) {
+        if (index < 0 || index >= valueCount) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + valueCount);
+        }
+        int row = offset + index;
+        int low = 0;
+        int high = runCount - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (runEnds.get(mid) <= row) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public int get(int index) {
+        return values.get(findRun(index));
+    }
+
+    @Override
+    public boolean isNull(int index) {
+        return values.isNull(findRun(index));
+    }
+
+    @Override
+    public Object getObject(int index) {
+        int run = findRun(index);
+        return values.isNull(run) ? null : values.get(run);
+    }
+
+    /**
+     * Append {@code length} copies of {@code value}, extending the last run if it holds the same value.
+     */
+    public void appendRun(int value, int length) {
+        checkAppendable(length);
+        if (length == 0) {
+            return;
+        }
+        int last = runCount - 1;
+        if (last >= 0 && !values.isNull(last) && values.get(last) == value) {
+            runEnds.set(last, valueCount + length);
+        } else {
+            runEnds.setSafe(runCount, valueCount + length);
+            values.setSafe(runCount, value);
+            runCount++;
+        }
+        valueCount += length;
+    }
+
+    public void append(int value) {
+        appendRun(value, 1);
+    }
+
+    /**
+     * Append {@code length} nulls, extending the last run if it is null.
+     */
+    public void appendNulls(int length) {
+        if (!isNullable()) throw new UnsupportedOperationException("This vector is not nullable");
+        checkAppendable(length);
+        if (length == 0) {
+            return;
+        }
+        int last = runCount - 1;
+        if (last >= 0 && values.isNull(last)) {
+            runEnds.set(last, valueCount + length);
+        } else {
+            runEnds.setSafe(runCount, valueCount + length);
+            values.ensureCapacity(runCount + 1);
+            values.setNull(runCount);
+            runCount++;
+        }
+        valueCount += length;
+    }
+
+    private void checkAppendable(int length) {
+        if (sliced) {
+            throw new UnsupportedOperationException("Cannot append to a slice of a run-end encoded vector");
+        }
+        if (length < 0 || (long) valueCount + length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Cannot append " + length + " rows to " + valueCount);
+        }
+        if (runEnds.getDataBuffer() == null) {
+            allocateNew();
+        }
+    }
+
+    /**
+     * Sum the non-null rows from {@code start} up to {@code end}, one multiplication per run.
+     */
+    public long sum(int start, int end) {
+        long sum = 0;
+        for (int run = startRun(start, end); run < runCount && runStart(run) < end; run++) {
+            if (!values.isNull(run)) {
+                sum += (long) values.get(run) * overlap(run, start, end);
+            }
+        }
+        return sum;
+    }
+
+    public long sum() {
+        return sum(0, valueCount);
+    }
+
+    /**
+     * Count the non-null rows from {@code start} up to {@code end}.
+     */
+    public int count(int start, int end) {
+        int count = 0;
+        for (int run = startRun(start, end); run < runCount && runStart(run) < end; run++) {
+            if (!values.isNull(run)) {
+                count += overlap(run, start, end);
+            }
+        }
+        return count;
+    }
+
+    public int count() {
+        return count(0, valueCount);
+    }
+
+    /**
+     * Get the smallest non-null value from {@code start} up to {@code end}, or null if there is none.
+     */
+    public Integer min(int start, int end) {
+        Integer min = null;
+        for (int run = startRun(start, end); run < runCount && runStart(run) < end; run++) {
+            if (!values.isNull(run)) {
+                int value = values.get(run);
+                if (min == null || value < min) {
+                    min = value;
+                }
+            }
+        }
+        return min;
+    }
+
+    public Integer min() {
+        return min(0, valueCount);
+    }
+
+    /**
+     * Get the largest non-null value from {@code start} up to {@code end}, or null if there is none.
+     */
+    public Integer max(int start, int end) {
+        Integer max = null;
+        for (int run = startRun(start, end); run < runCount && runStart(run) < end; run++) {
+            if (!values.isNull(run)) {
+                int value = values.get(run);
+                if (max == null || value > max) {
+                    max = value;
+                }
+            }
+        }
+        return max;
+    }
+
+    public Integer max() {
+        return max(0, valueCount);
+    }
+
+    // The first run overlapping rows start up to end, or runCount when the range is empty
+    private int startRun(int start, int end) {
+        if (start < 0 || end > valueCount || start > end) {
+            throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") out of bounds for length " + valueCount);
+        }
+        return start == end ? runCount : findRun(start);
+    }
+
+    // Where a run starts, in rows of this vector
+    private int runStart(int run) {
+        return run == 0 ? -offset : runEnds.get(run - 1) - offset;
+    }
+
+    private int overlap(int run, int start, int end) {
+        return Math.min(runEnds.get(run) - offset, end) - Math.max(runStart(run), start);
+    }
+
+    private int firstRun() {
+        return valueCount == 0 ? 0 : findRun(0);
+    }
+
+    @Override
+    public int getValueCount() {
+        return valueCount;
+    }
+
+    /**
+     * Shorten the vector to {@code valueCount} rows, or pad it with nulls up to that count.
+     */
+    @Override
+    public void setValueCount(int valueCount) {
+        if (valueCount > this.valueCount) {
+            appendNulls(valueCount - this.valueCount);
+            return;
+        }
+        if (valueCount < this.valueCount) {
+            if (sliced) {
+                this.valueCount = valueCount;
+                return;
+            }
+            runCount = valueCount == 0 ? 0 : findRun(valueCount - 1) + 1;
+            if (runCount > 0) {
+                runEnds.set(runCount - 1, valueCount);
+            }
+            runEnds.setValueCount(runCount);
+            values.setValueCount(runCount);
+            this.valueCount = valueCount;
+        }
+    }
+
+    /**
+     * Rows are not preallocated; any number of them fit in the runs.
+     */
+    @Override
+    public int getValueCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void setInitialCapacity(int numRecords) {
+        super.setInitialCapacity(numRecords);
+        runEnds.setInitialCapacity(numRecords);
+        values.setInitialCapacity(numRecords);
+    }
+
+    /**
+     * Allocate room for the initial number of runs.
+     */
+    @Override
+    public void allocateNew() throws OutOfMemoryException {
+        runEnds.setInitialCapacity(initialValueCapacity);
+        values.setInitialCapacity(initialValueCapacity);
+        runEnds.allocateNew();
+        values.allocateNew();
+        runCount = 0;
+        offset = 0;
+        valueCount = 0;
+        sliced = false;
+    }
+
+    @Override
+    public boolean allocateNewSafe() {
+        try {
+            allocateNew();
+            return true;
+        } catch (OutOfMemoryException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void reAlloc() {
+        runEnds.reAlloc();
+        values.reAlloc();
+    }
+
+    @Override
+    public void shrinkToFit() {
+        if (runEnds.getDataBuffer() != null && !sliced) {
+            runEnds.shrinkToFit();
+            values.shrinkToFit();
+        }
+    }
+
+    @Override
+    public void clear() {
+        runEnds.clear();
+        values.clear();
+        runCount = 0;
+        offset = 0;
+        valueCount = 0;
+        sliced = false;
+    }
+
+    @Override
+    public void set(int index, Object value) {
+        if (index != valueCount) {
+            throw new UnsupportedOperationException("Run-end encoded vectors can only be appended to");
+        }
+        if (value == null) {
+            appendNulls(1);
+        } else if (value instanceof Integer) {
+            append((int) value);
+        } else {
+            throw new IllegalArgumentException("Value must be an Integer or null");
+        }
+    }
+
+    @Override
+    public void setSafe(int index, Object value) {
+        set(index, value);
+    }
+
+    @Override
+    public void copyFrom(int fromIndex, int thisIndex, ValueVectorV2 from) {
+        set(thisIndex, from.getObject(fromIndex));
+    }
+
+    @Override
+    public void copyFromSafe(int fromIndex, int thisIndex, ValueVectorV2 from) {
+        copyFrom(fromIndex, thisIndex, from);
+    }
+
+    @Override
+    public FieldVectorV2 getNewVector() {
+        RunEndEncodedVector vector = new RunEndEncodedVector(getName(), allocator);
+        vector.setNullable(isNullable());
+        return vector;
+    }
+
+    @Override
+    public void transferTo(FieldVectorV2 target) {
+        if (!(target instanceof RunEndEncodedVector)) {
+            throw new IllegalArgumentException("Cannot transfer to " + target.getClass().getSimpleName());
+        }
+        RunEndEncodedVector targetVector = (RunEndEncodedVector) target;
+        targetVector.clear();
+        runEnds.transferTo(targetVector.runEnds);
+        values.transferTo(targetVector.values);
+        targetVector.runCount = runCount;
+        targetVector.offset = offset;
+        targetVector.valueCount = valueCount;
+        targetVector.sliced = sliced;
+        runCount = 0;
+        offset = 0;
+        valueCount = 0;
+        sliced = false;
+    }
+
+    /**
+     * Append rows {@code fromIndex} up to {@code toIndex} to the target run by run. The target index
+     * must be the target's value count.
+     */
+    @Override
+    public void copySubset(int fromIndex, int toIndex, FieldVectorV2 target, int targetIndex) {
+        if (!(target instanceof RunEndEncodedVector)) {
+            throw new IllegalArgumentException("Cannot copy subset to " + target.getClass().getSimpleName());
+        }
+        RunEndEncodedVector targetVector = (RunEndEncodedVector) target;
+        if (targetIndex != targetVector.valueCount) {
+            throw new UnsupportedOperationException("Run-end encoded vectors can only be appended to");
+        }
+        for (int run = startRun(fromIndex, toIndex); run < runCount && runStart(run) < toIndex; run++) {
+            int length = overlap(run, fromIndex, toIndex);
+            if (values.isNull(run)) {
+                targetVector.appendNulls(length);
+            } else {
+                targetVector.appendRun(values.get(run), length);
+            }
+        }
+    }
+
+    /**
+     * Get a view of rows {@code start} up to {@code end} sharing this vector's runs. The slice can be
+     * read but not appended to.
+     */
+    @Override
+    public FieldVectorV2 slice(int start, int end) {
+        if (start < 0 || end > valueCount || start > end) {
+            throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") out of bounds for length " + valueCount);
+        }
+        RunEndEncodedVector sliced = new RunEndEncodedVector(getName() + "[" + start + "," + end + "]", allocator);
+        if (runCount > 0) {
+            runEnds.slice(0, runCount).transferTo(sliced.runEnds);
+            values.slice(0, runCount).transferTo(sliced.values);
+        }
+        sliced.runCount = runCount;
+        sliced.offset = offset + start;
+        sliced.valueCount = end - start;
+        sliced.sliced = true;
+        return sliced;
+    }
+
+    @Override
+    public boolean isNullable() {
+        return values.isNullable();
+    }
+
+    @Override
+    public void setNullable(boolean nullable) {
+        values.setNullable(nullable);
+    }
+
+    @Override
+    public int getNullCount() {
+        return valueCount - count();
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        return new Iterator<Object>() {
+            private int index = 0;
+            private int run = firstRun();
+
+            @Override
+            public boolean hasNext() {
+                return index < valueCount;
+            }
+
+            @Override
+            public Object next() {
+                if (index >= valueCount) {
+                    throw new NoSuchElementException();
+                }
+                // Walk the runs in step with the rows instead of searching for each one
+                while (runEnds.get(run) - offset <= index) {
+                    run++;
+                }
+                index++;
+                return values.isNull(run) ? null : values.get(run);
+            }
+        };
+    }
+
+    @Override
+    public long getBufferSize() {
+        return runEnds.getBufferSize() + values.getBufferSize();
+    }
+
+    /**
+     * The size depends on the number of runs, not rows; this is the size of the runs holding the first
+     * {@code valueCount} rows.
+     */
+    @Override
+    public long getBufferSizeFor(int valueCount) {
+        int runs = valueCount == 0 ? 0 : findRun(valueCount - 1) + 1;
+        return runEnds.getBufferSizeFor(runs) + values.getBufferSizeFor(runs);
+    }
+
+    @Override
+    public SwordBuf[] getBuffers(boolean clear) {
+        SwordBuf[] runEndBuffers = runEnds.getBuffers(false);
+        SwordBuf[] valueBuffers = values.getBuffers(false);
+        SwordBuf[] buffers = new SwordBuf[runEndBuffers.length + valueBuffers.length];
+        System.arraycopy(runEndBuffers, 0, buffers, 0, runEndBuffers.length);
+        System.arraycopy(valueBuffers, 0, buffers, runEndBuffers.length, valueBuffers.length);
+        if (clear) {
+            // The caller takes over this vector's references
+            for (SwordBuf buffer : buffers) {
+                buffer.retain();
+            }
+            clear();
+        }
+        return buffers;
+    }
+
+    /**
+     * Rows have no validity bitmap of their own; null runs are marked in the values' bitmap.
+     */
+    @Override
+    public SwordBuf getValidityBuffer() {
+        return values.getValidityBuffer();
+    }
+
+    /**
+     * Get the buffer of run values.
+     */
+    @Override
+    public SwordBuf getDataBuffer() {
+        return values.getDataBuffer();
+    }
+
+    /**
+     * Get the buffer of run ends.
+     */
+    @Override
+    public SwordBuf getOffsetBuffer() {
+        return runEnds.getDataBuffer();
+    }
+}
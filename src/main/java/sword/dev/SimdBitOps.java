@@ -0,0 +1,68 @@
+package sword.dev;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Vector API versions of the word loops in {@link BitVectorV2}, working on the buffers' NIO views.
+ * Only loaded when {@link VectorSupport#isAvailable()}. Each method handles the longest prefix made of
+ * whole vectors and returns its length in bytes; the caller finishes the rest a word at a time.
+ */
+final class SimdBitOps {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    private SimdBitOps() {
+        // Utility class, no instances
+    }
+
+    /**
+     * Combine the first {@code length} bytes of {@code src} into {@code dst}.
+     */
+    static int apply(BitVectorV2.Op op, SwordBuf dst, SwordBuf src, int length) {
+        ByteBuffer dstView = dst.nioBuffer();
+        ByteBuffer srcView = src.nioBuffer();
+        VectorOperators.Binary operator = operator(op);
+        int step = SPECIES.vectorByteSize();
+        int bound = length - length % step;
+        for (int i = 0; i < bound; i += step) {
+            LongVector left = LongVector.fromByteBuffer(SPECIES, dstView, i, ByteOrder.LITTLE_ENDIAN);
+            LongVector right = LongVector.fromByteBuffer(SPECIES, srcView, i, ByteOrder.LITTLE_ENDIAN);
+            left.lanewise(operator, right).intoByteBuffer(dstView, i, ByteOrder.LITTLE_ENDIAN);
+        }
+        return bound;
+    }
+
+    /**
+     * Flip every bit of the first {@code length} bytes of {@code dst}.
+     */
+    static int not(SwordBuf dst, int length) {
+        ByteBuffer view = dst.nioBuffer();
+        int step = SPECIES.vectorByteSize();
+        int bound = length - length % step;
+        for (int i = 0; i < bound; i += step) {
+            LongVector.fromByteBuffer(SPECIES, view, i, ByteOrder.LITTLE_ENDIAN)
+                    .not()
+                    .intoByteBuffer(view, i, ByteOrder.LITTLE_ENDIAN);
+        }
+        return bound;
+    }
+
+    private static VectorOperators.Binary operator(BitVectorV2.Op op) {
+        switch (op) {
+            case AND:
+                return VectorOperators.AND;
+            case OR:
+                return VectorOperators.OR;
+            case XOR:
+                return VectorOperators.XOR;
+            case AND_NOT:
+                return VectorOperators.AND_NOT;
+            default:
+                throw new IllegalArgumentException("Unknown operation " + op);
+        }
+    }
+}
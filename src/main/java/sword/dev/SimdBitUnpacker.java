@@ -0,0 +1,52 @@
+package sword.dev;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The Vector API version of {@link BitPacking#unpackScalar}: each step shifts and masks a whole group
+ * of lanes at once. Only loaded when {@link VectorSupport#isAvailable()}.
+ */
+final class SimdBitUnpacker {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED.length() <= BitPacking.LANES
+            ? IntVector.SPECIES_PREFERRED
+            : IntVector.SPECIES_512;
+
+    private SimdBitUnpacker() {
+        // Utility class, no instances
+    }
+
+    static void unpack(int[] words, int reference, int bitWidth, int[] out, int outIndex) {
+        if (bitWidth == 0) {
+            java.util.Arrays.fill(out, outIndex, outIndex + BitPacking.BLOCK_SIZE, reference);
+            return;
+        }
+        int lanes = BitPacking.LANES;
+        int wordCount = BitPacking.wordsPerBlock(bitWidth) / lanes;
+        int mask = bitWidth == 32 ? -1 : (1 << bitWidth) - 1;
+        for (int group = 0; group < lanes; group += SPECIES.length()) {
+            int bitPos = 0;
+            int word = 0;
+            IntVector current = IntVector.fromArray(SPECIES, words, group);
+            for (int k = 0; k < BitPacking.VALUES_PER_LANE; k++) {
+                IntVector value = current.lanewise(VectorOperators.LSHR, bitPos);
+                int next = bitPos + bitWidth;
+                if (next > 32) {
+                    word++;
+                    current = IntVector.fromArray(SPECIES, words, word * lanes + group);
+                    value = value.or(current.lanewise(VectorOperators.LSHL, 32 - bitPos));
+                    next -= 32;
+                } else if (next == 32) {
+                    word++;
+                    if (word < wordCount) {
+                        current = IntVector.fromArray(SPECIES, words, word * lanes + group);
+                    }
+                    next = 0;
+                }
+                value.and(mask).add(reference).intoArray(out, outIndex + k * lanes + group);
+                bitPos = next;
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package sword.dev;
+
+import sword.dev.type.SwordType;
+
+public class SmallIntVectorV2 extends BaseFixedWidthVector {
+    private final SwordType.Int type;
+
+    public SmallIntVectorV2(String name, BufferAllocator allocator) {
+        super(name, allocator, 2);
+        this.type = new SwordType.Int(16);
+    }
+
+    @Override
+    public SwordType getType() {
+        return type;
+    }
+
+    @Override
+    public Object getObject(int index) {
+        return isNull(index) ? null : get(index);
+    }
+
+    @Override
+    public FieldVectorV2 getNewVector() {
+        return new SmallIntVectorV2(getName(), allocator);
+    }
+
+    @Override
+    public void set(int index, Object value) {
+        if (value == null) {
+            setNull(index);
+        } else if (value instanceof Short) {
+            set(index, (short) value);
+        } else {
+            throw new IllegalArgumentException("Value must be a Short or null");
+        }
+    }
+
+    /**
+     * Copy an array of values into this vector starting at {@code index}, as one bulk memory copy.
+     */
+    public void setSimd(int index, short[] values) {
+        dataBuffer.setShorts((long) index * 2, values, 0, values.length);
+        markSetRange(index, values.length);
+    }
+
+    /**
+     * Copy {@code values.length} values starting at {@code index} into an array, as one bulk memory copy.
+     */
+    public void getSimd(int index, short[] values) {
+        dataBuffer.getShorts((long) index * 2, values, 0, values.length);
+    }
+
+    public void set(int index, short value) {
+        dataBuffer.setShort((long) index << 1, value);
+        markSet(index);
+    }
+
+    public void setSafe(int index, short value) {
+        ensureCapacity(index + 1);
+        set(index, value);
+    }
+
+    public short get(int index) {
+        return dataBuffer.getShort((long) index << 1);
+    }
+}
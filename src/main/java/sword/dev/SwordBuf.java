@@ -2,100 +2,375 @@ package sword.dev;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
+import static sword.dev.MemoryUtil.UNSAFE;
+
+/**
+ * A fixed-size region of off-heap memory addressed with 64-bit offsets. Typed accessors and
+ * {@link #nioBuffer()} all read and write the same bytes, stored little-endian.
+ *
+ * <p>A buffer and all slices taken from it share one reference count. Slicing and {@link #retain()}
+ * add a reference, {@link #close()} and {@link #release()} drop one, and the memory goes back to the
+ * allocator once the last reference is gone.
+ */
 public class SwordBuf implements AutoCloseable {
-    private ByteBuffer buffer;
+    private static final AtomicIntegerFieldUpdater<SwordBuf> REF_COUNT =
+            AtomicIntegerFieldUpdater.newUpdater(SwordBuf.class, "refCount");
+
+    private final MemoryChunk memory;
     private final BufferAllocator allocator;
-    private final int size;
-    private boolean closed;
-    private int[] intArray;
+    private final SwordBuf root;
+    private final long address;
+    private final long size;
+    private final String owner;
+    private ByteBuffer buffer;
+    private volatile int refCount;
+
+    public SwordBuf(BufferAllocator allocator, long size) {
+        this(allocator, MemoryChunk.allocate(size), size);
+    }
 
-    public int[] getIntArray() {
-        return intArray;
+    /**
+     * Wrap memory obtained by an allocator. The memory may be larger than {@code size}, e.g. when it
+     * comes from a pool of fixed size classes.
+     */
+    SwordBuf(BufferAllocator allocator, MemoryChunk memory, long size) {
+        this(allocator, memory, size, null);
     }
 
-    public SwordBuf(BufferAllocator allocator, int size) {
+    SwordBuf(BufferAllocator allocator, MemoryChunk memory, long size, String owner) {
         this.allocator = allocator;
         this.size = size;
-        this.buffer = ByteBuffer.allocateDirect((size + 15) & ~15).order(ByteOrder.LITTLE_ENDIAN);
-        this.intArray = new int[size];
-        this.closed = false;
+        this.owner = owner;
+        this.memory = memory;
+        this.address = memory.address();
+        this.root = this;
+        this.refCount = 1;
     }
 
-    public int capacity() {
+    private SwordBuf(SwordBuf parent, long offset, long size) {
+        this.allocator = parent.allocator;
+        this.size = size;
+        this.owner = parent.owner;
+        this.memory = parent.memory;
+        this.address = parent.address + offset;
+        this.root = parent.root;
+    }
+
+    public long capacity() {
         return size;
     }
 
+    public BufferAllocator getAllocator() {
+        return allocator;
+    }
+
+    /**
+     * Get the name the buffer was allocated under, such as the vector holding it, or null.
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * Get the native address of the first byte of this buffer.
+     */
+    public long memoryAddress() {
+        return address;
+    }
+
     public int getInt(long index) {
         checkIndex(index, 4);
-        //return buffer.getInt((int) index);
-        return intArray[(int)index];
+        return UNSAFE.getInt(address + index);
     }
 
     public void setInt(long index, int value) {
         checkIndex(index, 4);
-        //buffer.putInt((int) index, value);
-        intArray[(int)index] = value;
+        UNSAFE.putInt(address + index, value);
+    }
+
+    public long getLong(long index) {
+        checkIndex(index, 8);
+        return UNSAFE.getLong(address + index);
+    }
+
+    public void setLong(long index, long value) {
+        checkIndex(index, 8);
+        UNSAFE.putLong(address + index, value);
+    }
+
+    public short getShort(long index) {
+        checkIndex(index, 2);
+        return UNSAFE.getShort(address + index);
+    }
+
+    public void setShort(long index, short value) {
+        checkIndex(index, 2);
+        UNSAFE.putShort(address + index, value);
     }
 
     public byte getByte(long index) {
         checkIndex(index, 1);
-        return buffer.get((int) index);
+        return UNSAFE.getByte(address + index);
     }
 
     public void setByte(long index, byte value) {
         checkIndex(index, 1);
-        buffer.put((int) index, value);
+        UNSAFE.putByte(address + index, value);
+    }
+
+    public float getFloat(long index) {
+        checkIndex(index, 4);
+        return UNSAFE.getFloat(address + index);
+    }
+
+    public void setFloat(long index, float value) {
+        checkIndex(index, 4);
+        UNSAFE.putFloat(address + index, value);
+    }
+
+    public double getDouble(long index) {
+        checkIndex(index, 8);
+        return UNSAFE.getDouble(address + index);
+    }
+
+    public void setDouble(long index, double value) {
+        checkIndex(index, 8);
+        UNSAFE.putDouble(address + index, value);
+    }
+
+    /**
+     * Copy {@code length} ints starting at byte offset {@code index} into an array.
+     */
+    public void getInts(long index, int[] dst, int dstIndex, int length) {
+        Objects.checkFromIndexSize(dstIndex, length, dst.length);
+        copyOut(index, dst, MemoryUtil.INT_ARRAY_BASE_OFFSET, dstIndex, length, 4);
+    }
+
+    /**
+     * Copy {@code length} ints from an array into this buffer starting at byte offset {@code index}.
+     */
+    public void setInts(long index, int[] src, int srcIndex, int length) {
+        Objects.checkFromIndexSize(srcIndex, length, src.length);
+        copyIn(index, src, MemoryUtil.INT_ARRAY_BASE_OFFSET, srcIndex, length, 4);
+    }
+
+    public void getLongs(long index, long[] dst, int dstIndex, int length) {
+        Objects.checkFromIndexSize(dstIndex, length, dst.length);
+        copyOut(index, dst, MemoryUtil.LONG_ARRAY_BASE_OFFSET, dstIndex, length, 8);
+    }
+
+    public void setLongs(long index, long[] src, int srcIndex, int length) {
+        Objects.checkFromIndexSize(srcIndex, length, src.length);
+        copyIn(index, src, MemoryUtil.LONG_ARRAY_BASE_OFFSET, srcIndex, length, 8);
+    }
+
+    public void getShorts(long index, short[] dst, int dstIndex, int length) {
+        Objects.checkFromIndexSize(dstIndex, length, dst.length);
+        copyOut(index, dst, MemoryUtil.SHORT_ARRAY_BASE_OFFSET, dstIndex, length, 2);
+    }
+
+    public void setShorts(long index, short[] src, int srcIndex, int length) {
+        Objects.checkFromIndexSize(srcIndex, length, src.length);
+        copyIn(index, src, MemoryUtil.SHORT_ARRAY_BASE_OFFSET, srcIndex, length, 2);
+    }
+
+    public void getFloats(long index, float[] dst, int dstIndex, int length) {
+        Objects.checkFromIndexSize(dstIndex, length, dst.length);
+        copyOut(index, dst, MemoryUtil.FLOAT_ARRAY_BASE_OFFSET, dstIndex, length, 4);
+    }
+
+    public void setFloats(long index, float[] src, int srcIndex, int length) {
+        Objects.checkFromIndexSize(srcIndex, length, src.length);
+        copyIn(index, src, MemoryUtil.FLOAT_ARRAY_BASE_OFFSET, srcIndex, length, 4);
+    }
+
+    public void getDoubles(long index, double[] dst, int dstIndex, int length) {
+        Objects.checkFromIndexSize(dstIndex, length, dst.length);
+        copyOut(index, dst, MemoryUtil.DOUBLE_ARRAY_BASE_OFFSET, dstIndex, length, 8);
+    }
+
+    public void setDoubles(long index, double[] src, int srcIndex, int length) {
+        Objects.checkFromIndexSize(srcIndex, length, src.length);
+        copyIn(index, src, MemoryUtil.DOUBLE_ARRAY_BASE_OFFSET, srcIndex, length, 8);
     }
 
     public void getBytes(long index, byte[] dst, int dstIndex, int length) {
         checkIndex(index, length);
-        buffer.position((int) index);
-        buffer.get(dst, dstIndex, length);
+        Objects.checkFromIndexSize(dstIndex, length, dst.length);
+        MemoryUtil.copyMemory(null, address + index, dst, MemoryUtil.BYTE_ARRAY_BASE_OFFSET + dstIndex, length);
     }
 
     public void setBytes(long index, byte[] src, int srcIndex, int length) {
         checkIndex(index, length);
-        buffer.position((int) index);
-        buffer.put(src, srcIndex, length);
+        Objects.checkFromIndexSize(srcIndex, length, src.length);
+        MemoryUtil.copyMemory(src, MemoryUtil.BYTE_ARRAY_BASE_OFFSET + srcIndex, null, address + index, length);
     }
 
+    /**
+     * Copy bytes from another buffer into this one with a single memory copy. The two ranges may
+     * overlap.
+     */
     public void setBytes(long index, SwordBuf srcBuffer, long srcIndex, long length) {
         checkIndex(index, length);
         srcBuffer.checkIndex(srcIndex, length);
-        for (long i = 0; i < length; i++) {
-            buffer.put((int) (index + i), srcBuffer.getByte(srcIndex + i));
-        }
+        MemoryUtil.copyMemory(null, srcBuffer.address + srcIndex, null, address + index, length);
     }
 
-    public SwordBuf slice(long offset, int length) {
+    /**
+     * Set {@code length} bytes starting at {@code index} to {@code value}.
+     */
+    public void fill(long index, long length, byte value) {
+        checkIndex(index, length);
+        MemoryUtil.setMemory(address + index, length, value);
+    }
+
+    /**
+     * Zero {@code length} bytes starting at {@code index}.
+     */
+    public void setZero(long index, long length) {
+        fill(index, length, (byte) 0);
+    }
+
+    /**
+     * Get a view of part of this buffer without copying. The slice holds its own reference to the
+     * shared memory and must be closed like any other buffer.
+     */
+    public SwordBuf slice(long offset, long length) {
         checkIndex(offset, length);
-        ByteBuffer slicedBuffer = buffer.slice((int) offset, (int) length);
-        SwordBuf slicedBuf = new SwordBuf(allocator, length);
-        slicedBuf.buffer = slicedBuffer;
-        return slicedBuf;
+        retain();
+        return new SwordBuf(this, offset, length);
     }
 
     public void clear() {
-        buffer.clear();
+        nioBuffer().clear();
+    }
+
+    /**
+     * Add a reference to the memory behind this buffer.
+     */
+    public SwordBuf retain() {
+        int current;
+        do {
+            current = root.refCount;
+            if (current == 0) {
+                throw releasedException("Buffer has been released");
+            }
+        } while (!REF_COUNT.compareAndSet(root, current, current + 1));
+        return this;
+    }
+
+    /**
+     * Drop a reference to the memory behind this buffer, handing the memory back to the allocator if
+     * it was the last one.
+     *
+     * @return true if the memory was handed back
+     */
+    public boolean release() {
+        int current;
+        do {
+            current = root.refCount;
+            if (current == 0) {
+                throw releasedException("Buffer has already been released");
+            }
+        } while (!REF_COUNT.compareAndSet(root, current, current - 1));
+        if (current == 1) {
+            allocator.free(root);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get the number of references held on the memory behind this buffer.
+     */
+    public int getRefCount() {
+        return root.refCount;
     }
 
     @Override
     public void close() {
-        if (!closed) {
-            allocator.free(this);
-            closed = true;
-        }
+        release();
+    }
+
+    /**
+     * Give up this buffer's memory without handing it back, so the allocator can rewrap it at another
+     * size. Only succeeds for an allocated buffer holding the sole reference to its memory.
+     *
+     * @return true if this buffer is now released and its memory belongs to the caller
+     */
+    boolean detach() {
+        return root == this && REF_COUNT.compareAndSet(this, 1, 0);
+    }
+
+    /**
+     * Undo a successful {@link #detach()}, handing the memory back to this buffer.
+     */
+    void reattach() {
+        REF_COUNT.set(this, 1);
+    }
+
+    /**
+     * Get the whole region backing this buffer, as handed out by the allocator.
+     */
+    MemoryChunk memory() {
+        return memory;
+    }
+
+    public boolean isClosed() {
+        return root.refCount == 0;
+    }
+
+    private void copyOut(long index, Object dst, long dstBase, int dstIndex, int length, int width) {
+        checkIndex(index, (long) length * width);
+        MemoryUtil.copyMemory(null, address + index, dst, dstBase + (long) dstIndex * width, (long) length * width);
+    }
+
+    private void copyIn(long index, Object src, long srcBase, int srcIndex, int length, int width) {
+        checkIndex(index, (long) length * width);
+        MemoryUtil.copyMemory(src, srcBase + (long) srcIndex * width, null, address + index, (long) length * width);
     }
 
     private void checkIndex(long index, long length) {
+        if (root.refCount == 0) {
+            throw releasedException("Buffer has been released");
+        }
         if (index < 0 || index + length > size) {
             throw new IndexOutOfBoundsException("Index out of bounds: index=" + index + ", length=" + length + ", capacity=" + size);
         }
     }
 
+    private IllegalStateException releasedException(String message) {
+        if (allocator instanceof BaseAllocator) {
+            return ((BaseAllocator) allocator).releasedBufferException(root, message);
+        }
+        return new IllegalStateException(message);
+    }
+
+    /**
+     * Get a little-endian NIO view of this buffer.
+     *
+     * @throws UnsupportedOperationException if the buffer is larger than a ByteBuffer can address
+     */
     public ByteBuffer nioBuffer() {
-        return buffer;
+        ByteBuffer view = buffer;
+        if (view == null) {
+            if (size > Integer.MAX_VALUE) {
+                throw new UnsupportedOperationException("Buffer of " + size + " bytes has no NIO view");
+            }
+            ByteBuffer whole = memory.nioBuffer();
+            long offset = address - memory.address();
+            if (whole == null || offset + size > whole.capacity()) {
+                view = MemoryUtil.directBuffer(address, (int) size);
+            } else if (offset == 0 && size == whole.capacity()) {
+                view = whole;
+            } else {
+                view = whole.slice((int) offset, (int) size).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            buffer = view;
+        }
+        return view;
     }
 }
-
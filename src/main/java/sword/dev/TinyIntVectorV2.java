@@ -0,0 +1,67 @@
+package sword.dev;
+
+import sword.dev.type.SwordType;
+
+public class TinyIntVectorV2 extends BaseFixedWidthVector {
+    private final SwordType.TinyInt type;
+
+    public TinyIntVectorV2(String name, BufferAllocator allocator) {
+        super(name, allocator, 1);
+        this.type = new SwordType.TinyInt();
+    }
+
+    @Override
+    public SwordType getType() {
+        return type;
+    }
+
+    @Override
+    public Object getObject(int index) {
+        return isNull(index) ? null : get(index);
+    }
+
+    @Override
+    public FieldVectorV2 getNewVector() {
+        return new TinyIntVectorV2(getName(), allocator);
+    }
+
+    @Override
+    public void set(int index, Object value) {
+        if (value == null) {
+            setNull(index);
+        } else if (value instanceof Byte) {
+            set(index, (byte) value);
+        } else {
+            throw new IllegalArgumentException("Value must be a Byte or null");
+        }
+    }
+
+    /**
+     * Copy an array of values into this vector starting at {@code index}, as one bulk memory copy.
+     */
+    public void setSimd(int index, byte[] values) {
+        dataBuffer.setBytes(index, values, 0, values.length);
+        markSetRange(index, values.length);
+    }
+
+    /**
+     * Copy {@code values.length} values starting at {@code index} into an array, as one bulk memory copy.
+     */
+    public void getSimd(int index, byte[] values) {
+        dataBuffer.getBytes(index, values, 0, values.length);
+    }
+
+    public void set(int index, byte value) {
+        dataBuffer.setByte(index, value);
+        markSet(index);
+    }
+
+    public void setSafe(int index, byte value) {
+        ensureCapacity(index + 1);
+        set(index, value);
+    }
+
+    public byte get(int index) {
+        return dataBuffer.getByte(index);
+    }
+}
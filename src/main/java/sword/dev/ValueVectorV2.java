@@ -100,12 +100,18 @@ public interface ValueVectorV2 extends Closeable, Iterable<Object> {
      */
     void setInitialCapacity(int numRecords);
 
+    /**
+     * Shrink the vector's buffers to what its current values need, handing the rest back to the
+     * allocator. Used once a vector is fully written and will only be read.
+     */
+    void shrinkToFit();
+
     /**
      * Get the number of bytes used by this vector.
      *
      * @return the number of bytes that is used by this vector instance.
      */
-    int getBufferSize();
+    long getBufferSize();
 
     /**
      * Returns the number of bytes that is used by this vector if it holds the given number of values.
@@ -113,7 +119,7 @@ public interface ValueVectorV2 extends Closeable, Iterable<Object> {
      * @param valueCount the number of values to assume this vector contains
      * @return the buffer size if this vector is holding valueCount values
      */
-    int getBufferSizeFor(int valueCount);
+    long getBufferSizeFor(int valueCount);
 
     /**
      * Return the underlying buffers associated with this vector.
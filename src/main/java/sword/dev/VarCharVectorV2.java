@@ -0,0 +1,589 @@
+package sword.dev;
+
+import sword.dev.exceptions.OutOfMemoryException;
+import sword.dev.type.SwordType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An off-heap vector of UTF-8 strings. Values are stored back to back in one data buffer, and an
+ * offset buffer of {@code valueCapacity + 1} ints gives where each one starts: value {@code i} is the
+ * bytes from {@code offset[i]} up to {@code offset[i + 1]}. Nullable vectors also keep a validity bitmap.
+ *
+ * <p>Values have to be written in index order, since each one starts where the previous one ends.
+ * Indexes skipped over are filled in as empty values, or as nulls in a nullable vector. The byte-level
+ * accessors read values in place, without building a {@link String}.
+ */
+public class VarCharVectorV2 extends BaseValueVectorV2 implements FieldVectorV2 {
+    public static final int DEFAULT_INITIAL_VALUE_CAPACITY = 4096;
+    public static final int DEFAULT_AVERAGE_VALUE_SIZE = 8;
+
+    private final SwordType.Utf8 type;
+    private SwordBuf offsetBuffer;
+    private SwordBuf dataBuffer;
+    private SwordBuf validityBuffer;
+    private long initialDataCapacity = -1;
+    private int valueCount;
+    private int lastSet = -1;
+    private boolean nullable;
+
+    public VarCharVectorV2(String name, BufferAllocator allocator) {
+        this(name, new SwordType.Utf8(), allocator);
+    }
+
+    public VarCharVectorV2(String name, SwordType.Utf8 type, BufferAllocator allocator) {
+        super(name, allocator);
+        this.type = type;
+        this.initialValueCapacity = DEFAULT_INITIAL_VALUE_CAPACITY;
+        this.valueCount = 0;
+        this.nullable = false;
+    }
+
+    @Override
+    public SwordType getType() {
+        return type;
+    }
+
+    /**
+     * Set the initial capacity in values, and size the data buffer for values of
+     * {@code averageValueSize} bytes on average.
+     */
+    public void setInitialCapacity(int numRecords, double averageValueSize) {
+        setInitialCapacity(numRecords);
+        long bytes = (long) Math.ceil(numRecords * averageValueSize);
+        if (bytes > Integer.MAX_VALUE) {
+            throw new OutOfMemoryException("Vector '" + name + "' cannot hold more than " + Integer.MAX_VALUE + " bytes of data");
+        }
+        this.initialDataCapacity = bytes;
+    }
+
+    @Override
+    public void allocateNew() throws OutOfMemoryException {
+        clear();
+        long dataCapacity = initialDataCapacity >= 0 ? initialDataCapacity
+                : Math.min((long) initialValueCapacity * DEFAULT_AVERAGE_VALUE_SIZE, Integer.MAX_VALUE);
+        offsetBuffer = allocateBuffer(((long) initialValueCapacity + 1) * 4);
+        dataBuffer = allocateBuffer(dataCapacity);
+        if (nullable) {
+            validityBuffer = allocateBuffer(getValidityBufferSizeFromCount(initialValueCapacity));
+        }
+    }
+
+    @Override
+    public boolean allocateNewSafe() {
+        try {
+            allocateNew();
+            return true;
+        } catch (OutOfMemoryException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void reAlloc() {
+        int capacity = getValueCapacity();
+        resize(nextValueCapacity(capacity, (long) capacity + 1));
+    }
+
+    /**
+     * Grow the offset and validity buffers, as the growth policy directs, until at least
+     * {@code minCapacity} values fit.
+     */
+    public void ensureCapacity(int minCapacity) {
+        int capacity = getValueCapacity();
+        if (minCapacity > capacity) {
+            resize(nextValueCapacity(capacity, minCapacity));
+        }
+    }
+
+    /**
+     * Grow the data buffer, as the growth policy directs, until at least {@code minBytes} bytes fit.
+     */
+    public void ensureDataCapacity(long minBytes) {
+        long capacity = getDataCapacity();
+        if (minBytes <= capacity) {
+            return;
+        }
+        if (minBytes > Integer.MAX_VALUE) {
+            throw new OutOfMemoryException("Vector '" + name + "' cannot hold more than " + Integer.MAX_VALUE + " bytes of data");
+        }
+        long newCapacity = Math.min(Math.max(growthPolicy.nextCapacity(capacity, minBytes), minBytes), Integer.MAX_VALUE);
+        dataBuffer = reallocateBuffer(dataBuffer, newCapacity);
+    }
+
+    @Override
+    public void shrinkToFit() {
+        if (offsetBuffer == null) {
+            return;
+        }
+        if (valueCount < getValueCapacity()) {
+            resize(valueCount);
+        }
+        long used = getEndOffset(lastSet);
+        if (used < dataBuffer.capacity()) {
+            dataBuffer = reallocateBuffer(dataBuffer, used);
+        }
+    }
+
+    private void resize(int valueCapacity) {
+        offsetBuffer = reallocateBuffer(offsetBuffer, ((long) valueCapacity + 1) * 4);
+        if (nullable) {
+            validityBuffer = reallocateBuffer(validityBuffer, getValidityBufferSizeFromCount(valueCapacity));
+        }
+    }
+
+    @Override
+    public int getValueCapacity() {
+        if (offsetBuffer == null) {
+            return 0;
+        }
+        return (int) Math.max(0, Math.min(offsetBuffer.capacity() / 4 - 1, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Get the size of the data buffer in bytes.
+     */
+    public long getDataCapacity() {
+        return dataBuffer == null ? 0 : dataBuffer.capacity();
+    }
+
+    @Override
+    public boolean isNull(int index) {
+        if (!nullable) return false;
+        return !BitVectorHelper.getBit(validityBuffer, index);
+    }
+
+    @Override
+    public int getValueCount() {
+        return valueCount;
+    }
+
+    /**
+     * Set the number of values. Values not yet written up to the new count become empty, or null in a
+     * nullable vector; values past it are dropped.
+     */
+    @Override
+    public void setValueCount(int valueCount) {
+        ensureCapacity(valueCount);
+        if (valueCount > lastSet + 1) {
+            fillHoles(valueCount);
+        }
+        lastSet = valueCount - 1;
+        this.valueCount = valueCount;
+    }
+
+    @Override
+    public void clear() {
+        valueCount = 0;
+        lastSet = -1;
+        releaseBuffer(offsetBuffer);
+        releaseBuffer(dataBuffer);
+        releaseBuffer(validityBuffer);
+        offsetBuffer = null;
+        dataBuffer = null;
+        validityBuffer = null;
+    }
+
+    /**
+     * Get a value as a {@link String}. Prefer the byte accessors on hot paths; this decodes and copies.
+     */
+    @Override
+    public Object getObject(int index) {
+        if (isNull(index)) {
+            return null;
+        }
+        return new String(get(index), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get a copy of a value's UTF-8 bytes.
+     */
+    public byte[] get(int index) {
+        byte[] value = new byte[getValueLength(index)];
+        dataBuffer.getBytes(getStartOffset(index), value, 0, value.length);
+        return value;
+    }
+
+    /**
+     * Copy a value's UTF-8 bytes into {@code dst} at {@code dstIndex}.
+     *
+     * @return the number of bytes copied
+     */
+    public int read(int index, byte[] dst, int dstIndex) {
+        int length = getValueLength(index);
+        dataBuffer.getBytes(getStartOffset(index), dst, dstIndex, length);
+        return length;
+    }
+
+    /**
+     * Get the offset in the data buffer where a value's bytes start.
+     */
+    public int getStartOffset(int index) {
+        return offsetBuffer.getInt((long) index << 2);
+    }
+
+    /**
+     * Get the offset in the data buffer just past a value's bytes.
+     */
+    public int getEndOffset(int index) {
+        return offsetBuffer.getInt(((long) index + 1) << 2);
+    }
+
+    public int getValueLength(int index) {
+        return getEndOffset(index) - getStartOffset(index);
+    }
+
+    /**
+     * Get a view of a value's bytes without copying. The view holds a reference to the data buffer and
+     * must be closed.
+     */
+    public SwordBuf getValueBuffer(int index) {
+        return dataBuffer.slice(getStartOffset(index), getValueLength(index));
+    }
+
+    /**
+     * Compare a value's bytes with {@code value} in place.
+     */
+    public boolean valueEquals(int index, byte[] value) {
+        int start = getStartOffset(index);
+        int length = getEndOffset(index) - start;
+        if (length != value.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (dataBuffer.getByte(start + i) != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void set(int index, Object value) {
+        if (value == null) {
+            setNull(index);
+        } else if (value instanceof String) {
+            set(index, ((String) value).getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof byte[]) {
+            set(index, (byte[]) value);
+        } else {
+            throw new IllegalArgumentException("Value must be a String, a UTF-8 byte[] or null");
+        }
+    }
+
+    @Override
+    public void setSafe(int index, Object value) {
+        if (value == null) {
+            ensureCapacity(index + 1);
+            setNull(index);
+        } else if (value instanceof String) {
+            setSafe(index, ((String) value).getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof byte[]) {
+            setSafe(index, (byte[]) value);
+        } else {
+            throw new IllegalArgumentException("Value must be a String, a UTF-8 byte[] or null");
+        }
+    }
+
+    public void set(int index, byte[] value) {
+        set(index, value, 0, value.length);
+    }
+
+    /**
+     * Write {@code length} UTF-8 bytes of {@code value} starting at {@code start} as the value at
+     * {@code index}, which must come after every value written so far.
+     */
+    public void set(int index, byte[] value, int start, int length) {
+        int offset = startWrite(index);
+        dataBuffer.setBytes(offset, value, start, length);
+        finishWrite(index, offset + length);
+    }
+
+    public void setSafe(int index, byte[] value) {
+        setSafe(index, value, 0, value.length);
+    }
+
+    public void setSafe(int index, byte[] value, int start, int length) {
+        ensureCapacity(index + 1);
+        ensureDataCapacity((long) nextOffset() + length);
+        set(index, value, start, length);
+    }
+
+    /**
+     * Write {@code length} bytes of another buffer as the value at {@code index}, with one memory copy.
+     */
+    public void setSafe(int index, SwordBuf value, long start, int length) {
+        ensureCapacity(index + 1);
+        ensureDataCapacity((long) nextOffset() + length);
+        int offset = startWrite(index);
+        dataBuffer.setBytes(offset, value, start, length);
+        finishWrite(index, offset + length);
+    }
+
+    public void setNull(int index) {
+        if (!nullable) throw new UnsupportedOperationException("This vector is not nullable");
+        int offset = startWrite(index);
+        finishWrite(index, offset);
+        BitVectorHelper.unsetBit(validityBuffer, index);
+    }
+
+    /**
+     * Append values packed back to back in {@code data}, with value {@code i} spanning
+     * {@code offsets[i]} to {@code offsets[i + 1]}. The bytes of all {@code count} values go over in one
+     * memory copy, growing the vector as needed.
+     */
+    public void append(byte[] data, int[] offsets, int count) {
+        int index = lastSet + 1;
+        ensureCapacity(index + count);
+        int base = nextOffset();
+        int first = offsets[0];
+        int length = offsets[count] - first;
+        ensureDataCapacity((long) base + length);
+        dataBuffer.setBytes(base, data, first, length);
+        for (int i = 1; i <= count; i++) {
+            offsetBuffer.setInt(((long) index + i) << 2, base + offsets[i] - first);
+        }
+        if (nullable) {
+            BitVectorHelper.setRange(validityBuffer, index, count);
+        }
+        lastSet = index + count - 1;
+        valueCount = Math.max(valueCount, lastSet + 1);
+    }
+
+    @Override
+    public void copyFrom(int fromIndex, int thisIndex, ValueVectorV2 from) {
+        if (!(from instanceof VarCharVectorV2)) {
+            throw new IllegalArgumentException("Cannot copy from " + from.getClass().getSimpleName());
+        }
+        VarCharVectorV2 fromVector = (VarCharVectorV2) from;
+        if (fromVector.isNull(fromIndex)) {
+            setNull(thisIndex);
+            return;
+        }
+        int offset = startWrite(thisIndex);
+        int length = fromVector.getValueLength(fromIndex);
+        dataBuffer.setBytes(offset, fromVector.dataBuffer, fromVector.getStartOffset(fromIndex), length);
+        finishWrite(thisIndex, offset + length);
+    }
+
+    @Override
+    public void copyFromSafe(int fromIndex, int thisIndex, ValueVectorV2 from) {
+        if (!(from instanceof VarCharVectorV2)) {
+            throw new IllegalArgumentException("Cannot copy from " + from.getClass().getSimpleName());
+        }
+        ensureCapacity(thisIndex + 1);
+        ensureDataCapacity((long) nextOffset() + ((VarCharVectorV2) from).getValueLength(fromIndex));
+        copyFrom(fromIndex, thisIndex, from);
+    }
+
+    @Override
+    public FieldVectorV2 getNewVector() {
+        VarCharVectorV2 vector = new VarCharVectorV2(getName(), type, allocator);
+        vector.setNullable(nullable);
+        return vector;
+    }
+
+    @Override
+    public void transferTo(FieldVectorV2 target) {
+        if (!(target instanceof VarCharVectorV2)) {
+            throw new IllegalArgumentException("Cannot transfer to " + target.getClass().getSimpleName());
+        }
+        VarCharVectorV2 targetVector = (VarCharVectorV2) target;
+        targetVector.clear();
+        targetVector.offsetBuffer = offsetBuffer;
+        targetVector.dataBuffer = dataBuffer;
+        targetVector.validityBuffer = validityBuffer;
+        targetVector.valueCount = valueCount;
+        targetVector.lastSet = lastSet;
+        targetVector.nullable = nullable;
+        offsetBuffer = null;
+        dataBuffer = null;
+        validityBuffer = null;
+        valueCount = 0;
+        lastSet = -1;
+    }
+
+    /**
+     * Copy values {@code fromIndex} up to {@code toIndex} to the target starting at
+     * {@code targetIndex}, which must come after every value the target already holds. Their bytes go
+     * over in one memory copy; the target grows as needed.
+     */
+    @Override
+    public void copySubset(int fromIndex, int toIndex, FieldVectorV2 target, int targetIndex) {
+        if (!(target instanceof VarCharVectorV2)) {
+            throw new IllegalArgumentException("Cannot copy subset to " + target.getClass().getSimpleName());
+        }
+        VarCharVectorV2 targetVector = (VarCharVectorV2) target;
+        int count = toIndex - fromIndex;
+        if (count <= 0) {
+            return;
+        }
+        targetVector.ensureCapacity(targetIndex + count);
+        int base = targetVector.startWrite(targetIndex);
+        int first = getStartOffset(fromIndex);
+        int length = getStartOffset(toIndex) - first;
+        targetVector.ensureDataCapacity((long) base + length);
+        targetVector.dataBuffer.setBytes(base, dataBuffer, first, length);
+        for (int i = 1; i <= count; i++) {
+            targetVector.offsetBuffer.setInt(((long) targetIndex + i) << 2, base + getStartOffset(fromIndex + i) - first);
+        }
+        if (nullable && targetVector.nullable) {
+            BitVectorHelper.copyBits(validityBuffer, fromIndex, targetVector.validityBuffer, targetIndex, count);
+        } else if (targetVector.nullable) {
+            BitVectorHelper.setRange(targetVector.validityBuffer, targetIndex, count);
+        }
+        targetVector.lastSet = targetIndex + count - 1;
+        targetVector.valueCount = Math.max(targetVector.valueCount, targetVector.lastSet + 1);
+    }
+
+    /**
+     * Get a view of values {@code start} up to {@code end} without copying. The slice shares this
+     * vector's data buffer and reads its offsets in place.
+     */
+    @Override
+    public FieldVectorV2 slice(int start, int end) {
+        VarCharVectorV2 sliced = new VarCharVectorV2(getName() + "[" + start + "," + end + "]", type, allocator);
+        int length = end - start;
+        sliced.offsetBuffer = offsetBuffer.slice((long) start << 2, ((long) length + 1) << 2);
+        sliced.dataBuffer = dataBuffer.slice(0, dataBuffer.capacity());
+        sliced.nullable = nullable;
+        if (nullable) {
+            if (start % 8 == 0) {
+                sliced.validityBuffer = validityBuffer.slice(start / 8, getValidityBufferSizeFromCount(length));
+            } else {
+                // Validity bits only line up with a shared byte when the slice starts on a byte boundary
+                sliced.validityBuffer = allocateBuffer(getValidityBufferSizeFromCount(length));
+                BitVectorHelper.copyBits(validityBuffer, start, sliced.validityBuffer, 0, length);
+            }
+        }
+        sliced.valueCount = length;
+        sliced.lastSet = length - 1;
+        return sliced;
+    }
+
+    @Override
+    public boolean isNullable() {
+        return nullable;
+    }
+
+    @Override
+    public void setNullable(boolean nullable) {
+        this.nullable = nullable;
+        if (nullable && validityBuffer == null && offsetBuffer != null) {
+            validityBuffer = allocateBuffer(getValidityBufferSizeFromCount(getValueCapacity()));
+        }
+    }
+
+    @Override
+    public int getNullCount() {
+        if (!nullable) return 0;
+        return BitVectorHelper.getNullCount(validityBuffer, valueCount);
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        return new Iterator<Object>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < valueCount;
+            }
+
+            @Override
+            public Object next() {
+                if (index >= valueCount) {
+                    throw new NoSuchElementException();
+                }
+                return getObject(index++);
+            }
+        };
+    }
+
+    @Override
+    public long getBufferSize() {
+        if (offsetBuffer == null) {
+            return 0;
+        }
+        return offsetBuffer.capacity() + dataBuffer.capacity() + (nullable ? validityBuffer.capacity() : 0);
+    }
+
+    @Override
+    public long getBufferSizeFor(int valueCount) {
+        if (valueCount == 0) {
+            return 0;
+        }
+        long dataSize = getEndOffset(valueCount - 1);
+        return ((long) valueCount + 1) * 4 + dataSize + (nullable ? getValidityBufferSizeFromCount(valueCount) : 0);
+    }
+
+    @Override
+    public SwordBuf[] getBuffers(boolean clear) {
+        SwordBuf[] buffers = nullable ? new SwordBuf[3] : new SwordBuf[2];
+        buffers[0] = offsetBuffer;
+        buffers[1] = dataBuffer;
+        if (nullable) {
+            buffers[2] = validityBuffer;
+        }
+        if (clear) {
+            // The caller takes over this vector's references
+            for (SwordBuf buffer : buffers) {
+                buffer.retain();
+            }
+            clear();
+        }
+        return buffers;
+    }
+
+    @Override
+    public SwordBuf getValidityBuffer() {
+        return validityBuffer;
+    }
+
+    @Override
+    public SwordBuf getDataBuffer() {
+        return dataBuffer;
+    }
+
+    @Override
+    public SwordBuf getOffsetBuffer() {
+        return offsetBuffer;
+    }
+
+    private int nextOffset() {
+        return offsetBuffer.getInt(((long) lastSet + 1) << 2);
+    }
+
+    // Check the write goes after the last value, fill in any values skipped over, and return where its bytes start
+    private int startWrite(int index) {
+        if (index <= lastSet) {
+            throw new IllegalStateException("Value " + index + " of vector '" + name
+                    + "' was already written; variable-width values must be written in index order");
+        }
+        fillHoles(index);
+        return nextOffset();
+    }
+
+    private void finishWrite(int index, int endOffset) {
+        offsetBuffer.setInt(((long) index + 1) << 2, endOffset);
+        if (nullable) {
+            BitVectorHelper.setBit(validityBuffer, index);
+        }
+        lastSet = index;
+        valueCount = Math.max(valueCount, index + 1);
+    }
+
+    // Give the values between the last one written and index an empty range, and make them null
+    private void fillHoles(int index) {
+        int offset = nextOffset();
+        for (int i = lastSet + 1; i < index; i++) {
+            offsetBuffer.setInt(((long) i + 1) << 2, offset);
+        }
+        if (nullable && index > lastSet + 1) {
+            BitVectorHelper.clearRange(validityBuffer, lastSet + 1, index - lastSet - 1);
+        }
+        lastSet = index - 1;
+    }
+}
@@ -0,0 +1,65 @@
+package sword.dev;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The {@link ValueVectorV2#getBufferSize()} of a set of vectors, totalled overall and by vector name.
+ */
+public final class VectorMemoryStats {
+    private final int vectorCount;
+    private final long totalBufferSize;
+    private final long maxBufferSize;
+    private final Map<String, Long> bufferSizeByName;
+
+    private VectorMemoryStats(int vectorCount, long totalBufferSize, long maxBufferSize,
+                              Map<String, Long> bufferSizeByName) {
+        this.vectorCount = vectorCount;
+        this.totalBufferSize = totalBufferSize;
+        this.maxBufferSize = maxBufferSize;
+        this.bufferSizeByName = Collections.unmodifiableMap(bufferSizeByName);
+    }
+
+    public static VectorMemoryStats of(Iterable<? extends ValueVectorV2> vectors) {
+        int count = 0;
+        long total = 0;
+        long max = 0;
+        Map<String, Long> byName = new LinkedHashMap<>();
+        for (ValueVectorV2 vector : vectors) {
+            long size = vector.getBufferSize();
+            count++;
+            total += size;
+            max = Math.max(max, size);
+            String name = vector instanceof BaseValueVectorV2 ? ((BaseValueVectorV2) vector).getName() : null;
+            byName.merge(String.valueOf(name), size, Long::sum);
+        }
+        return new VectorMemoryStats(count, total, max, byName);
+    }
+
+    public int getVectorCount() {
+        return vectorCount;
+    }
+
+    public long getTotalBufferSize() {
+        return totalBufferSize;
+    }
+
+    public long getMaxBufferSize() {
+        return maxBufferSize;
+    }
+
+    public long getAverageBufferSize() {
+        return vectorCount == 0 ? 0 : totalBufferSize / vectorCount;
+    }
+
+    public Map<String, Long> getBufferSizeByName() {
+        return bufferSizeByName;
+    }
+
+    @Override
+    public String toString() {
+        return "VectorMemoryStats[vectors=" + vectorCount + ", total=" + totalBufferSize + ", max=" + maxBufferSize
+                + ", byName=" + bufferSizeByName + "]";
+    }
+}
@@ -0,0 +1,21 @@
+package sword.dev;
+
+/**
+ * Whether the incubating Vector API can be used. It is only there when the JVM was started with
+ * {@code --add-modules=jdk.incubator.vector}, or runs Sword as a named module, so SIMD code paths are
+ * kept in classes of their own and only loaded when this says so. Setting
+ * {@code -Dsword.simd.disabled=true} forces the scalar paths.
+ */
+public final class VectorSupport {
+
+    private static final boolean AVAILABLE = !Boolean.getBoolean("sword.simd.disabled")
+            && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private VectorSupport() {
+        // Utility class, no instances
+    }
+
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+}
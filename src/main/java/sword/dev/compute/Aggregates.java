@@ -0,0 +1,262 @@
+package sword.dev.compute;
+
+import sword.dev.BigIntVectorV2;
+import sword.dev.FieldVectorV2;
+import sword.dev.Float4VectorV2;
+import sword.dev.Float8VectorV2;
+import sword.dev.IntVectorV2;
+import sword.dev.SmallIntVectorV2;
+import sword.dev.SwordBuf;
+import sword.dev.TinyIntVectorV2;
+import sword.dev.VectorSupport;
+
+/**
+ * Null-aware aggregates over fixed-width vectors, read straight from their data buffers. Null values
+ * are left out; {@code min}, {@code max} and {@code mean} return null when there are no non-null values,
+ * while {@code sum} returns zero. Integer sums are taken in a long and wrap like long arithmetic; float
+ * sums are taken in a double.
+ *
+ * <p>The kernels use the Vector API when {@link VectorSupport#isAvailable() it is available}, and plain
+ * loops otherwise. A vector whose nulls are known to be none skips its validity bitmap entirely. The
+ * vectorized float sums add in a different order than the loops, so their last bits can differ.
+ */
+public final class Aggregates {
+    private Aggregates() {
+        // Utility class, no instances
+    }
+
+    /**
+     * Count the non-null values of any vector.
+     */
+    public static int count(FieldVectorV2 vector) {
+        return vector.getValueCount() - vector.getNullCount();
+    }
+
+    public static long sum(IntVectorV2 vector) {
+        int count = vector.getValueCount();
+        if (count == 0) {
+            return 0;
+        }
+        SwordBuf validity = KernelSupport.validity(vector);
+        return KernelSupport.useSimd(vector)
+                ? VectorAggregates.sumInt(vector.getDataBuffer(), validity, count)
+                : ScalarAggregates.sumInt(vector.getDataBuffer(), validity, count);
+    }
+
+    public static Integer min(IntVectorV2 vector) {
+        if (count(vector) == 0) {
+            return null;
+        }
+        SwordBuf validity = KernelSupport.validity(vector);
+        int count = vector.getValueCount();
+        return KernelSupport.useSimd(vector)
+                ? VectorAggregates.minInt(vector.getDataBuffer(), validity, count)
+                : ScalarAggregates.minInt(vector.getDataBuffer(), validity, count);
+    }
+
+    public static Integer max(IntVectorV2 vector) {
+        if (count(vector) == 0) {
+            return null;
+        }
+        SwordBuf validity = KernelSupport.validity(vector);
+        int count = vector.getValueCount();
+        return KernelSupport.useSimd(vector)
+                ? VectorAggregates.maxInt(vector.getDataBuffer(), validity, count)
+                : ScalarAggregates.maxInt(vector.getDataBuffer(), validity, count);
+    }
+
+    public static Double mean(IntVectorV2 vector) {
+        int count = count(vector);
+        return count == 0 ? null : (double) sum(vector) / count;
+    }
+
+    public static long sum(BigIntVectorV2 vector) {
+        int count = vector.getValueCount();
+        if (count == 0) {
+            return 0;
+        }
+        SwordBuf validity = KernelSupport.validity(vector);
+        return KernelSupport.useSimd(vector)
+                ? VectorAggregates.sumLong(vector.getDataBuffer(), validity, count)
+                : ScalarAggregates.sumLong(vector.getDataBuffer(), validity, count);
+    }
+
+    public static Long min(BigIntVectorV2 vector) {
+        if (count(vector) == 0) {
+            return null;
+        }
+        SwordBuf validity = KernelSupport.validity(vector);
+        int count = vector.getValueCount();
+        return KernelSupport.useSimd(vector)
+                ? VectorAggregates.minLong(vector.getDataBuffer(), validity, count)
+                : ScalarAggregates.minLong(vector.getDataBuffer(), validity, count);
+    }
+
+    public static Long max(BigIntVectorV2 vector) {
+        if (count(vector) == 0) {
+            return null;
+        }
+        SwordBuf validity = KernelSupport.validity(vector);
+        int count = vector.getValueCount();
+        return KernelSupport.useSimd(vector)
+                ? VectorAggregates.maxLong(vector.getDataBuffer(), validity, count)
+                : ScalarAggregates.maxLong(vector.getDataBuffer(), validity, count);
+    }
+
+    public static Double mean(BigIntVectorV2 vector) {
+        int count = count(vector);
+        return count == 0 ? null : (double) sum(vector) / count;
+    }
+
+    public static long sum(SmallIntVectorV2 vector) {
+        int count = vector.getValueCount();
+        if (count == 0) {
+            return 0;
+        }
+        SwordBuf validity = KernelSupport.validity(vector);
+        return KernelSupport.useSimd(vector)
+                ? VectorAggregates.sumShort(vector.getDataBuffer(), validity, count)
+                : ScalarAggregates.sumShort(vector.getDataBuffer(), validity, count);
+    }
+
+    public static Short min(SmallIntVectorV2 vector) {
+        if (count(vector) == 0) {
+            return null;
+        }
+        SwordBuf validity = KernelSupport.validity(vector);
+        int count = vector.getValueCount();
+        return KernelSupport.useSimd(vector)
+                ? VectorAggregates.minShort(vector.getDataBuffer(), validity, count)
+                : ScalarAggregates.minShort(vector.getDataBuffer(), validity, count);
+    }
+
+    public static Short max(SmallIntVectorV2 vector) {
+        if (count(vector) == 0) {
+            return null;
+        }
+        SwordBuf validity = KernelSupport.validity(vector);
+        int count = vector.getValueCount();
+        return KernelSupport.useSimd(vector)
+                ? VectorAggregates.maxShort(vector.getDataBuffer(), validity, count)
+                : ScalarAggregates.maxShort(vector.getDataBuffer(), validity, count);
+    }
+
+    public static Double mean(SmallIntVectorV2 vector) {
+        int count = count(vector);
+        return count == 0 ? null : (double) sum(vector) / count;
+    }
+
+    public static long sum(TinyIntVectorV2 vector) {
+        int count = vector.getValueCount();
+        if (count == 0) {
+            return 0;
+        }
+        SwordBuf validity = KernelSupport.validity(vector);
+        return KernelSupport.useSimd(vector)
+                ? VectorAggregates.sumByte(vector.getDataBuffer(), validity, count)
+                : ScalarAggregates.sumByte(vector.getDataBuffer(), validity, count);
+    }
+
+    public static Byte min(TinyIntVectorV2 vector) {
+        if (count(vector) == 0) {
+            return null;
+        }
+        SwordBuf validity = KernelSupport.validity(vector);
+        int count = vector.getValueCount();
+        return KernelSupport.useSimd(vector)
+                ? VectorAggregates.minByte(vector.getDataBuffer(), validity, count)
+                : ScalarAggregates.minByte(vector.getDataBuffer(), validity, count);
+    }
+
+    public static Byte max(TinyIntVectorV2 vector) {
+        if (count(vector) == 0) {
+            return null;
+        }
+        SwordBuf validity = KernelSupport.validity(vector);
+        int count = vector.getValueCount();
+        return KernelSupport.useSimd(vector)
+                ? VectorAggregates.maxByte(vector.getDataBuffer(), validity, count)
+                : ScalarAggregates.maxByte(vector.getDataBuffer(), validity, count);
+    }
+
+    public static Double mean(TinyIntVectorV2 vector) {
+        int count = count(vector);
+        return count == 0 ? null : (double) sum(vector) / count;
+    }
+
+    public static double sum(Float4VectorV2 vector) {
+        int count = vector.getValueCount();
+        if (count == 0) {
+            return 0;
+        }
+        SwordBuf validity = KernelSupport.validity(vector);
+        return KernelSupport.useSimd(vector)
+                ? VectorAggregates.sumFloat(vector.getDataBuffer(), validity, count)
+                : ScalarAggregates.sumFloat(vector.getDataBuffer(), validity, count);
+    }
+
+    public static Float min(Float4VectorV2 vector) {
+        if (count(vector) == 0) {
+            return null;
+        }
+        SwordBuf validity = KernelSupport.validity(vector);
+        int count = vector.getValueCount();
+        return KernelSupport.useSimd(vector)
+                ? VectorAggregates.minFloat(vector.getDataBuffer(), validity, count)
+                : ScalarAggregates.minFloat(vector.getDataBuffer(), validity, count);
+    }
+
+    public static Float max(Float4VectorV2 vector) {
+        if (count(vector) == 0) {
+            return null;
+        }
+        SwordBuf validity = KernelSupport.validity(vector);
+        int count = vector.getValueCount();
+        return KernelSupport.useSimd(vector)
+                ? VectorAggregates.maxFloat(vector.getDataBuffer(), validity, count)
+                : ScalarAggregates.maxFloat(vector.getDataBuffer(), validity, count);
+    }
+
+    public static Double mean(Float4VectorV2 vector) {
+        int count = count(vector);
+        return count == 0 ? null : sum(vector) / count;
+    }
+
+    public static double sum(Float8VectorV2 vector) {
+        int count = vector.getValueCount();
+        if (count == 0) {
+            return 0;
+        }
+        SwordBuf validity = KernelSupport.validity(vector);
+        return KernelSupport.useSimd(vector)
+                ? VectorAggregates.sumDouble(vector.getDataBuffer(), validity, count)
+                : ScalarAggregates.sumDouble(vector.getDataBuffer(), validity, count);
+    }
+
+    public static Double min(Float8VectorV2 vector) {
+        if (count(vector) == 0) {
+            return null;
+        }
+        SwordBuf validity = KernelSupport.validity(vector);
+        int count = vector.getValueCount();
+        return KernelSupport.useSimd(vector)
+                ? VectorAggregates.minDouble(vector.getDataBuffer(), validity, count)
+                : ScalarAggregates.minDouble(vector.getDataBuffer(), validity, count);
+    }
+
+    public static Double max(Float8VectorV2 vector) {
+        if (count(vector) == 0) {
+            return null;
+        }
+        SwordBuf validity = KernelSupport.validity(vector);
+        int count = vector.getValueCount();
+        return KernelSupport.useSimd(vector)
+                ? VectorAggregates.maxDouble(vector.getDataBuffer(), validity, count)
+                : ScalarAggregates.maxDouble(vector.getDataBuffer(), validity, count);
+    }
+
+    public static Double mean(Float8VectorV2 vector) {
+        int count = count(vector);
+        return count == 0 ? null : sum(vector) / count;
+    }
+}
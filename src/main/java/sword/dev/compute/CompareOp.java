@@ -0,0 +1,53 @@
+package sword.dev.compute;
+
+/**
+ * The comparisons a filter kernel can test each value against a constant with.
+ */
+public enum CompareOp {
+    EQ, NE, LT, LE, GT, GE;
+
+    boolean test(int value, int operand) {
+        return test(Integer.compare(value, operand));
+    }
+
+    boolean test(long value, long operand) {
+        return test(Long.compare(value, operand));
+    }
+
+    /**
+     * Compare with the IEEE 754 operators, so NaN is unequal to everything, itself included.
+     */
+    boolean test(double value, double operand) {
+        switch (this) {
+            case EQ:
+                return value == operand;
+            case NE:
+                return value != operand;
+            case LT:
+                return value < operand;
+            case LE:
+                return value <= operand;
+            case GT:
+                return value > operand;
+            default:
+                return value >= operand;
+        }
+    }
+
+    private boolean test(int comparison) {
+        switch (this) {
+            case EQ:
+                return comparison == 0;
+            case NE:
+                return comparison != 0;
+            case LT:
+                return comparison < 0;
+            case LE:
+                return comparison <= 0;
+            case GT:
+                return comparison > 0;
+            default:
+                return comparison >= 0;
+        }
+    }
+}
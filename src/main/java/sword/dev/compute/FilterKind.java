@@ -0,0 +1,9 @@
+package sword.dev.compute;
+
+/**
+ * The shapes of predicate the filter kernels evaluate: a comparison with one constant, an inclusive
+ * range, or membership in a list.
+ */
+enum FilterKind {
+    COMPARE, BETWEEN, IN
+}
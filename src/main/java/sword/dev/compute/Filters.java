@@ -0,0 +1,330 @@
+package sword.dev.compute;
+
+import sword.dev.BaseFixedWidthVector;
+import sword.dev.BigIntVectorV2;
+import sword.dev.BitVectorHelper;
+import sword.dev.BitVectorV2;
+import sword.dev.FieldVectorV2;
+import sword.dev.Float8VectorV2;
+import sword.dev.IntVectorV2;
+import sword.dev.SwordBuf;
+import sword.dev.VectorSupport;
+
+/**
+ * Predicate kernels over int, long and double vectors, and the gather that applies their result. Each
+ * predicate comes in two forms: one returning a {@link BitVectorV2} with a bit set per matching row, and
+ * one writing the matching row indices, in order, into a selection array. Null rows never match.
+ *
+ * <p>Rows are tested with the Vector API when {@link VectorSupport#isAvailable() it is available}, and
+ * with plain loops otherwise. Bitmaps are allocated from the filtered vector's allocator and belong to the
+ * caller.
+ */
+public final class Filters {
+
+    private Filters() {
+        // Utility class, no instances
+    }
+
+    /**
+     * Mark the rows whose value compares to {@code value} as {@code op} says.
+     */
+    public static BitVectorV2 compare(IntVectorV2 vector, CompareOp op, int value) {
+        BitVectorV2 result = newBitmap(vector);
+        filter(vector, FilterKind.COMPARE, op, value, value, null, MatchSink.toBitmap(result.getDataBuffer()));
+        return finish(result, vector);
+    }
+
+    /**
+     * Collect the rows whose value compares to {@code value} as {@code op} says.
+     *
+     * @param selection must have room for every row that can match
+     * @return the number of rows selected
+     */
+    public static int select(IntVectorV2 vector, CompareOp op, int value, int[] selection) {
+        MatchSink sink = MatchSink.toSelection(selection);
+        filter(vector, FilterKind.COMPARE, op, value, value, null, sink);
+        return sink.getSelected();
+    }
+
+    /**
+     * Mark the rows whose value lies from {@code low} to {@code high}, both included.
+     */
+    public static BitVectorV2 between(IntVectorV2 vector, int low, int high) {
+        BitVectorV2 result = newBitmap(vector);
+        filter(vector, FilterKind.BETWEEN, null, low, high, null, MatchSink.toBitmap(result.getDataBuffer()));
+        return finish(result, vector);
+    }
+
+    public static int selectBetween(IntVectorV2 vector, int low, int high, int[] selection) {
+        MatchSink sink = MatchSink.toSelection(selection);
+        filter(vector, FilterKind.BETWEEN, null, low, high, null, sink);
+        return sink.getSelected();
+    }
+
+    /**
+     * Mark the rows whose value is one of {@code values}.
+     */
+    public static BitVectorV2 in(IntVectorV2 vector, int... values) {
+        BitVectorV2 result = newBitmap(vector);
+        filter(vector, FilterKind.IN, null, 0, 0, values, MatchSink.toBitmap(result.getDataBuffer()));
+        return finish(result, vector);
+    }
+
+    public static int selectIn(IntVectorV2 vector, int[] values, int[] selection) {
+        MatchSink sink = MatchSink.toSelection(selection);
+        filter(vector, FilterKind.IN, null, 0, 0, values, sink);
+        return sink.getSelected();
+    }
+
+    private static void filter(IntVectorV2 vector, FilterKind kind, CompareOp op, int low, int high, int[] values, MatchSink sink) {
+        int count = vector.getValueCount();
+        if (count == 0) {
+            return;
+        }
+        SwordBuf validity = KernelSupport.validity(vector);
+        if (KernelSupport.useSimd(vector)) {
+            VectorFilters.filterInt(vector.getDataBuffer(), validity, count, kind, op, low, high, values, sink);
+        } else {
+            ScalarFilters.filterInt(vector.getDataBuffer(), validity, count, kind, op, low, high, values, sink);
+        }
+    }
+
+    /**
+     * Mark the rows whose value compares to {@code value} as {@code op} says.
+     */
+    public static BitVectorV2 compare(BigIntVectorV2 vector, CompareOp op, long value) {
+        BitVectorV2 result = newBitmap(vector);
+        filter(vector, FilterKind.COMPARE, op, value, value, null, MatchSink.toBitmap(result.getDataBuffer()));
+        return finish(result, vector);
+    }
+
+    /**
+     * Collect the rows whose value compares to {@code value} as {@code op} says.
+     *
+     * @param selection must have room for every row that can match
+     * @return the number of rows selected
+     */
+    public static int select(BigIntVectorV2 vector, CompareOp op, long value, int[] selection) {
+        MatchSink sink = MatchSink.toSelection(selection);
+        filter(vector, FilterKind.COMPARE, op, value, value, null, sink);
+        return sink.getSelected();
+    }
+
+    /**
+     * Mark the rows whose value lies from {@code low} to {@code high}, both included.
+     */
+    public static BitVectorV2 between(BigIntVectorV2 vector, long low, long high) {
+        BitVectorV2 result = newBitmap(vector);
+        filter(vector, FilterKind.BETWEEN, null, low, high, null, MatchSink.toBitmap(result.getDataBuffer()));
+        return finish(result, vector);
+    }
+
+    public static int selectBetween(BigIntVectorV2 vector, long low, long high, int[] selection) {
+        MatchSink sink = MatchSink.toSelection(selection);
+        filter(vector, FilterKind.BETWEEN, null, low, high, null, sink);
+        return sink.getSelected();
+    }
+
+    /**
+     * Mark the rows whose value is one of {@code values}.
+     */
+    public static BitVectorV2 in(BigIntVectorV2 vector, long... values) {
+        BitVectorV2 result = newBitmap(vector);
+        filter(vector, FilterKind.IN, null, 0, 0, values, MatchSink.toBitmap(result.getDataBuffer()));
+        return finish(result, vector);
+    }
+
+    public static int selectIn(BigIntVectorV2 vector, long[] values, int[] selection) {
+        MatchSink sink = MatchSink.toSelection(selection);
+        filter(vector, FilterKind.IN, null, 0, 0, values, sink);
+        return sink.getSelected();
+    }
+
+    private static void filter(BigIntVectorV2 vector, FilterKind kind, CompareOp op, long low, long high, long[] values, MatchSink sink) {
+        int count = vector.getValueCount();
+        if (count == 0) {
+            return;
+        }
+        SwordBuf validity = KernelSupport.validity(vector);
+        if (KernelSupport.useSimd(vector)) {
+            VectorFilters.filterLong(vector.getDataBuffer(), validity, count, kind, op, low, high, values, sink);
+        } else {
+            ScalarFilters.filterLong(vector.getDataBuffer(), validity, count, kind, op, low, high, values, sink);
+        }
+    }
+
+    /**
+     * Mark the rows whose value compares to {@code value} as {@code op} says.
+     */
+    public static BitVectorV2 compare(Float8VectorV2 vector, CompareOp op, double value) {
+        BitVectorV2 result = newBitmap(vector);
+        filter(vector, FilterKind.COMPARE, op, value, value, null, MatchSink.toBitmap(result.getDataBuffer()));
+        return finish(result, vector);
+    }
+
+    /**
+     * Collect the rows whose value compares to {@code value} as {@code op} says.
+     *
+     * @param selection must have room for every row that can match
+     * @return the number of rows selected
+     */
+    public static int select(Float8VectorV2 vector, CompareOp op, double value, int[] selection) {
+        MatchSink sink = MatchSink.toSelection(selection);
+        filter(vector, FilterKind.COMPARE, op, value, value, null, sink);
+        return sink.getSelected();
+    }
+
+    /**
+     * Mark the rows whose value lies from {@code low} to {@code high}, both included.
+     */
+    public static BitVectorV2 between(Float8VectorV2 vector, double low, double high) {
+        BitVectorV2 result = newBitmap(vector);
+        filter(vector, FilterKind.BETWEEN, null, low, high, null, MatchSink.toBitmap(result.getDataBuffer()));
+        return finish(result, vector);
+    }
+
+    public static int selectBetween(Float8VectorV2 vector, double low, double high, int[] selection) {
+        MatchSink sink = MatchSink.toSelection(selection);
+        filter(vector, FilterKind.BETWEEN, null, low, high, null, sink);
+        return sink.getSelected();
+    }
+
+    /**
+     * Mark the rows whose value is one of {@code values}.
+     */
+    public static BitVectorV2 in(Float8VectorV2 vector, double... values) {
+        BitVectorV2 result = newBitmap(vector);
+        filter(vector, FilterKind.IN, null, 0, 0, values, MatchSink.toBitmap(result.getDataBuffer()));
+        return finish(result, vector);
+    }
+
+    public static int selectIn(Float8VectorV2 vector, double[] values, int[] selection) {
+        MatchSink sink = MatchSink.toSelection(selection);
+        filter(vector, FilterKind.IN, null, 0, 0, values, sink);
+        return sink.getSelected();
+    }
+
+    private static void filter(Float8VectorV2 vector, FilterKind kind, CompareOp op, double low, double high, double[] values, MatchSink sink) {
+        int count = vector.getValueCount();
+        if (count == 0) {
+            return;
+        }
+        SwordBuf validity = KernelSupport.validity(vector);
+        if (KernelSupport.useSimd(vector)) {
+            VectorFilters.filterDouble(vector.getDataBuffer(), validity, count, kind, op, low, high, values, sink);
+        } else {
+            ScalarFilters.filterDouble(vector.getDataBuffer(), validity, count, kind, op, low, high, values, sink);
+        }
+    }
+
+    private static BitVectorV2 newBitmap(FieldVectorV2 vector) {
+        BitVectorV2 result = new BitVectorV2(vector.getName(), vector.getAllocator());
+        result.setInitialCapacity(vector.getValueCount());
+        result.allocateNew();
+        return result;
+    }
+
+    private static BitVectorV2 finish(BitVectorV2 result, FieldVectorV2 vector) {
+        result.setValueCount(vector.getValueCount());
+        return result;
+    }
+
+    /**
+     * Copy the rows listed in {@code selection} into a new vector of the same type, in the order listed.
+     * Fixed-width vectors are gathered straight between their buffers; any other vector row by row through
+     * {@link FieldVectorV2#copyFromSafe}, which for variable-width vectors needs the rows in ascending
+     * order.
+     *
+     * @param count the number of entries of {@code selection} to use
+     */
+    public static FieldVectorV2 gather(FieldVectorV2 vector, int[] selection, int count) {
+        FieldVectorV2 target = vector.getNewVector();
+        target.setNullable(vector.isNullable());
+        target.setInitialCapacity(count);
+        target.allocateNew();
+        try {
+            gather(vector, selection, count, target);
+        } catch (RuntimeException e) {
+            target.close();
+            throw e;
+        }
+        return target;
+    }
+
+    /**
+     * Copy the rows listed in {@code selection} into {@code target}, a vector of the same class, replacing
+     * what it held. The target keeps its buffers and only grows them when the rows don't fit, so one target
+     * can take batch after batch without reallocating.
+     *
+     * @param count the number of entries of {@code selection} to use
+     */
+    public static void gather(FieldVectorV2 vector, int[] selection, int count, FieldVectorV2 target) {
+        if (target.getClass() != vector.getClass()) {
+            throw new IllegalArgumentException("Cannot gather a " + vector.getClass().getSimpleName()
+                    + " into a " + target.getClass().getSimpleName());
+        }
+        if (!target.isNullable() && vector.getNullCount() > 0) {
+            throw new IllegalArgumentException("Cannot gather nulls into a non-nullable vector");
+        }
+        // Forget the previous rows, which also drops the target's cached null count
+        target.setValueCount(0);
+        if (vector instanceof BaseFixedWidthVector) {
+            BaseFixedWidthVector fixedWidthTarget = (BaseFixedWidthVector) target;
+            fixedWidthTarget.ensureCapacity(count);
+            gatherFixedWidth((BaseFixedWidthVector) vector, selection, count, fixedWidthTarget);
+        } else {
+            for (int i = 0; i < count; i++) {
+                target.copyFromSafe(selection[i], i, vector);
+            }
+        }
+        target.setValueCount(count);
+    }
+
+    private static void gatherFixedWidth(BaseFixedWidthVector vector, int[] selection, int count, BaseFixedWidthVector target) {
+        int valueCount = vector.getValueCount();
+        for (int i = 0; i < count; i++) {
+            if (selection[i] < 0 || selection[i] >= valueCount) {
+                throw new IndexOutOfBoundsException("Index " + selection[i] + " out of bounds for length " + valueCount);
+            }
+        }
+        SwordBuf source = vector.getDataBuffer();
+        SwordBuf data = target.getDataBuffer();
+        int width = vector.getTypeWidth();
+        switch (width) {
+            case 1:
+                for (int i = 0; i < count; i++) {
+                    data.setByte(i, source.getByte(selection[i]));
+                }
+                break;
+            case 2:
+                for (int i = 0; i < count; i++) {
+                    data.setShort((long) i << 1, source.getShort((long) selection[i] << 1));
+                }
+                break;
+            case 4:
+                for (int i = 0; i < count; i++) {
+                    data.setInt((long) i << 2, source.getInt((long) selection[i] << 2));
+                }
+                break;
+            case 8:
+                for (int i = 0; i < count; i++) {
+                    data.setLong((long) i << 3, source.getLong((long) selection[i] << 3));
+                }
+                break;
+            default:
+                for (int i = 0; i < count; i++) {
+                    data.setBytes((long) i * width, source, (long) selection[i] * width, width);
+                }
+        }
+        if (target.isNullable()) {
+            SwordBuf validity = target.getValidityBuffer();
+            if (vector.isAllValid()) {
+                BitVectorHelper.setRange(validity, 0, count);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    BitVectorHelper.setValidityBuffer(validity, i, !vector.isNull(selection[i]));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package sword.dev.compute;
+
+import sword.dev.BaseFixedWidthVector;
+import sword.dev.SwordBuf;
+import sword.dev.VectorSupport;
+
+/**
+ * Choices shared by the kernels: whether to take the Vector API path and which validity bitmap, if any,
+ * to check.
+ */
+final class KernelSupport {
+    static final boolean SIMD = VectorSupport.isAvailable();
+
+    private KernelSupport() {
+        // Utility class, no instances
+    }
+
+    /**
+     * Get the validity bitmap to check, or null when every value is valid.
+     */
+    static SwordBuf validity(BaseFixedWidthVector vector) {
+        return vector.isAllValid() ? null : vector.getValidityBuffer();
+    }
+
+    /**
+     * Whether to use the Vector API kernels. Buffers too large for an NIO view are read by the loops.
+     */
+    static boolean useSimd(BaseFixedWidthVector vector) {
+        return SIMD && vector.getDataBuffer().capacity() <= Integer.MAX_VALUE;
+    }
+}
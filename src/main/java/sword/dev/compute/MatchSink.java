@@ -0,0 +1,45 @@
+package sword.dev.compute;
+
+import sword.dev.SwordBuf;
+
+/**
+ * Where a filter kernel puts the rows that matched, 64 rows at a time: either as words of a bitmap or
+ * expanded into a list of row indices.
+ */
+final class MatchSink {
+    private final SwordBuf bitmap;
+    private final int[] selection;
+    private int selected;
+
+    private MatchSink(SwordBuf bitmap, int[] selection) {
+        this.bitmap = bitmap;
+        this.selection = selection;
+    }
+
+    static MatchSink toBitmap(SwordBuf bitmap) {
+        return new MatchSink(bitmap, null);
+    }
+
+    static MatchSink toSelection(int[] selection) {
+        return new MatchSink(null, selection);
+    }
+
+    /**
+     * Take the matches among the 64 rows starting at {@code base}, which is a multiple of 64.
+     */
+    void accept(int base, long matches) {
+        if (bitmap != null) {
+            bitmap.setLong((long) (base >>> 6) << 3, matches);
+            return;
+        }
+        while (matches != 0) {
+            selection[selected++] = base + Long.numberOfTrailingZeros(matches);
+            // Clear the lowest set bit
+            matches &= matches - 1;
+        }
+    }
+
+    int getSelected() {
+        return selected;
+    }
+}
@@ -0,0 +1,200 @@
+package sword.dev.compute;
+
+import sword.dev.BitVectorHelper;
+import sword.dev.SwordBuf;
+
+/**
+ * The one-value-at-a-time kernels behind {@link Aggregates}, used when the Vector API is not available
+ * or a buffer has no NIO view. A null validity buffer means every value is valid, and the loop skips the
+ * bitmap.
+ */
+final class ScalarAggregates {
+
+    private ScalarAggregates() {
+        // Utility class, no instances
+    }
+
+    private static boolean valid(SwordBuf validity, int index) {
+        return validity == null || BitVectorHelper.getBit(validity, index);
+    }
+
+    static long sumInt(SwordBuf data, SwordBuf validity, int count) {
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            if (valid(validity, i)) {
+                sum += data.getInt((long) i << 2);
+            }
+        }
+        return sum;
+    }
+
+    static int minInt(SwordBuf data, SwordBuf validity, int count) {
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            if (valid(validity, i)) {
+                min = Math.min(min, data.getInt((long) i << 2));
+            }
+        }
+        return min;
+    }
+
+    static int maxInt(SwordBuf data, SwordBuf validity, int count) {
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            if (valid(validity, i)) {
+                max = Math.max(max, data.getInt((long) i << 2));
+            }
+        }
+        return max;
+    }
+
+    static long sumLong(SwordBuf data, SwordBuf validity, int count) {
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            if (valid(validity, i)) {
+                sum += data.getLong((long) i << 3);
+            }
+        }
+        return sum;
+    }
+
+    static long minLong(SwordBuf data, SwordBuf validity, int count) {
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            if (valid(validity, i)) {
+                min = Math.min(min, data.getLong((long) i << 3));
+            }
+        }
+        return min;
+    }
+
+    static long maxLong(SwordBuf data, SwordBuf validity, int count) {
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            if (valid(validity, i)) {
+                max = Math.max(max, data.getLong((long) i << 3));
+            }
+        }
+        return max;
+    }
+
+    static long sumShort(SwordBuf data, SwordBuf validity, int count) {
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            if (valid(validity, i)) {
+                sum += data.getShort((long) i << 1);
+            }
+        }
+        return sum;
+    }
+
+    static short minShort(SwordBuf data, SwordBuf validity, int count) {
+        int min = Short.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            if (valid(validity, i)) {
+                min = Math.min(min, data.getShort((long) i << 1));
+            }
+        }
+        return (short) min;
+    }
+
+    static short maxShort(SwordBuf data, SwordBuf validity, int count) {
+        int max = Short.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            if (valid(validity, i)) {
+                max = Math.max(max, data.getShort((long) i << 1));
+            }
+        }
+        return (short) max;
+    }
+
+    static long sumByte(SwordBuf data, SwordBuf validity, int count) {
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            if (valid(validity, i)) {
+                sum += data.getByte(i);
+            }
+        }
+        return sum;
+    }
+
+    static byte minByte(SwordBuf data, SwordBuf validity, int count) {
+        int min = Byte.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            if (valid(validity, i)) {
+                min = Math.min(min, data.getByte(i));
+            }
+        }
+        return (byte) min;
+    }
+
+    static byte maxByte(SwordBuf data, SwordBuf validity, int count) {
+        int max = Byte.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            if (valid(validity, i)) {
+                max = Math.max(max, data.getByte(i));
+            }
+        }
+        return (byte) max;
+    }
+
+    static double sumFloat(SwordBuf data, SwordBuf validity, int count) {
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            if (valid(validity, i)) {
+                sum += data.getFloat((long) i << 2);
+            }
+        }
+        return sum;
+    }
+
+    static float minFloat(SwordBuf data, SwordBuf validity, int count) {
+        float min = Float.POSITIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            if (valid(validity, i)) {
+                min = Math.min(min, data.getFloat((long) i << 2));
+            }
+        }
+        return min;
+    }
+
+    static float maxFloat(SwordBuf data, SwordBuf validity, int count) {
+        float max = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            if (valid(validity, i)) {
+                max = Math.max(max, data.getFloat((long) i << 2));
+            }
+        }
+        return max;
+    }
+
+    static double sumDouble(SwordBuf data, SwordBuf validity, int count) {
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            if (valid(validity, i)) {
+                sum += data.getDouble((long) i << 3);
+            }
+        }
+        return sum;
+    }
+
+    static double minDouble(SwordBuf data, SwordBuf validity, int count) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            if (valid(validity, i)) {
+                min = Math.min(min, data.getDouble((long) i << 3));
+            }
+        }
+        return min;
+    }
+
+    static double maxDouble(SwordBuf data, SwordBuf validity, int count) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            if (valid(validity, i)) {
+                max = Math.max(max, data.getDouble((long) i << 3));
+            }
+        }
+        return max;
+    }
+}
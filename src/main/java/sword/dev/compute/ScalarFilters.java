@@ -0,0 +1,114 @@
+package sword.dev.compute;
+
+import sword.dev.BitVectorHelper;
+import sword.dev.SwordBuf;
+
+/**
+ * The one-value-at-a-time kernels behind {@link Filters}. Rows are tested 64 at a time so the matches
+ * come out as whole bitmap words, which are then masked with the validity bitmap, if any.
+ */
+final class ScalarFilters {
+
+    private ScalarFilters() {
+        // Utility class, no instances
+    }
+
+    static void filterInt(SwordBuf data, SwordBuf validity, int count, FilterKind kind, CompareOp op,
+                          int low, int high, int[] values, MatchSink sink) {
+        for (int base = 0; base < count; base += 64) {
+            int rows = Math.min(64, count - base);
+            long matches = 0;
+            for (int j = 0; j < rows; j++) {
+                if (matches(data.getInt((long) (base + j) << 2), kind, op, low, high, values)) {
+                    matches |= 1L << j;
+                }
+            }
+            if (validity != null) {
+                matches &= BitVectorHelper.getBits(validity, base, rows);
+            }
+            sink.accept(base, matches);
+        }
+    }
+
+    private static boolean matches(int value, FilterKind kind, CompareOp op, int low, int high, int[] values) {
+        switch (kind) {
+            case COMPARE:
+                return op.test(value, low);
+            case BETWEEN:
+                return value >= low && value <= high;
+            default:
+                for (int candidate : values) {
+                    if (value == candidate) {
+                        return true;
+                    }
+                }
+                return false;
+        }
+    }
+
+    static void filterLong(SwordBuf data, SwordBuf validity, int count, FilterKind kind, CompareOp op,
+                          long low, long high, long[] values, MatchSink sink) {
+        for (int base = 0; base < count; base += 64) {
+            int rows = Math.min(64, count - base);
+            long matches = 0;
+            for (int j = 0; j < rows; j++) {
+                if (matches(data.getLong((long) (base + j) << 3), kind, op, low, high, values)) {
+                    matches |= 1L << j;
+                }
+            }
+            if (validity != null) {
+                matches &= BitVectorHelper.getBits(validity, base, rows);
+            }
+            sink.accept(base, matches);
+        }
+    }
+
+    private static boolean matches(long value, FilterKind kind, CompareOp op, long low, long high, long[] values) {
+        switch (kind) {
+            case COMPARE:
+                return op.test(value, low);
+            case BETWEEN:
+                return value >= low && value <= high;
+            default:
+                for (long candidate : values) {
+                    if (value == candidate) {
+                        return true;
+                    }
+                }
+                return false;
+        }
+    }
+
+    static void filterDouble(SwordBuf data, SwordBuf validity, int count, FilterKind kind, CompareOp op,
+                          double low, double high, double[] values, MatchSink sink) {
+        for (int base = 0; base < count; base += 64) {
+            int rows = Math.min(64, count - base);
+            long matches = 0;
+            for (int j = 0; j < rows; j++) {
+                if (matches(data.getDouble((long) (base + j) << 3), kind, op, low, high, values)) {
+                    matches |= 1L << j;
+                }
+            }
+            if (validity != null) {
+                matches &= BitVectorHelper.getBits(validity, base, rows);
+            }
+            sink.accept(base, matches);
+        }
+    }
+
+    private static boolean matches(double value, FilterKind kind, CompareOp op, double low, double high, double[] values) {
+        switch (kind) {
+            case COMPARE:
+                return op.test(value, low);
+            case BETWEEN:
+                return value >= low && value <= high;
+            default:
+                for (double candidate : values) {
+                    if (value == candidate) {
+                        return true;
+                    }
+                }
+                return false;
+        }
+    }
+}
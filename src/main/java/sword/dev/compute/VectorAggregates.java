@@ -0,0 +1,283 @@
+package sword.dev.compute;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import sword.dev.BitVectorHelper;
+import sword.dev.SwordBuf;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The Vector API kernels behind {@link Aggregates}, loading lanes straight from the data buffer's NIO
+ * view. Whole vectors of valid values are loaded unmasked; a partial last vector, and every vector of a
+ * column with nulls, is loaded under a mask so the lanes past the end or null read as zero and are left
+ * out. Only loaded when the Vector API is available.
+ *
+ * <p>Narrow values are widened before adding so sums cannot overflow: ints to longs, floats to doubles,
+ * and shorts and bytes to ints that are folded into a long every {@value #WIDE_FLUSH_INTERVAL} steps.
+ */
+final class VectorAggregates {
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    // Int lanes summing shorts cannot overflow within this many steps
+    private static final int WIDE_FLUSH_INTERVAL = 1 << 14;
+
+    private VectorAggregates() {
+        // Utility class, no instances
+    }
+
+    /**
+     * Get the lanes of the vector starting at {@code index} that hold valid values.
+     */
+    private static <E> VectorMask<E> mask(VectorSpecies<E> species, SwordBuf validity, int index, int count) {
+        if (validity == null) {
+            return species.indexInRange(index, count);
+        }
+        return VectorMask.fromLong(species, BitVectorHelper.getBits(validity, index, Math.min(species.length(), count - index)));
+    }
+
+    private static boolean whole(VectorSpecies<?> species, SwordBuf validity, int index, int count) {
+        return validity == null && index + species.length() <= count;
+    }
+
+    static long sumInt(SwordBuf data, SwordBuf validity, int count) {
+        ByteBuffer view = data.nioBuffer();
+        LongVector sum = LongVector.zero(LONGS);
+        for (int i = 0; i < count; i += INTS.length()) {
+            IntVector values = whole(INTS, validity, i, count)
+                    ? IntVector.fromByteBuffer(INTS, view, i * 4, ORDER)
+                    : IntVector.fromByteBuffer(INTS, view, i * 4, ORDER, mask(INTS, validity, i, count));
+            sum = sum.add(values.convertShape(VectorOperators.I2L, LONGS, 0))
+                    .add(values.convertShape(VectorOperators.I2L, LONGS, 1));
+        }
+        return sum.reduceLanes(VectorOperators.ADD);
+    }
+
+    static int minInt(SwordBuf data, SwordBuf validity, int count) {
+        return reduceInt(data, validity, count, VectorOperators.MIN, Integer.MAX_VALUE);
+    }
+
+    static int maxInt(SwordBuf data, SwordBuf validity, int count) {
+        return reduceInt(data, validity, count, VectorOperators.MAX, Integer.MIN_VALUE);
+    }
+
+    private static int reduceInt(SwordBuf data, SwordBuf validity, int count, VectorOperators.Associative op, int identity) {
+        ByteBuffer view = data.nioBuffer();
+        IntVector result = IntVector.broadcast(INTS, identity);
+        for (int i = 0; i < count; i += INTS.length()) {
+            if (whole(INTS, validity, i, count)) {
+                result = result.lanewise(op, IntVector.fromByteBuffer(INTS, view, i * 4, ORDER));
+            } else {
+                VectorMask<Integer> mask = mask(INTS, validity, i, count);
+                result = result.lanewise(op, IntVector.fromByteBuffer(INTS, view, i * 4, ORDER, mask), mask);
+            }
+        }
+        return result.reduceLanes(op);
+    }
+
+    static long sumLong(SwordBuf data, SwordBuf validity, int count) {
+        ByteBuffer view = data.nioBuffer();
+        LongVector sum = LongVector.zero(LONGS);
+        for (int i = 0; i < count; i += LONGS.length()) {
+            sum = sum.add(whole(LONGS, validity, i, count)
+                    ? LongVector.fromByteBuffer(LONGS, view, i * 8, ORDER)
+                    : LongVector.fromByteBuffer(LONGS, view, i * 8, ORDER, mask(LONGS, validity, i, count)));
+        }
+        return sum.reduceLanes(VectorOperators.ADD);
+    }
+
+    static long minLong(SwordBuf data, SwordBuf validity, int count) {
+        return reduceLong(data, validity, count, VectorOperators.MIN, Long.MAX_VALUE);
+    }
+
+    static long maxLong(SwordBuf data, SwordBuf validity, int count) {
+        return reduceLong(data, validity, count, VectorOperators.MAX, Long.MIN_VALUE);
+    }
+
+    private static long reduceLong(SwordBuf data, SwordBuf validity, int count, VectorOperators.Associative op, long identity) {
+        ByteBuffer view = data.nioBuffer();
+        LongVector result = LongVector.broadcast(LONGS, identity);
+        for (int i = 0; i < count; i += LONGS.length()) {
+            if (whole(LONGS, validity, i, count)) {
+                result = result.lanewise(op, LongVector.fromByteBuffer(LONGS, view, i * 8, ORDER));
+            } else {
+                VectorMask<Long> mask = mask(LONGS, validity, i, count);
+                result = result.lanewise(op, LongVector.fromByteBuffer(LONGS, view, i * 8, ORDER, mask), mask);
+            }
+        }
+        return result.reduceLanes(op);
+    }
+
+    // Lanes are widened first: reducing in int could overflow
+    private static long widenedSum(IntVector partial) {
+        return partial.convertShape(VectorOperators.I2L, LONGS, 0).reduceLanesToLong(VectorOperators.ADD)
+                + partial.convertShape(VectorOperators.I2L, LONGS, 1).reduceLanesToLong(VectorOperators.ADD);
+    }
+
+    static long sumShort(SwordBuf data, SwordBuf validity, int count) {
+        ByteBuffer view = data.nioBuffer();
+        long sum = 0;
+        IntVector partial = IntVector.zero(INTS);
+        int steps = 0;
+        for (int i = 0; i < count; i += SHORTS.length()) {
+            ShortVector values = whole(SHORTS, validity, i, count)
+                    ? ShortVector.fromByteBuffer(SHORTS, view, i * 2, ORDER)
+                    : ShortVector.fromByteBuffer(SHORTS, view, i * 2, ORDER, mask(SHORTS, validity, i, count));
+            partial = partial.add(values.convertShape(VectorOperators.S2I, INTS, 0))
+                    .add(values.convertShape(VectorOperators.S2I, INTS, 1));
+            if (++steps == WIDE_FLUSH_INTERVAL) {
+                sum += widenedSum(partial);
+                partial = IntVector.zero(INTS);
+                steps = 0;
+            }
+        }
+        return sum + widenedSum(partial);
+    }
+
+    static short minShort(SwordBuf data, SwordBuf validity, int count) {
+        return reduceShort(data, validity, count, VectorOperators.MIN, Short.MAX_VALUE);
+    }
+
+    static short maxShort(SwordBuf data, SwordBuf validity, int count) {
+        return reduceShort(data, validity, count, VectorOperators.MAX, Short.MIN_VALUE);
+    }
+
+    private static short reduceShort(SwordBuf data, SwordBuf validity, int count, VectorOperators.Associative op, short identity) {
+        ByteBuffer view = data.nioBuffer();
+        ShortVector result = ShortVector.broadcast(SHORTS, identity);
+        for (int i = 0; i < count; i += SHORTS.length()) {
+            if (whole(SHORTS, validity, i, count)) {
+                result = result.lanewise(op, ShortVector.fromByteBuffer(SHORTS, view, i * 2, ORDER));
+            } else {
+                VectorMask<Short> mask = mask(SHORTS, validity, i, count);
+                result = result.lanewise(op, ShortVector.fromByteBuffer(SHORTS, view, i * 2, ORDER, mask), mask);
+            }
+        }
+        return result.reduceLanes(op);
+    }
+
+    static long sumByte(SwordBuf data, SwordBuf validity, int count) {
+        ByteBuffer view = data.nioBuffer();
+        long sum = 0;
+        IntVector partial = IntVector.zero(INTS);
+        int steps = 0;
+        for (int i = 0; i < count; i += BYTES.length()) {
+            ByteVector values = whole(BYTES, validity, i, count)
+                    ? ByteVector.fromByteBuffer(BYTES, view, i, ORDER)
+                    : ByteVector.fromByteBuffer(BYTES, view, i, ORDER, mask(BYTES, validity, i, count));
+            for (int part = 0; part < 4; part++) {
+                partial = partial.add(values.convertShape(VectorOperators.B2I, INTS, part));
+            }
+            if (++steps == WIDE_FLUSH_INTERVAL) {
+                sum += widenedSum(partial);
+                partial = IntVector.zero(INTS);
+                steps = 0;
+            }
+        }
+        return sum + widenedSum(partial);
+    }
+
+    static byte minByte(SwordBuf data, SwordBuf validity, int count) {
+        return reduceByte(data, validity, count, VectorOperators.MIN, Byte.MAX_VALUE);
+    }
+
+    static byte maxByte(SwordBuf data, SwordBuf validity, int count) {
+        return reduceByte(data, validity, count, VectorOperators.MAX, Byte.MIN_VALUE);
+    }
+
+    private static byte reduceByte(SwordBuf data, SwordBuf validity, int count, VectorOperators.Associative op, byte identity) {
+        ByteBuffer view = data.nioBuffer();
+        ByteVector result = ByteVector.broadcast(BYTES, identity);
+        for (int i = 0; i < count; i += BYTES.length()) {
+            if (whole(BYTES, validity, i, count)) {
+                result = result.lanewise(op, ByteVector.fromByteBuffer(BYTES, view, i, ORDER));
+            } else {
+                VectorMask<Byte> mask = mask(BYTES, validity, i, count);
+                result = result.lanewise(op, ByteVector.fromByteBuffer(BYTES, view, i, ORDER, mask), mask);
+            }
+        }
+        return result.reduceLanes(op);
+    }
+
+    static double sumFloat(SwordBuf data, SwordBuf validity, int count) {
+        ByteBuffer view = data.nioBuffer();
+        DoubleVector sum = DoubleVector.zero(DOUBLES);
+        for (int i = 0; i < count; i += FLOATS.length()) {
+            FloatVector values = whole(FLOATS, validity, i, count)
+                    ? FloatVector.fromByteBuffer(FLOATS, view, i * 4, ORDER)
+                    : FloatVector.fromByteBuffer(FLOATS, view, i * 4, ORDER, mask(FLOATS, validity, i, count));
+            sum = sum.add(values.convertShape(VectorOperators.F2D, DOUBLES, 0))
+                    .add(values.convertShape(VectorOperators.F2D, DOUBLES, 1));
+        }
+        return sum.reduceLanes(VectorOperators.ADD);
+    }
+
+    static float minFloat(SwordBuf data, SwordBuf validity, int count) {
+        return reduceFloat(data, validity, count, VectorOperators.MIN, Float.POSITIVE_INFINITY);
+    }
+
+    static float maxFloat(SwordBuf data, SwordBuf validity, int count) {
+        return reduceFloat(data, validity, count, VectorOperators.MAX, Float.NEGATIVE_INFINITY);
+    }
+
+    private static float reduceFloat(SwordBuf data, SwordBuf validity, int count, VectorOperators.Associative op, float identity) {
+        ByteBuffer view = data.nioBuffer();
+        FloatVector result = FloatVector.broadcast(FLOATS, identity);
+        for (int i = 0; i < count; i += FLOATS.length()) {
+            if (whole(FLOATS, validity, i, count)) {
+                result = result.lanewise(op, FloatVector.fromByteBuffer(FLOATS, view, i * 4, ORDER));
+            } else {
+                VectorMask<Float> mask = mask(FLOATS, validity, i, count);
+                result = result.lanewise(op, FloatVector.fromByteBuffer(FLOATS, view, i * 4, ORDER, mask), mask);
+            }
+        }
+        return result.reduceLanes(op);
+    }
+
+    static double sumDouble(SwordBuf data, SwordBuf validity, int count) {
+        ByteBuffer view = data.nioBuffer();
+        DoubleVector sum = DoubleVector.zero(DOUBLES);
+        for (int i = 0; i < count; i += DOUBLES.length()) {
+            sum = sum.add(whole(DOUBLES, validity, i, count)
+                    ? DoubleVector.fromByteBuffer(DOUBLES, view, i * 8, ORDER)
+                    : DoubleVector.fromByteBuffer(DOUBLES, view, i * 8, ORDER, mask(DOUBLES, validity, i, count)));
+        }
+        return sum.reduceLanes(VectorOperators.ADD);
+    }
+
+    static double minDouble(SwordBuf data, SwordBuf validity, int count) {
+        return reduceDouble(data, validity, count, VectorOperators.MIN, Double.POSITIVE_INFINITY);
+    }
+
+    static double maxDouble(SwordBuf data, SwordBuf validity, int count) {
+        return reduceDouble(data, validity, count, VectorOperators.MAX, Double.NEGATIVE_INFINITY);
+    }
+
+    private static double reduceDouble(SwordBuf data, SwordBuf validity, int count, VectorOperators.Associative op, double identity) {
+        ByteBuffer view = data.nioBuffer();
+        DoubleVector result = DoubleVector.broadcast(DOUBLES, identity);
+        for (int i = 0; i < count; i += DOUBLES.length()) {
+            if (whole(DOUBLES, validity, i, count)) {
+                result = result.lanewise(op, DoubleVector.fromByteBuffer(DOUBLES, view, i * 8, ORDER));
+            } else {
+                VectorMask<Double> mask = mask(DOUBLES, validity, i, count);
+                result = result.lanewise(op, DoubleVector.fromByteBuffer(DOUBLES, view, i * 8, ORDER, mask), mask);
+            }
+        }
+        return result.reduceLanes(op);
+    }
+}
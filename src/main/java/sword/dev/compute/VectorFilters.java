@@ -0,0 +1,246 @@
+package sword.dev.compute;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import sword.dev.BitVectorHelper;
+import sword.dev.SwordBuf;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The Vector API kernels behind {@link Filters}. Each 64-row word of matches is built from the lane masks
+ * of the vectors covering it; the last partial vector is loaded under a range mask. An in-list is
+ * tested against each listed value in turn, so its cost grows with the list. Only loaded when the Vector
+ * API is available.
+ */
+final class VectorFilters {
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    // Lane k holds bit k, to turn a lane mask into bits with a blend and an OR reduction. VectorMask.toLong
+    // would say the same directly, but is not compiled to vector instructions on JDK 17.
+    private static final IntVector INT_LANE_BITS = IntVector.fromArray(INTS, laneBits(INTS.length()), 0);
+    private static final LongVector LONG_LANE_BITS = LongVector.fromArray(LONGS, longLaneBits(LONGS.length()), 0);
+
+    private VectorFilters() {
+        // Utility class, no instances
+    }
+
+    private static int[] laneBits(int lanes) {
+        int[] bits = new int[lanes];
+        for (int lane = 0; lane < lanes; lane++) {
+            bits[lane] = 1 << lane;
+        }
+        return bits;
+    }
+
+    private static long[] longLaneBits(int lanes) {
+        long[] bits = new long[lanes];
+        for (int lane = 0; lane < lanes; lane++) {
+            bits[lane] = 1L << lane;
+        }
+        return bits;
+    }
+
+    private static long toBits(VectorMask<Integer> mask) {
+        return IntVector.zero(INTS).blend(INT_LANE_BITS, mask).reduceLanes(VectorOperators.OR) & 0xFFFFFFFFL;
+    }
+
+    private static long toLongBits(VectorMask<Long> mask) {
+        return LongVector.zero(LONGS).blend(LONG_LANE_BITS, mask).reduceLanes(VectorOperators.OR);
+    }
+
+    private static long toDoubleBits(VectorMask<Double> mask) {
+        // The preferred long and double species have the same number of lanes
+        return toLongBits(mask.cast(LONGS));
+    }
+
+    static void filterInt(SwordBuf data, SwordBuf validity, int count, FilterKind kind, CompareOp op,
+                          int low, int high, int[] values, MatchSink sink) {
+        ByteBuffer view = data.nioBuffer();
+        int lanes = INTS.length();
+        for (int base = 0; base < count; base += 64) {
+            int rows = Math.min(64, count - base);
+            long matches = 0;
+            for (int j = 0; j < rows; j += lanes) {
+                int i = base + j;
+                long laneMatches;
+                if (i + lanes <= count) {
+                    IntVector vector = IntVector.fromByteBuffer(INTS, view, i * 4, ORDER);
+                    laneMatches = toBits(matches(vector, kind, op, low, high, values));
+                } else {
+                    VectorMask<Integer> inRange = INTS.indexInRange(i, count);
+                    IntVector vector = IntVector.fromByteBuffer(INTS, view, i * 4, ORDER, inRange);
+                    laneMatches = toBits(matches(vector, kind, op, low, high, values).and(inRange));
+                }
+                matches |= laneMatches << j;
+            }
+            if (validity != null) {
+                matches &= BitVectorHelper.getBits(validity, base, rows);
+            }
+            sink.accept(base, matches);
+        }
+    }
+
+    private static VectorMask<Integer> matches(IntVector vector, FilterKind kind, CompareOp op,
+                                             int low, int high, int[] values) {
+        switch (kind) {
+            case COMPARE:
+                return compare(vector, op, low);
+            case BETWEEN:
+                return vector.compare(VectorOperators.GE, low).and(vector.compare(VectorOperators.LE, high));
+            default:
+                VectorMask<Integer> mask = INTS.maskAll(false);
+                for (int candidate : values) {
+                    mask = mask.or(vector.compare(VectorOperators.EQ, candidate));
+                }
+                return mask;
+        }
+    }
+
+    static void filterLong(SwordBuf data, SwordBuf validity, int count, FilterKind kind, CompareOp op,
+                          long low, long high, long[] values, MatchSink sink) {
+        ByteBuffer view = data.nioBuffer();
+        int lanes = LONGS.length();
+        for (int base = 0; base < count; base += 64) {
+            int rows = Math.min(64, count - base);
+            long matches = 0;
+            for (int j = 0; j < rows; j += lanes) {
+                int i = base + j;
+                long laneMatches;
+                if (i + lanes <= count) {
+                    LongVector vector = LongVector.fromByteBuffer(LONGS, view, i * 8, ORDER);
+                    laneMatches = toLongBits(matches(vector, kind, op, low, high, values));
+                } else {
+                    VectorMask<Long> inRange = LONGS.indexInRange(i, count);
+                    LongVector vector = LongVector.fromByteBuffer(LONGS, view, i * 8, ORDER, inRange);
+                    laneMatches = toLongBits(matches(vector, kind, op, low, high, values).and(inRange));
+                }
+                matches |= laneMatches << j;
+            }
+            if (validity != null) {
+                matches &= BitVectorHelper.getBits(validity, base, rows);
+            }
+            sink.accept(base, matches);
+        }
+    }
+
+    private static VectorMask<Long> matches(LongVector vector, FilterKind kind, CompareOp op,
+                                             long low, long high, long[] values) {
+        switch (kind) {
+            case COMPARE:
+                return compare(vector, op, low);
+            case BETWEEN:
+                return vector.compare(VectorOperators.GE, low).and(vector.compare(VectorOperators.LE, high));
+            default:
+                VectorMask<Long> mask = LONGS.maskAll(false);
+                for (long candidate : values) {
+                    mask = mask.or(vector.compare(VectorOperators.EQ, candidate));
+                }
+                return mask;
+        }
+    }
+
+    static void filterDouble(SwordBuf data, SwordBuf validity, int count, FilterKind kind, CompareOp op,
+                          double low, double high, double[] values, MatchSink sink) {
+        ByteBuffer view = data.nioBuffer();
+        int lanes = DOUBLES.length();
+        for (int base = 0; base < count; base += 64) {
+            int rows = Math.min(64, count - base);
+            long matches = 0;
+            for (int j = 0; j < rows; j += lanes) {
+                int i = base + j;
+                long laneMatches;
+                if (i + lanes <= count) {
+                    DoubleVector vector = DoubleVector.fromByteBuffer(DOUBLES, view, i * 8, ORDER);
+                    laneMatches = toDoubleBits(matches(vector, kind, op, low, high, values));
+                } else {
+                    VectorMask<Double> inRange = DOUBLES.indexInRange(i, count);
+                    DoubleVector vector = DoubleVector.fromByteBuffer(DOUBLES, view, i * 8, ORDER, inRange);
+                    laneMatches = toDoubleBits(matches(vector, kind, op, low, high, values).and(inRange));
+                }
+                matches |= laneMatches << j;
+            }
+            if (validity != null) {
+                matches &= BitVectorHelper.getBits(validity, base, rows);
+            }
+            sink.accept(base, matches);
+        }
+    }
+
+    private static VectorMask<Double> matches(DoubleVector vector, FilterKind kind, CompareOp op,
+                                             double low, double high, double[] values) {
+        switch (kind) {
+            case COMPARE:
+                return compare(vector, op, low);
+            case BETWEEN:
+                return vector.compare(VectorOperators.GE, low).and(vector.compare(VectorOperators.LE, high));
+            default:
+                VectorMask<Double> mask = DOUBLES.maskAll(false);
+                for (double candidate : values) {
+                    mask = mask.or(vector.compare(VectorOperators.EQ, candidate));
+                }
+                return mask;
+        }
+    }
+
+    // Every branch passes its operator as a constant: the compiler only emits vector compares for an
+    // operator it can see
+    private static VectorMask<Integer> compare(IntVector vector, CompareOp op, int value) {
+        switch (op) {
+            case EQ:
+                return vector.compare(VectorOperators.EQ, value);
+            case NE:
+                return vector.compare(VectorOperators.NE, value);
+            case LT:
+                return vector.compare(VectorOperators.LT, value);
+            case LE:
+                return vector.compare(VectorOperators.LE, value);
+            case GT:
+                return vector.compare(VectorOperators.GT, value);
+            default:
+                return vector.compare(VectorOperators.GE, value);
+        }
+    }
+
+    private static VectorMask<Long> compare(LongVector vector, CompareOp op, long value) {
+        switch (op) {
+            case EQ:
+                return vector.compare(VectorOperators.EQ, value);
+            case NE:
+                return vector.compare(VectorOperators.NE, value);
+            case LT:
+                return vector.compare(VectorOperators.LT, value);
+            case LE:
+                return vector.compare(VectorOperators.LE, value);
+            case GT:
+                return vector.compare(VectorOperators.GT, value);
+            default:
+                return vector.compare(VectorOperators.GE, value);
+        }
+    }
+
+    private static VectorMask<Double> compare(DoubleVector vector, CompareOp op, double value) {
+        switch (op) {
+            case EQ:
+                return vector.compare(VectorOperators.EQ, value);
+            case NE:
+                return vector.compare(VectorOperators.NE, value);
+            case LT:
+                return vector.compare(VectorOperators.LT, value);
+            case LE:
+                return vector.compare(VectorOperators.LE, value);
+            case GT:
+                return vector.compare(VectorOperators.GT, value);
+            default:
+                return vector.compare(VectorOperators.GE, value);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package sword.dev.dictionary;
+
+import sword.dev.FieldVectorV2;
+import sword.dev.type.SwordType;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The distinct values of a dictionary-encoded column, held in a vector. Value {@code i} of the vector
+ * is what code {@code i} stands for. A dictionary is identified by an id so that many batches can
+ * share it through a {@link DictionaryRegistry}; closing it closes the vector.
+ */
+public class Dictionary implements AutoCloseable {
+    private final long id;
+    private final FieldVectorV2 vector;
+    private final Map<Object, Integer> codes;
+    private int[] ranks;
+
+    /**
+     * @param id the id batches refer to this dictionary by
+     * @param vector the distinct values, without nulls or duplicates; the dictionary takes ownership
+     */
+    public Dictionary(long id, FieldVectorV2 vector) {
+        this.id = id;
+        this.vector = vector;
+        int size = vector.getValueCount();
+        this.codes = new HashMap<>(size * 2);
+        for (int code = 0; code < size; code++) {
+            Object value = vector.getObject(code);
+            if (value == null) {
+                throw new IllegalArgumentException("Dictionary " + id + " holds a null at code " + code);
+            }
+            if (codes.putIfAbsent(value, code) != null) {
+                throw new IllegalArgumentException("Dictionary " + id + " holds " + value + " more than once");
+            }
+        }
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public FieldVectorV2 getVector() {
+        return vector;
+    }
+
+    /**
+     * Get the type of the values the codes stand for.
+     */
+    public SwordType getValueType() {
+        return vector.getType();
+    }
+
+    public int size() {
+        return vector.getValueCount();
+    }
+
+    /**
+     * Get the code for a value, or -1 if the value is not in the dictionary.
+     */
+    public int lookup(Object value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    public Object getValue(int code) {
+        return vector.getObject(code);
+    }
+
+    /**
+     * Get the position of a code's value in sorted order, so that comparing ranks compares values. The
+     * ranks are computed once, on first use.
+     *
+     * @throws UnsupportedOperationException if the values are not comparable
+     */
+    public int rank(int code) {
+        int[] ranks = this.ranks;
+        if (ranks == null) {
+            ranks = computeRanks();
+        }
+        return ranks[code];
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private synchronized int[] computeRanks() {
+        if (ranks != null) {
+            return ranks;
+        }
+        int size = size();
+        Integer[] order = new Integer[size];
+        for (int code = 0; code < size; code++) {
+            order[code] = code;
+            if (!(vector.getObject(code) instanceof Comparable)) {
+                throw new UnsupportedOperationException("Values of dictionary " + id + " are not comparable");
+            }
+        }
+        Arrays.sort(order, Comparator.comparing(code -> (Comparable) vector.getObject(code)));
+        int[] computed = new int[size];
+        for (int rank = 0; rank < size; rank++) {
+            computed[order[rank]] = rank;
+        }
+        ranks = computed;
+        return computed;
+    }
+
+    @Override
+    public void close() {
+        vector.close();
+    }
+
+    @Override
+    public String toString() {
+        return "Dictionary[id=" + id + ", size=" + size() + ", type=" + getValueType() + "]";
+    }
+}
@@ -0,0 +1,354 @@
+package sword.dev.dictionary;
+
+import sword.dev.BaseFixedWidthVector;
+import sword.dev.BaseValueVectorV2;
+import sword.dev.BufferAllocator;
+import sword.dev.FieldVectorV2;
+import sword.dev.IntVectorV2;
+import sword.dev.SwordBuf;
+import sword.dev.TinyIntVectorV2;
+import sword.dev.ValueVectorV2;
+import sword.dev.exceptions.OutOfMemoryException;
+import sword.dev.type.SwordType;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A column stored as small integer codes into a shared {@link Dictionary}. Dictionaries of up to 256
+ * values use one unsigned byte per row, larger ones an int. Nulls live in the code vector's validity
+ * bitmap. Reads through {@link #getObject(int)} decode; the code accessors let comparisons and grouping
+ * work on the codes without touching the values.
+ *
+ * <p>The vector borrows the dictionary: closing the vector releases the codes only.
+ */
+public class DictionaryEncodedVector extends BaseValueVectorV2 implements FieldVectorV2 {
+    public static final int MAX_BYTE_CODES = 256;
+
+    private final Dictionary dictionary;
+    private final BaseFixedWidthVector indices;
+    private final boolean byteCodes;
+
+    /**
+     * Create an empty vector of codes into {@code dictionary}, sized to its number of values.
+     */
+    public DictionaryEncodedVector(String name, BufferAllocator allocator, Dictionary dictionary) {
+        this(dictionary.size() <= MAX_BYTE_CODES
+                ? new TinyIntVectorV2(name, allocator)
+                : new IntVectorV2(name, allocator), dictionary);
+    }
+
+    /**
+     * Wrap an existing vector of codes, which must be a {@link TinyIntVectorV2} or an {@link IntVectorV2}.
+     */
+    public DictionaryEncodedVector(BaseFixedWidthVector indices, Dictionary dictionary) {
+        super(indices.getName(), indices.getAllocator());
+        if (!(indices instanceof TinyIntVectorV2) && !(indices instanceof IntVectorV2)) {
+            throw new IllegalArgumentException("Codes must be held in a TinyIntVectorV2 or an IntVectorV2");
+        }
+        this.byteCodes = indices instanceof TinyIntVectorV2;
+        if (byteCodes && dictionary.size() > MAX_BYTE_CODES) {
+            throw new IllegalArgumentException("Dictionary " + dictionary.getId() + " has too many values for byte codes");
+        }
+        this.indices = indices;
+        this.dictionary = dictionary;
+    }
+
+    public Dictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Get the vector holding the codes.
+     */
+    public BaseFixedWidthVector getIndices() {
+        return indices;
+    }
+
+    /**
+     * Get the type of the decoded values.
+     */
+    @Override
+    public SwordType getType() {
+        return dictionary.getValueType();
+    }
+
+    @Override
+    public void setName(String name) {
+        super.setName(name);
+        indices.setName(name);
+    }
+
+    /**
+     * Get the dictionary code at {@code index}. Undefined for nulls.
+     */
+    public int getIndex(int index) {
+        if (byteCodes) {
+            return ((TinyIntVectorV2) indices).get(index) & 0xFF;
+        }
+        return ((IntVectorV2) indices).get(index);
+    }
+
+    /**
+     * Store a dictionary code at {@code index}.
+     */
+    public void setIndex(int index, int code) {
+        if (code < 0 || code >= dictionary.size()) {
+            throw new IllegalArgumentException("Code " + code + " is outside dictionary " + dictionary.getId());
+        }
+        if (byteCodes) {
+            ((TinyIntVectorV2) indices).set(index, (byte) code);
+        } else {
+            ((IntVectorV2) indices).set(index, code);
+        }
+    }
+
+    public void setIndexSafe(int index, int code) {
+        indices.ensureCapacity(index + 1);
+        setIndex(index, code);
+    }
+
+    /**
+     * Compare the values at two positions by their codes, nulls first. Uses the dictionary's sorted
+     * ranks, so the values themselves are never read.
+     */
+    public int compare(int left, int right) {
+        boolean leftNull = isNull(left);
+        boolean rightNull = isNull(right);
+        if (leftNull || rightNull) {
+            return Boolean.compare(!leftNull, !rightNull);
+        }
+        return Integer.compare(dictionary.rank(getIndex(left)), dictionary.rank(getIndex(right)));
+    }
+
+    /**
+     * Collect the positions holding {@code value} into {@code selection}, comparing codes only.
+     *
+     * @return the number of positions found
+     */
+    public int select(Object value, int[] selection) {
+        int code = dictionary.lookup(value);
+        if (code < 0) {
+            return 0;
+        }
+        int found = 0;
+        for (int i = 0; i < getValueCount(); i++) {
+            if (!isNull(i) && getIndex(i) == code) {
+                selection[found++] = i;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Count the rows holding each dictionary value, indexed by code. Nulls are not counted.
+     */
+    public long[] countByCode() {
+        long[] counts = new long[dictionary.size()];
+        for (int i = 0; i < getValueCount(); i++) {
+            if (!isNull(i)) {
+                counts[getIndex(i)]++;
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public Object getObject(int index) {
+        if (isNull(index)) {
+            return null;
+        }
+        return dictionary.getValue(getIndex(index));
+    }
+
+    /**
+     * Store a value by its code.
+     *
+     * @throws IllegalArgumentException if the value is not in the dictionary
+     */
+    @Override
+    public void set(int index, Object value) {
+        if (value == null) {
+            indices.setNull(index);
+            return;
+        }
+        int code = dictionary.lookup(value);
+        if (code < 0) {
+            throw new IllegalArgumentException("Value " + value + " is not in dictionary " + dictionary.getId());
+        }
+        setIndex(index, code);
+    }
+
+    @Override
+    public void setSafe(int index, Object value) {
+        indices.ensureCapacity(index + 1);
+        set(index, value);
+    }
+
+    @Override
+    public void copyFrom(int fromIndex, int thisIndex, ValueVectorV2 from) {
+        DictionaryEncodedVector fromVector = checkSameDictionary(from);
+        if (fromVector.isNull(fromIndex)) {
+            indices.setNull(thisIndex);
+        } else {
+            setIndex(thisIndex, fromVector.getIndex(fromIndex));
+        }
+    }
+
+    @Override
+    public void copyFromSafe(int fromIndex, int thisIndex, ValueVectorV2 from) {
+        indices.ensureCapacity(thisIndex + 1);
+        copyFrom(fromIndex, thisIndex, from);
+    }
+
+    @Override
+    public FieldVectorV2 getNewVector() {
+        DictionaryEncodedVector vector = new DictionaryEncodedVector((BaseFixedWidthVector) indices.getNewVector(), dictionary);
+        vector.setNullable(isNullable());
+        return vector;
+    }
+
+    @Override
+    public void transferTo(FieldVectorV2 target) {
+        indices.transferTo(checkSameDictionary(target).indices);
+    }
+
+    @Override
+    public void copySubset(int fromIndex, int toIndex, FieldVectorV2 target, int targetIndex) {
+        indices.copySubset(fromIndex, toIndex, checkSameDictionary(target).indices, targetIndex);
+    }
+
+    @Override
+    public FieldVectorV2 slice(int start, int end) {
+        return new DictionaryEncodedVector((BaseFixedWidthVector) indices.slice(start, end), dictionary);
+    }
+
+    private DictionaryEncodedVector checkSameDictionary(ValueVectorV2 other) {
+        if (!(other instanceof DictionaryEncodedVector)) {
+            throw new IllegalArgumentException("Expected a dictionary-encoded vector, got " + other.getClass().getSimpleName());
+        }
+        DictionaryEncodedVector vector = (DictionaryEncodedVector) other;
+        if (vector.dictionary != dictionary || vector.byteCodes != byteCodes) {
+            throw new IllegalArgumentException("Vectors are encoded with different dictionaries");
+        }
+        return vector;
+    }
+
+    @Override
+    public boolean isNullable() {
+        return indices.isNullable();
+    }
+
+    @Override
+    public void setNullable(boolean nullable) {
+        indices.setNullable(nullable);
+    }
+
+    @Override
+    public int getNullCount() {
+        return indices.getNullCount();
+    }
+
+    @Override
+    public boolean isNull(int index) {
+        return indices.isNull(index);
+    }
+
+    @Override
+    public int getValueCapacity() {
+        return indices.getValueCapacity();
+    }
+
+    @Override
+    public int getValueCount() {
+        return indices.getValueCount();
+    }
+
+    @Override
+    public void setValueCount(int valueCount) {
+        indices.setValueCount(valueCount);
+    }
+
+    @Override
+    public void clear() {
+        indices.clear();
+    }
+
+    @Override
+    public void allocateNew() throws OutOfMemoryException {
+        indices.allocateNew();
+    }
+
+    @Override
+    public boolean allocateNewSafe() {
+        return indices.allocateNewSafe();
+    }
+
+    @Override
+    public void reAlloc() {
+        indices.reAlloc();
+    }
+
+    @Override
+    public void setInitialCapacity(int numRecords) {
+        indices.setInitialCapacity(numRecords);
+    }
+
+    @Override
+    public void shrinkToFit() {
+        indices.shrinkToFit();
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        return new Iterator<Object>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < getValueCount();
+            }
+
+            @Override
+            public Object next() {
+                if (index >= getValueCount()) {
+                    throw new NoSuchElementException();
+                }
+                return getObject(index++);
+            }
+        };
+    }
+
+    /**
+     * Get the bytes held by the codes. The dictionary is shared and not counted.
+     */
+    @Override
+    public long getBufferSize() {
+        return indices.getBufferSize();
+    }
+
+    @Override
+    public long getBufferSizeFor(int valueCount) {
+        return indices.getBufferSizeFor(valueCount);
+    }
+
+    @Override
+    public SwordBuf[] getBuffers(boolean clear) {
+        return indices.getBuffers(clear);
+    }
+
+    @Override
+    public SwordBuf getValidityBuffer() {
+        return indices.getValidityBuffer();
+    }
+
+    @Override
+    public SwordBuf getDataBuffer() {
+        return indices.getDataBuffer();
+    }
+
+    @Override
+    public SwordBuf getOffsetBuffer() {
+        return null;
+    }
+}
@@ -0,0 +1,110 @@
+package sword.dev.dictionary;
+
+import sword.dev.BufferAllocator;
+import sword.dev.FieldVectorV2;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Converts between plain vectors and {@link DictionaryEncodedVector}s.
+ */
+public final class DictionaryEncoder {
+
+    private DictionaryEncoder() {
+        // Utility class, no instances
+    }
+
+    /**
+     * Build a dictionary of the distinct non-null values of a vector, in the order they first appear.
+     * The dictionary vector is allocated from the source vector's allocator.
+     */
+    public static Dictionary buildDictionary(long id, FieldVectorV2 vector) {
+        return buildDictionary(id, vector, false);
+    }
+
+    /**
+     * Build a dictionary of the distinct non-null values of a vector. Sorting the values makes codes
+     * compare like the values they stand for.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Dictionary buildDictionary(long id, FieldVectorV2 vector, boolean sorted) {
+        List<Integer> firstSeen = new ArrayList<>();
+        Set<Object> seen = new HashSet<>();
+        for (int i = 0; i < vector.getValueCount(); i++) {
+            Object value = vector.getObject(i);
+            if (value != null && seen.add(value)) {
+                firstSeen.add(i);
+            }
+        }
+        if (sorted) {
+            firstSeen.sort(Comparator.comparing(i -> (Comparable) vector.getObject(i)));
+        }
+        FieldVectorV2 values = vector.getNewVector();
+        values.setName(vector.getName() + ".dictionary");
+        values.setNullable(false);
+        values.setInitialCapacity(firstSeen.size());
+        values.allocateNew();
+        for (int code = 0; code < firstSeen.size(); code++) {
+            values.copyFromSafe(firstSeen.get(code), code, vector);
+        }
+        values.setValueCount(firstSeen.size());
+        return new Dictionary(id, values);
+    }
+
+    /**
+     * Encode a vector against a dictionary, allocating the codes from {@code allocator}.
+     *
+     * @throws IllegalArgumentException if the vector holds a value the dictionary doesn't
+     */
+    public static DictionaryEncodedVector encode(FieldVectorV2 vector, Dictionary dictionary, BufferAllocator allocator) {
+        int valueCount = vector.getValueCount();
+        DictionaryEncodedVector encoded = new DictionaryEncodedVector(vector.getName(), allocator, dictionary);
+        encoded.setNullable(vector.isNullable());
+        encoded.setInitialCapacity(valueCount);
+        encoded.allocateNew();
+        try {
+            for (int i = 0; i < valueCount; i++) {
+                encoded.set(i, vector.getObject(i));
+            }
+        } catch (RuntimeException e) {
+            encoded.close();
+            throw e;
+        }
+        encoded.setValueCount(valueCount);
+        return encoded;
+    }
+
+    /**
+     * Encode a vector against a dictionary, allocating the codes from the vector's allocator.
+     */
+    public static DictionaryEncodedVector encode(FieldVectorV2 vector, Dictionary dictionary) {
+        return encode(vector, dictionary, vector.getAllocator());
+    }
+
+    /**
+     * Decode a vector back into a plain vector of the dictionary's type, allocated from the encoded
+     * vector's allocator.
+     */
+    public static FieldVectorV2 decode(DictionaryEncodedVector encoded) {
+        FieldVectorV2 values = encoded.getDictionary().getVector();
+        int valueCount = encoded.getValueCount();
+        FieldVectorV2 decoded = values.getNewVector();
+        decoded.setName(encoded.getName());
+        decoded.setNullable(encoded.isNullable());
+        decoded.setInitialCapacity(valueCount);
+        decoded.allocateNew();
+        for (int i = 0; i < valueCount; i++) {
+            if (encoded.isNull(i)) {
+                decoded.setSafe(i, null);
+            } else {
+                decoded.copyFromSafe(encoded.getIndex(i), i, values);
+            }
+        }
+        decoded.setValueCount(valueCount);
+        return decoded;
+    }
+}
@@ -0,0 +1,71 @@
+package sword.dev.dictionary;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongFunction;
+
+/**
+ * The dictionaries shared by the batches of a scan or query, by id. The registry owns its
+ * dictionaries and closes them when it is closed; encoded vectors only borrow them.
+ */
+public class DictionaryRegistry implements AutoCloseable {
+    private final Map<Long, Dictionary> dictionaries = new ConcurrentHashMap<>();
+
+    /**
+     * Add a dictionary.
+     *
+     * @throws IllegalStateException if a dictionary with the same id is already registered
+     */
+    public void register(Dictionary dictionary) {
+        if (dictionaries.putIfAbsent(dictionary.getId(), dictionary) != null) {
+            throw new IllegalStateException("Dictionary " + dictionary.getId() + " is already registered");
+        }
+    }
+
+    /**
+     * Get a dictionary by id, building and registering it first if there is none yet.
+     */
+    public Dictionary getOrCreate(long id, LongFunction<Dictionary> factory) {
+        return dictionaries.computeIfAbsent(id, factory::apply);
+    }
+
+    /**
+     * Get a dictionary by id.
+     *
+     * @throws IllegalArgumentException if no dictionary has that id
+     */
+    public Dictionary get(long id) {
+        Dictionary dictionary = dictionaries.get(id);
+        if (dictionary == null) {
+            throw new IllegalArgumentException("No dictionary with id " + id);
+        }
+        return dictionary;
+    }
+
+    public boolean contains(long id) {
+        return dictionaries.containsKey(id);
+    }
+
+    public Collection<Dictionary> getDictionaries() {
+        return new ArrayList<>(dictionaries.values());
+    }
+
+    /**
+     * Remove a dictionary without closing it, handing it back to the caller.
+     */
+    public Dictionary remove(long id) {
+        return dictionaries.remove(id);
+    }
+
+    @Override
+    public void close() {
+        List<Dictionary> open = new ArrayList<>(dictionaries.values());
+        dictionaries.clear();
+        for (Dictionary dictionary : open) {
+            dictionary.close();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package sword.dev.performance;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import sword.dev.BufferAllocator;
+import sword.dev.IntVectorV2;
+import sword.dev.RootAllocator;
+import sword.dev.compute.Aggregates;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sums an int column with the aggregate kernels and with a loop over {@link IntVectorV2#get(int)}, with
+ * and without nulls.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(value = 2, jvmArgs = {"--add-modules=jdk.incubator.vector"})
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 2, time = 1)
+public class AggregatesBenchmark {
+    private static final int VALUE_COUNT = 10_000_000;
+
+    @Param({"false", "true"})
+    private boolean withNulls;
+
+    private BufferAllocator allocator;
+    private IntVectorV2 vector;
+
+    @Setup
+    public void setup() {
+        allocator = new RootAllocator();
+        vector = new IntVectorV2("values", allocator);
+        vector.setInitialCapacity(VALUE_COUNT);
+        vector.setNullable(true);
+        vector.allocateNew();
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            if (withNulls && i % 10 == 0) {
+                vector.setNull(i);
+            } else {
+                vector.set(i, i);
+            }
+        }
+        vector.setValueCount(VALUE_COUNT);
+    }
+
+    @TearDown
+    public void tearDown() {
+        vector.close();
+        allocator.close();
+    }
+
+    @Benchmark
+    public long sumKernel() {
+        return Aggregates.sum(vector);
+    }
+
+    @Benchmark
+    public long sumLoop() {
+        long sum = 0;
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            if (!vector.isNull(i)) {
+                sum += vector.get(i);
+            }
+        }
+        return sum;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(AggregatesBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,99 @@
+package sword.dev.performance;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import sword.dev.BitPackedIntVector;
+import sword.dev.BufferAllocator;
+import sword.dev.IntVectorV2;
+import sword.dev.RootAllocator;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sums a column of small values read in blocks, from a plain int vector and from its bit-packed
+ * encoding.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(value = 2, jvmArgs = {"--add-modules=jdk.incubator.vector"})
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 2, time = 1)
+public class BitPackedIntVectorBenchmark {
+    private static final int VALUE_COUNT = 10_000_000;
+
+    @Param({"4", "12", "20"})
+    private int bitWidth;
+
+    private BufferAllocator allocator;
+    private IntVectorV2 plain;
+    private BitPackedIntVector packed;
+    private int[] block;
+
+    @Setup
+    public void setup() {
+        allocator = new RootAllocator();
+        plain = new IntVectorV2("plain", allocator);
+        plain.setInitialCapacity(VALUE_COUNT);
+        plain.allocateNew();
+        Random random = new Random(42);
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            plain.set(i, 1_000_000 + random.nextInt(1 << bitWidth));
+        }
+        plain.setValueCount(VALUE_COUNT);
+        packed = BitPackedIntVector.encode(plain);
+        block = new int[BitPackedIntVector.BLOCK_SIZE];
+    }
+
+    @TearDown
+    public void tearDown() {
+        packed.close();
+        plain.close();
+        allocator.close();
+    }
+
+    @Benchmark
+    public long scanPlain() {
+        long sum = 0;
+        for (int row = 0; row < VALUE_COUNT; row += block.length) {
+            plain.getDataBuffer().getInts((long) row * 4, block, 0, Math.min(block.length, VALUE_COUNT - row));
+            for (int value : block) {
+                sum += value;
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long scanPacked() {
+        long sum = 0;
+        for (int b = 0; b < packed.getBlockCount(); b++) {
+            packed.decodeBlock(b, block, 0);
+            for (int value : block) {
+                sum += value;
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int randomGetPacked() {
+        int sum = 0;
+        for (int row = 0; row < VALUE_COUNT; row += 997) {
+            sum += packed.get(row);
+        }
+        return sum;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(BitPackedIntVectorBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(opt).run();
+    }
+}
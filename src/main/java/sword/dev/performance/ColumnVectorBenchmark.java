@@ -0,0 +1,93 @@
+package sword.dev.performance;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import query.engine.ColumnVector;
+import query.engine.SwordFieldVector;
+import sword.dev.BufferAllocator;
+import sword.dev.IntVectorV2;
+import sword.dev.RootAllocator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sums an int column through the engine's {@link ColumnVector}: boxed with {@code getValue}, one row at a
+ * time with {@code getInt}, and in chunks with {@code getInts}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(value = 2, jvmArgs = {"--add-modules=jdk.incubator.vector"})
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 2, time = 1)
+public class ColumnVectorBenchmark {
+    private static final int VALUE_COUNT = 1_000_000;
+    private static final int CHUNK_SIZE = 1024;
+
+    private BufferAllocator allocator;
+    private IntVectorV2 vector;
+    private ColumnVector column;
+    private int[] chunk;
+
+    @Setup
+    public void setup() {
+        allocator = new RootAllocator();
+        vector = new IntVectorV2("values", allocator);
+        vector.setInitialCapacity(VALUE_COUNT);
+        vector.allocateNew();
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            vector.set(i, i % 10_000);
+        }
+        vector.setValueCount(VALUE_COUNT);
+        column = SwordFieldVector.of(vector);
+        chunk = new int[CHUNK_SIZE];
+    }
+
+    @TearDown
+    public void tearDown() {
+        vector.close();
+        allocator.close();
+    }
+
+    @Benchmark
+    public long boxed() {
+        long sum = 0;
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            sum += (Integer) column.getValue(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long getInt() {
+        long sum = 0;
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            sum += column.getInt(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long getInts() {
+        long sum = 0;
+        for (int start = 0; start < VALUE_COUNT; start += CHUNK_SIZE) {
+            int length = Math.min(CHUNK_SIZE, VALUE_COUNT - start);
+            column.getInts(start, chunk, 0, length);
+            for (int i = 0; i < length; i++) {
+                sum += chunk[i];
+            }
+        }
+        return sum;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(ColumnVectorBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,117 @@
+package sword.dev.performance;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import query.engine.ColumnVector;
+import query.engine.Expression;
+import query.engine.Field;
+import query.engine.RecordBatch;
+import query.engine.Schema;
+import query.engine.SwordFieldVector;
+import query.engine.SwordTypes;
+import sword.dev.BufferAllocator;
+import sword.dev.IntVectorV2;
+import sword.dev.RootAllocator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static query.engine.Expressions.add;
+import static query.engine.Expressions.col;
+import static query.engine.Expressions.lit;
+import static query.engine.Expressions.mul;
+
+/**
+ * Computes {@code a + b * 2} over batches of two int columns, with the expression tree a column at a time
+ * and row by row through {@link ColumnVector#getValue(int)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(value = 2, jvmArgs = {"--add-modules=jdk.incubator.vector"})
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 2, time = 1)
+public class ExpressionBenchmark {
+    private static final int BATCH_COUNT = 64;
+    private static final int BATCH_SIZE = 4096;
+
+    private BufferAllocator allocator;
+    private List<IntVectorV2> vectors;
+    private List<RecordBatch> batches;
+    private Expression expression;
+    private int[] rowResult;
+
+    @Setup
+    public void setup() {
+        allocator = new RootAllocator();
+        Schema schema = new Schema(Arrays.asList(new Field("a", SwordTypes.Int32Type), new Field("b", SwordTypes.Int32Type)));
+        vectors = new ArrayList<>();
+        batches = new ArrayList<>(BATCH_COUNT);
+        Random random = new Random(42);
+        for (int b = 0; b < BATCH_COUNT; b++) {
+            List<ColumnVector> columns = new ArrayList<>(2);
+            for (String name : new String[]{"a", "b"}) {
+                IntVectorV2 vector = new IntVectorV2(name, allocator);
+                vector.setInitialCapacity(BATCH_SIZE);
+                vector.allocateNew();
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    vector.set(i, random.nextInt(1_000));
+                }
+                vector.setValueCount(BATCH_SIZE);
+                vectors.add(vector);
+                columns.add(SwordFieldVector.of(vector));
+            }
+            batches.add(new RecordBatch(schema, columns));
+        }
+        expression = add(col(0), mul(col(1), lit(2)));
+        rowResult = new int[BATCH_SIZE];
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (IntVectorV2 vector : vectors) {
+            vector.close();
+        }
+        allocator.close();
+    }
+
+    @Benchmark
+    public long vectorized() {
+        long checksum = 0;
+        for (RecordBatch batch : batches) {
+            checksum += expression.evaluate(batch).getInt(BATCH_SIZE - 1);
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public long rowAtATime() {
+        long checksum = 0;
+        int[] out = rowResult;
+        for (RecordBatch batch : batches) {
+            ColumnVector a = batch.field(0);
+            ColumnVector b = batch.field(1);
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                Object left = a.getValue(i);
+                Object right = b.getValue(i);
+                out[i] = left == null || right == null ? 0 : (Integer) left + (Integer) right * 2;
+            }
+            checksum += out[BATCH_SIZE - 1];
+        }
+        return checksum;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(ExpressionBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(opt).run();
+    }
+}
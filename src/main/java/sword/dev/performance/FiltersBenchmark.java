@@ -0,0 +1,90 @@
+package sword.dev.performance;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import sword.dev.BitVectorV2;
+import sword.dev.BufferAllocator;
+import sword.dev.IntVectorV2;
+import sword.dev.RootAllocator;
+import sword.dev.compute.CompareOp;
+import sword.dev.compute.Filters;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Selects the rows of an int column below a constant, as a bitmap, as a selection vector and with a
+ * loop over {@link IntVectorV2#get(int)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(value = 2, jvmArgs = {"--add-modules=jdk.incubator.vector"})
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 2, time = 1)
+public class FiltersBenchmark {
+    private static final int VALUE_COUNT = 10_000_000;
+
+    @Param({"0.01", "0.5"})
+    private double selectivity;
+
+    private BufferAllocator allocator;
+    private IntVectorV2 vector;
+    private int[] selection;
+    private int threshold;
+
+    @Setup
+    public void setup() {
+        allocator = new RootAllocator();
+        vector = new IntVectorV2("values", allocator);
+        vector.setInitialCapacity(VALUE_COUNT);
+        vector.allocateNew();
+        Random random = new Random(42);
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            vector.set(i, random.nextInt(1_000_000));
+        }
+        vector.setValueCount(VALUE_COUNT);
+        selection = new int[VALUE_COUNT];
+        threshold = (int) (1_000_000 * selectivity);
+    }
+
+    @TearDown
+    public void tearDown() {
+        vector.close();
+        allocator.close();
+    }
+
+    @Benchmark
+    public int bitmap() {
+        try (BitVectorV2 matches = Filters.compare(vector, CompareOp.LT, threshold)) {
+            return matches.getValueCount();
+        }
+    }
+
+    @Benchmark
+    public int selectionVector() {
+        return Filters.select(vector, CompareOp.LT, threshold, selection);
+    }
+
+    @Benchmark
+    public int loop() {
+        int selected = 0;
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            if (vector.get(i) < threshold) {
+                selection[selected++] = i;
+            }
+        }
+        return selected;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(FiltersBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(opt).run();
+    }
+}
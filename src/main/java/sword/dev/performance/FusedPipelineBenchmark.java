@@ -0,0 +1,127 @@
+package sword.dev.performance;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import query.engine.ColumnVector;
+import query.engine.Expression;
+import query.engine.Field;
+import query.engine.Filter;
+import query.engine.FilterProjection;
+import query.engine.PhysicalOperator;
+import query.engine.Projection;
+import query.engine.RecordBatch;
+import query.engine.Scan;
+import query.engine.Schema;
+import query.engine.SwordFieldVector;
+import query.engine.SwordTypes;
+import sword.dev.BufferAllocator;
+import sword.dev.IntVectorV2;
+import sword.dev.RootAllocator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static query.engine.Expressions.add;
+import static query.engine.Expressions.and;
+import static query.engine.Expressions.col;
+import static query.engine.Expressions.gt;
+import static query.engine.Expressions.lit;
+import static query.engine.Expressions.lt;
+import static query.engine.Expressions.mul;
+import static query.engine.Expressions.sub;
+
+/**
+ * Runs {@code SELECT a + b * 2, a - b WHERE a > 100 AND b < 500} over batches of two int columns, as a
+ * compiled {@link FilterProjection} and as an interpreted {@link Filter} under a {@link Projection}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(value = 2, jvmArgs = {"--add-modules=jdk.incubator.vector"})
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 2, time = 1)
+public class FusedPipelineBenchmark {
+    private static final int BATCH_COUNT = 64;
+    private static final int BATCH_SIZE = 4096;
+
+    private BufferAllocator allocator;
+    private List<IntVectorV2> vectors;
+    private Schema schema;
+    private List<RecordBatch> batches;
+    private Expression condition;
+    private List<Expression> projections;
+    private List<String> names;
+
+    @Setup
+    public void setup() {
+        allocator = new RootAllocator();
+        schema = new Schema(Arrays.asList(new Field("a", SwordTypes.Int32Type), new Field("b", SwordTypes.Int32Type)));
+        vectors = new ArrayList<>();
+        batches = new ArrayList<>(BATCH_COUNT);
+        Random random = new Random(42);
+        for (int b = 0; b < BATCH_COUNT; b++) {
+            List<ColumnVector> columns = new ArrayList<>(2);
+            for (String name : new String[]{"a", "b"}) {
+                IntVectorV2 vector = new IntVectorV2(name, allocator);
+                vector.setInitialCapacity(BATCH_SIZE);
+                vector.allocateNew();
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    vector.set(i, random.nextInt(1_000));
+                }
+                vector.setValueCount(BATCH_SIZE);
+                vectors.add(vector);
+                columns.add(SwordFieldVector.of(vector));
+            }
+            batches.add(new RecordBatch(schema, columns));
+        }
+        condition = and(gt(col(0), lit(100)), lt(col(1), lit(500)));
+        projections = Arrays.asList(add(col(0), mul(col(1), lit(2))), sub(col(0), col(1)));
+        names = Arrays.asList("x", "y");
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (IntVectorV2 vector : vectors) {
+            vector.close();
+        }
+        allocator.close();
+    }
+
+    @Benchmark
+    public long compiled() {
+        try (FilterProjection operator = new FilterProjection(new Scan(schema, batches), condition, projections, names)) {
+            return drain(operator);
+        }
+    }
+
+    @Benchmark
+    public long interpreted() {
+        try (PhysicalOperator operator = new Projection(new Filter(new Scan(schema, batches), condition), projections, names)) {
+            return drain(operator);
+        }
+    }
+
+    private static long drain(PhysicalOperator operator) {
+        long checksum = 0;
+        for (Iterator<RecordBatch> it = operator.execute(); it.hasNext(); ) {
+            RecordBatch batch = it.next();
+            checksum += batch.rowCount() + batch.field(0).getInt(0);
+        }
+        return checksum;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(FusedPipelineBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,129 @@
+package sword.dev.performance;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import query.engine.Aggregate;
+import query.engine.ColumnVector;
+import query.engine.Field;
+import query.engine.HashAggregate;
+import query.engine.RecordBatch;
+import query.engine.Scan;
+import query.engine.Schema;
+import query.engine.SwordFieldVector;
+import query.engine.SwordTypes;
+import sword.dev.BufferAllocator;
+import sword.dev.IntVectorV2;
+import sword.dev.RootAllocator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static query.engine.Expressions.col;
+
+/**
+ * Runs {@code SELECT k, SUM(v), COUNT(*), AVG(v) GROUP BY k} over batches of two int columns, through
+ * {@link HashAggregate} and row by row into a {@link HashMap} of boxed keys.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(value = 2, jvmArgs = {"--add-modules=jdk.incubator.vector"})
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 2, time = 1)
+public class HashAggregateBenchmark {
+    private static final int BATCH_COUNT = 64;
+    private static final int BATCH_SIZE = 4096;
+
+    @Param({"16", "65536"})
+    private int groupCount;
+
+    private BufferAllocator allocator;
+    private List<IntVectorV2> vectors;
+    private Schema schema;
+    private List<RecordBatch> batches;
+    private List<Aggregate> aggregates;
+    private List<String> names;
+
+    @Setup
+    public void setup() {
+        allocator = new RootAllocator();
+        schema = new Schema(Arrays.asList(new Field("k", SwordTypes.Int32Type), new Field("v", SwordTypes.Int32Type)));
+        vectors = new ArrayList<>();
+        batches = new ArrayList<>(BATCH_COUNT);
+        Random random = new Random(42);
+        for (int b = 0; b < BATCH_COUNT; b++) {
+            List<ColumnVector> columns = new ArrayList<>(2);
+            for (String name : new String[]{"k", "v"}) {
+                IntVectorV2 vector = new IntVectorV2(name, allocator);
+                vector.setInitialCapacity(BATCH_SIZE);
+                vector.allocateNew();
+                int bound = name.equals("k") ? groupCount : 1_000;
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    vector.set(i, random.nextInt(bound));
+                }
+                vector.setValueCount(BATCH_SIZE);
+                vectors.add(vector);
+                columns.add(SwordFieldVector.of(vector));
+            }
+            batches.add(new RecordBatch(schema, columns));
+        }
+        aggregates = Arrays.asList(Aggregate.sum(col(1)), Aggregate.countAll(), Aggregate.avg(col(1)));
+        names = Arrays.asList("sum", "count", "avg");
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (IntVectorV2 vector : vectors) {
+            vector.close();
+        }
+        allocator.close();
+    }
+
+    @Benchmark
+    public long hashAggregate() {
+        long checksum = 0;
+        try (HashAggregate aggregate = new HashAggregate(new Scan(schema, batches), allocator, new int[]{0}, aggregates, names)) {
+            for (Iterator<RecordBatch> it = aggregate.execute(); it.hasNext(); ) {
+                RecordBatch batch = it.next();
+                checksum += batch.rowCount() + batch.field(1).getLong(0);
+            }
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public long heapHashMap() {
+        Map<Integer, long[]> groups = new HashMap<>();
+        for (RecordBatch batch : batches) {
+            ColumnVector keys = batch.field(0);
+            ColumnVector values = batch.field(1);
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                long[] state = groups.computeIfAbsent(keys.getInt(i), k -> new long[2]);
+                state[0] += values.getInt(i);
+                state[1]++;
+            }
+        }
+        long checksum = groups.size();
+        for (long[] state : groups.values()) {
+            checksum += state[0] + (long) ((double) state[0] / state[1]);
+        }
+        return checksum;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(HashAggregateBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(opt).run();
+    }
+}
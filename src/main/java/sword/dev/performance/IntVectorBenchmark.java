@@ -25,9 +25,10 @@ public class IntVectorBenchmark {
     @Setup
     public void setup() {
         BufferAllocator allocator = new RootAllocator();
+        values = new int[10000000];
         vector = new IntVectorV2("test", allocator);
+        vector.setInitialCapacity(values.length);
         vector.allocateNew();
-        values = new int[10000000];
         for (int i = 0; i < values.length; i++) {
             values[i] = i;
         }
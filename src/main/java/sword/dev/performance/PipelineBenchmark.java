@@ -0,0 +1,116 @@
+package sword.dev.performance;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import query.engine.BatchPredicate;
+import query.engine.Field;
+import query.engine.Filter;
+import query.engine.RecordBatch;
+import query.engine.Scan;
+import query.engine.Schema;
+import query.engine.SwordFieldVector;
+import query.engine.SwordTypes;
+import sword.dev.BufferAllocator;
+import sword.dev.IntVectorV2;
+import sword.dev.RootAllocator;
+import sword.dev.compute.CompareOp;
+import sword.dev.compute.Filters;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filters a scan of int batches, once through the {@link Filter} operator, which reuses its output vectors,
+ * and once with {@link RecordBatch#filter}, which allocates new vectors for every batch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(value = 2, jvmArgs = {"--add-modules=jdk.incubator.vector"})
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 2, time = 1)
+public class PipelineBenchmark {
+    private static final int BATCH_COUNT = 256;
+    private static final int BATCH_SIZE = 4096;
+    private static final int THRESHOLD = 500_000;
+
+    private BufferAllocator allocator;
+    private Schema schema;
+    private List<IntVectorV2> vectors;
+    private List<RecordBatch> batches;
+    private int[] selection;
+
+    @Setup
+    public void setup() {
+        allocator = new RootAllocator();
+        schema = new Schema(Collections.singletonList(new Field("values", SwordTypes.Int32Type)));
+        vectors = new ArrayList<>(BATCH_COUNT);
+        batches = new ArrayList<>(BATCH_COUNT);
+        Random random = new Random(42);
+        for (int b = 0; b < BATCH_COUNT; b++) {
+            IntVectorV2 vector = new IntVectorV2("values", allocator);
+            vector.setInitialCapacity(BATCH_SIZE);
+            vector.allocateNew();
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                vector.set(i, random.nextInt(1_000_000));
+            }
+            vector.setValueCount(BATCH_SIZE);
+            vectors.add(vector);
+            batches.add(new RecordBatch(schema, Collections.singletonList(SwordFieldVector.of(vector))));
+        }
+        selection = new int[BATCH_SIZE];
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (IntVectorV2 vector : vectors) {
+            vector.close();
+        }
+        allocator.close();
+    }
+
+    private static int select(RecordBatch batch, int[] selection) {
+        IntVectorV2 values = (IntVectorV2) ((SwordFieldVector) batch.field(0)).getField();
+        return Filters.select(values, CompareOp.LT, THRESHOLD, selection);
+    }
+
+    @Benchmark
+    public long reusedVectors() {
+        long rows = 0;
+        BatchPredicate predicate = PipelineBenchmark::select;
+        try (Filter filter = new Filter(new Scan(schema, batches), predicate)) {
+            Iterator<RecordBatch> output = filter.execute();
+            while (output.hasNext()) {
+                rows += output.next().rowCount();
+            }
+        }
+        return rows;
+    }
+
+    @Benchmark
+    public long newVectors() {
+        long rows = 0;
+        for (RecordBatch batch : batches) {
+            int selected = select(batch, selection);
+            RecordBatch filtered = batch.filter(selection, selected);
+            rows += filtered.rowCount();
+            ((SwordFieldVector) filtered.field(0)).getField().close();
+        }
+        return rows;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(PipelineBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,85 @@
+package sword.dev.performance;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import sword.dev.IntVectorV2;
+import sword.dev.RootAllocator;
+import sword.dev.SwordBuf;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(value = 2, jvmArgs = {"--add-modules=jdk.incubator.vector"})
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 2, time = 1)
+public class SwordBufCopyBenchmark {
+
+    private static final int BUFFER_SIZE = 16 * 1024 * 1024;
+
+    private RootAllocator allocator;
+    private SwordBuf source;
+    private SwordBuf target;
+    private IntVectorV2 vector;
+    private IntVectorV2 targetVector;
+
+    @Setup
+    public void setup() {
+        allocator = new RootAllocator();
+        source = allocator.allocate(BUFFER_SIZE);
+        target = allocator.allocate(BUFFER_SIZE);
+        for (int i = 0; i < BUFFER_SIZE; i += 4) {
+            source.setInt(i, i);
+        }
+        vector = new IntVectorV2("source", allocator);
+        vector.setInitialCapacity(BUFFER_SIZE / 4);
+        vector.allocateNew();
+        targetVector = new IntVectorV2("target", allocator);
+        targetVector.setInitialCapacity(BUFFER_SIZE / 4);
+        targetVector.allocateNew();
+    }
+
+    @TearDown
+    public void tearDown() {
+        vector.close();
+        targetVector.close();
+        source.close();
+        target.close();
+        allocator.close();
+    }
+
+    @Benchmark
+    public void byteByByteCopyBenchmark() {
+        // The copy loop setBytes used before bulk copies
+        for (int i = 0; i < BUFFER_SIZE; i++) {
+            target.setByte(i, source.getByte(i));
+        }
+    }
+
+    @Benchmark
+    public void bulkCopyBenchmark() {
+        target.setBytes(0, source, 0, BUFFER_SIZE);
+    }
+
+    @Benchmark
+    public void setZeroBenchmark() {
+        target.setZero(0, BUFFER_SIZE);
+    }
+
+    @Benchmark
+    public void copySubsetBenchmark() {
+        vector.copySubset(0, BUFFER_SIZE / 4, targetVector, 0);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(SwordBufCopyBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -21,6 +21,28 @@ public class SwordType {
         }
     }
 
+    public static class FloatingPoint extends SwordType.PrimitiveType {
+        private final int bitWidth;
+
+        public FloatingPoint(int bitWidth) {
+            super("float" + bitWidth);
+            if (bitWidth != 32 && bitWidth != 64) {
+                throw new IllegalArgumentException("Floating point width must be 32 or 64 bits: " + bitWidth);
+            }
+            this.bitWidth = bitWidth;
+        }
+
+        public int getBitWidth() {
+            return bitWidth;
+        }
+    }
+
+    public static class Bool extends SwordType.PrimitiveType {
+        public Bool() {
+            super("bool");
+        }
+    }
+
     public static class TinyInt extends SwordType.PrimitiveType {
         public TinyInt() {
             super("tinyint");
@@ -41,5 +63,23 @@ public class SwordType {
         public String getName() {
             return name;
         }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            return o != null && getClass() == o.getClass() && name.equals(((PrimitiveType) o).name);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
     }
 }